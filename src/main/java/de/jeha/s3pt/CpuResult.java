@@ -0,0 +1,90 @@
+package de.jeha.s3pt;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * CPU time of the client during a test: the whole run is measured (including warm-up and cool-down), the CPU time per
+ * request is derived from the utilization and the throughput of the steady state.
+ *
+ * @author jenshadlich@googlemail.com
+ */
+class CpuResult {
+
+    @JsonProperty
+    private final double seconds;
+    @JsonProperty
+    private final double cores;
+    @JsonProperty
+    private final double perRequest;
+
+    /**
+     * @param seconds    CPU time of the client in s
+     * @param cores      utilization of the client in cores, i.e. CPU time per elapsed time
+     * @param perRequest CPU time per request in ms
+     */
+    @JsonCreator
+    CpuResult(@JsonProperty("seconds") double seconds,
+              @JsonProperty("cores") double cores,
+              @JsonProperty("perRequest") double perRequest) {
+        this.seconds = seconds;
+        this.cores = cores;
+        this.perRequest = perRequest;
+    }
+
+    /**
+     * @param cpuNanos     CPU time of the client in ns, negative if not measured
+     * @param elapsedNanos elapsed time of the run in ns
+     * @param ops          throughput in operations/s
+     * @return CPU time of the client or null if not measured
+     */
+    static CpuResult compute(long cpuNanos, long elapsedNanos, double ops) {
+        if (cpuNanos < 0 || elapsedNanos <= 0) {
+            return null;
+        }
+        double cores = (double) cpuNanos / elapsedNanos;
+        return new CpuResult(cpuNanos / 1_000_000_000.0, cores, perRequest(cores, ops));
+    }
+
+    /**
+     * Sum up the CPU time of several workers, which ran at the same time.
+     *
+     * @param cpus CPU time of all workers which measured it
+     * @param ops  throughput of all workers in operations/s
+     * @return CPU time of all workers or null if no worker measured it
+     */
+    static CpuResult sum(List<CpuResult> cpus, double ops) {
+        if (cpus.isEmpty()) {
+            return null;
+        }
+        double seconds = 0;
+        double cores = 0;
+        for (CpuResult cpu : cpus) {
+            seconds += cpu.seconds;
+            cores += cpu.cores;
+        }
+        return new CpuResult(seconds, cores, perRequest(cores, ops));
+    }
+
+    private static double perRequest(double cores, double ops) {
+        return ops > 0 ? cores * 1_000 / ops : 0;
+    }
+
+    public double getSeconds() {
+        return seconds;
+    }
+
+    public double getCores() {
+        return cores;
+    }
+
+    /**
+     * @return CPU time per request in ms
+     */
+    public double getPerRequest() {
+        return perRequest;
+    }
+
+}
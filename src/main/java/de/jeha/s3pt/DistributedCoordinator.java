@@ -0,0 +1,143 @@
+package de.jeha.s3pt;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs a test on several workers (see {@link DistributedWorker}) at the same time and merges their results. Each
+ * worker runs the full workload; the workers start at the same wall clock time, so the clocks of all hosts should be
+ * synchronized (e.g. by NTP).
+ *
+ * @author jenshadlich@googlemail.com
+ */
+class DistributedCoordinator implements Callable<TestResult> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DistributedCoordinator.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final long START_DELAY_MILLIS = 3_000;
+
+    private final List<String> workers;
+    private final List<String> arguments;
+    private final String token;
+
+    /**
+     * @param workers   workers as host:port
+     * @param arguments command line arguments of the test, without credentials (the workers use their own)
+     * @param token     shared token of the workers
+     */
+    DistributedCoordinator(List<String> workers, List<String> arguments, String token) {
+        this.workers = workers;
+        this.arguments = arguments;
+        this.token = token;
+    }
+
+    /**
+     * @return merged test result of all workers or null if a worker failed
+     */
+    @Override
+    public TestResult call() {
+        WorkloadSpec spec = new WorkloadSpec(arguments, System.currentTimeMillis() + START_DELAY_MILLIS, token);
+
+        ExecutorService executorService = Executors.newFixedThreadPool(workers.size());
+        List<Future<WorkerReport>> futureReports = new ArrayList<>();
+        for (String worker : workers) {
+            futureReports.add(executorService.submit(() -> dispatch(worker, spec)));
+        }
+
+        List<WorkerReport> reports = new ArrayList<>();
+        try {
+            for (int i = 0; i < workers.size(); i++) {
+                WorkerReport report = futureReports.get(i).get();
+                if (report.getError() != null) {
+                    LOG.error("Worker {} failed: {}", workers.get(i), report.getError());
+                    return null;
+                }
+                LOG.info("Worker {}: throughput = {} operations/s, errors = {}", workers.get(i), (int) report.getOps(),
+                        report.getErrors() != null ? report.getErrors().getCount() : 0);
+                reports.add(report);
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            LOG.error("An error occurred", e);
+            return null;
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        return merge(reports);
+    }
+
+    private static WorkerReport dispatch(String worker, WorkloadSpec spec) throws IOException {
+        int separator = worker.lastIndexOf(':');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Worker must be given as host:port: " + worker);
+        }
+        String host = worker.substring(0, separator);
+        int port = Integer.parseInt(worker.substring(separator + 1));
+
+        LOG.info("Send workload to worker {}", worker);
+        try (Socket socket = new Socket(host, port)) {
+            Writer writer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+            writer.write(MAPPER.writeValueAsString(spec));
+            writer.write('\n');
+            writer.flush();
+
+            BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            String line = reader.readLine();
+            if (line == null) {
+                throw new IOException("Worker " + worker + " closed the connection without result");
+            }
+            return MAPPER.readValue(line, WorkerReport.class);
+        }
+    }
+
+    /**
+     * Merge the reports of all workers. Percentiles are computed from the merged histograms of all workers; the
+     * throughput (operations/s and MB/s) and the client CPU time are the sum of the values of the workers.
+     *
+     * @param reports reports of all workers
+     * @return merged test result
+     */
+    static TestResult merge(List<WorkerReport> reports) {
+        List<OperationResult> results = new ArrayList<>();
+        List<TransferResult> transfers = new ArrayList<>();
+        List<CpuResult> cpus = new ArrayList<>();
+        double ops = 0;
+        int threads = 0;
+        long retries = 0;
+        for (WorkerReport report : reports) {
+            results.add(report.toOperationResult());
+            ops += report.getOps();
+            threads += report.getThreads();
+            if (report.getErrors() != null) {
+                retries += report.getErrors().getRetries();
+            }
+            if (report.getTransfer() != null) {
+                transfers.add(report.getTransfer());
+            }
+            if (report.getCpu() != null) {
+                cpus.add(report.getCpu());
+            }
+        }
+
+        return TestResult.withThroughput(results, ops, TransferResult.sum(transfers, threads), retries,
+                CpuResult.sum(cpus, ops));
+    }
+
+}
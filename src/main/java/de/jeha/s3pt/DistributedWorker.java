@@ -0,0 +1,207 @@
+package de.jeha.s3pt;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.kohsuke.args4j.CmdLineException;
+import org.kohsuke.args4j.CmdLineParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Worker of a distributed test: waits for workloads of a {@link DistributedCoordinator}, runs them one after another
+ * and sends the raw results back.
+ * <p>
+ * A workload is only run if it carries the shared token of the worker, and only with the options in
+ * {@link #WORKLOAD_OPTIONS} and the operations in {@link #WORKLOAD_OPERATIONS}: a coordinator cannot delete buckets or
+ * choose files on the host of the worker. The worker signs the requests with its own credentials.
+ *
+ * @author jenshadlich@googlemail.com
+ */
+class DistributedWorker implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DistributedWorker.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * Options (with their aliases) a workload may use.
+     */
+    static final Set<String> WORKLOAD_OPTIONS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            "-t", "--threads", "-n", "--number", "--duration", "--warmup", "--cooldown", "--rate",
+            "--size", "--sizes", "--compressionRatio", "--dedupRatio", "--dedupBlockSize", "--verify", "--seed",
+            "--checksum", "--chunkedEncoding", "--endpointUrl", "--bucketName", "--operation", "--mix",
+            "--http", "--gzip", "--signerOverride", "--keepAlive", "--usePathStyleAccess", "--virtualThreads",
+            "--async", "--maxInFlight", "--region", "--phases", "--fullBody", "--reportInterval", "--jfrEvents"
+    )));
+
+    /**
+     * Operations a workload may run.
+     */
+    static final Set<Operation> WORKLOAD_OPERATIONS = Collections.unmodifiableSet(EnumSet.of(
+            Operation.UPLOAD, Operation.RANDOM_READ, Operation.RANDOM_READ_METADATA, Operation.UPLOAD_AND_READ,
+            Operation.MIXED
+    ));
+
+    private final ServerSocket serverSocket;
+    private final byte[] token;
+    private final String accessKey;
+    private final String secretKey;
+
+    /**
+     * @param address   address to listen on, e.g. 127.0.0.1 or 0.0.0.0 for all interfaces
+     * @param port      port to listen on, 0 for any free port
+     * @param token     shared token a workload must carry
+     * @param accessKey access key ID of the requests of the workloads
+     * @param secretKey secret access key of the requests of the workloads
+     * @throws IOException if the port cannot be bound
+     */
+    DistributedWorker(String address, int port, String token, String accessKey, String secretKey) throws IOException {
+        this.serverSocket = new ServerSocket(port, 0, InetAddress.getByName(address));
+        this.token = token.getBytes(StandardCharsets.UTF_8);
+        this.accessKey = accessKey;
+        this.secretKey = secretKey;
+    }
+
+    /**
+     * @return port the worker listens on
+     */
+    int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Serve workloads until the worker is closed or the process is terminated.
+     */
+    void run() {
+        LOG.info("Worker listening on {}", serverSocket.getLocalSocketAddress());
+        while (!serverSocket.isClosed()) {
+            try (Socket socket = serverSocket.accept()) {
+                serve(socket);
+            } catch (IOException | RuntimeException e) {
+                if (!serverSocket.isClosed()) {
+                    LOG.error("An error occurred", e);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+    }
+
+    /**
+     * @param arguments command line arguments of a workload
+     * @return first option which is not in {@link #WORKLOAD_OPTIONS} or null if all options are
+     */
+    static String unsupportedOption(List<String> arguments) {
+        for (String argument : arguments) {
+            final String option = optionName(argument);
+            if (option != null && !WORKLOAD_OPTIONS.contains(option)) {
+                return option;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param argument command line argument
+     * @return name of the option (without "=value") or null if the argument is a value
+     */
+    static String optionName(String argument) {
+        if (argument.length() < 2 || argument.charAt(0) != '-'
+                || Character.isDigit(argument.charAt(1)) || argument.charAt(1) == '.') {
+            // e.g. a negative --seed
+            return null;
+        }
+        final int separator = argument.indexOf('=');
+        return separator < 0 ? argument : argument.substring(0, separator);
+    }
+
+    private void serve(Socket socket) throws IOException {
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        String line = reader.readLine();
+        if (line == null) {
+            return;
+        }
+        WorkloadSpec spec = MAPPER.readValue(line, WorkloadSpec.class);
+        LOG.info("Received workload from {}", socket.getRemoteSocketAddress());
+
+        WorkerReport report = execute(spec);
+
+        Writer writer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+        writer.write(MAPPER.writeValueAsString(report));
+        writer.write('\n');
+        writer.flush();
+    }
+
+    private WorkerReport execute(WorkloadSpec spec) {
+        if (spec.getToken() == null
+                || !MessageDigest.isEqual(token, spec.getToken().getBytes(StandardCharsets.UTF_8))) {
+            LOG.warn("Reject workload: invalid token");
+            return WorkerReport.failed("invalid token");
+        }
+        final String unsupportedOption = unsupportedOption(spec.getArguments());
+        if (unsupportedOption != null) {
+            LOG.warn("Reject workload: option {} is not supported by workers", unsupportedOption);
+            return WorkerReport.failed("option " + unsupportedOption + " is not supported by workers");
+        }
+
+        List<String> arguments = new ArrayList<>(spec.getArguments());
+        arguments.addAll(Arrays.asList("--accessKey", accessKey, "--secretKey", secretKey));
+        Main main = new Main(arguments.toArray(new String[0]));
+        try {
+            main.parse(new CmdLineParser(main));
+        } catch (CmdLineException e) {
+            return WorkerReport.failed(e.getMessage());
+        }
+        if (!WORKLOAD_OPERATIONS.contains(main.getOperation())) {
+            LOG.warn("Reject workload: operation {} is not supported by workers", main.getOperation());
+            return WorkerReport.failed("operation " + main.getOperation() + " is not supported by workers");
+        }
+        S3PerformanceTest test = main.createTest();
+
+        long delayMillis = spec.getStartAt() - System.currentTimeMillis();
+        if (delayMillis > 0) {
+            LOG.info("Start in {} ms", delayMillis);
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return WorkerReport.failed("interrupted");
+            }
+        } else {
+            LOG.warn("Workload received {} ms after the start time, start immediately", -delayMillis);
+        }
+
+        try {
+            TestResult testResult = test.run();
+            if (testResult == null) {
+                return WorkerReport.failed("test failed, see log of the worker");
+            }
+            testResult.log();
+            return WorkerReport.of(testResult);
+        } finally {
+            test.close();
+        }
+    }
+
+}
@@ -0,0 +1,145 @@
+package de.jeha.s3pt;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.HdrHistogram.Histogram;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Failed requests of a test: error rate, number of failed requests per HTTP status and error code (and error rate per
+ * request type of operation MIXED), retries of the S3 clients and the latencies of the failed requests.
+ *
+ * @author jenshadlich@googlemail.com
+ */
+class ErrorResult {
+
+    @JsonProperty
+    private final long count;
+    @JsonProperty
+    private final double rate;
+    @JsonProperty
+    private final long retries;
+    @JsonProperty
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private final Map<String, Long> byStatus;
+    @JsonProperty
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private final Map<String, Long> byCode;
+    @JsonProperty
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private final Map<String, Long> byRequestType;
+    @JsonProperty
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private final Map<String, Double> rateByRequestType;
+    @JsonProperty
+    private final double p50;
+    @JsonProperty
+    private final double p99;
+    @JsonProperty
+    private final double max;
+
+    /**
+     * @param count             number of failed requests
+     * @param rate              share of failed requests of all requests
+     * @param retries           number of retries of the S3 clients (of successful and failed requests)
+     * @param byStatus          number of failed requests per HTTP status
+     * @param byCode            number of failed requests per error code
+     * @param byRequestType     number of failed requests per request type
+     * @param rateByRequestType share of failed requests of all requests per request type
+     * @param p50               p50 of the latencies of the failed requests in ms
+     * @param p99               p99 of the latencies of the failed requests in ms
+     * @param max               max of the latencies of the failed requests in ms
+     */
+    @JsonCreator
+    ErrorResult(@JsonProperty("count") long count,
+                @JsonProperty("rate") double rate,
+                @JsonProperty("retries") long retries,
+                @JsonProperty("byStatus") Map<String, Long> byStatus,
+                @JsonProperty("byCode") Map<String, Long> byCode,
+                @JsonProperty("byRequestType") Map<String, Long> byRequestType,
+                @JsonProperty("rateByRequestType") Map<String, Double> rateByRequestType,
+                @JsonProperty("p50") double p50,
+                @JsonProperty("p99") double p99,
+                @JsonProperty("max") double max) {
+        this.count = count;
+        this.rate = rate;
+        this.retries = retries;
+        this.byStatus = byStatus != null ? byStatus : Collections.emptyMap();
+        this.byCode = byCode != null ? byCode : Collections.emptyMap();
+        this.byRequestType = byRequestType != null ? byRequestType : Collections.emptyMap();
+        this.rateByRequestType = rateByRequestType != null ? rateByRequestType : Collections.emptyMap();
+        this.p50 = p50;
+        this.p99 = p99;
+        this.max = max;
+    }
+
+    /**
+     * @param errors                 failed requests of all threads
+     * @param successes              number of successful requests
+     * @param successesByRequestType number of successful requests per request type
+     * @param retries                number of retries of the S3 clients
+     * @return error result
+     */
+    static ErrorResult compute(OperationErrors errors, long successes, Map<String, Long> successesByRequestType,
+                               long retries) {
+        Histogram histogram = errors.getHistogram();
+        long count = errors.getCount();
+        long requests = successes + count;
+
+        Map<String, Double> rateByRequestType = new TreeMap<>();
+        errors.getCountsByRequestType().forEach((requestType, requestTypeCount) -> rateByRequestType.put(requestType,
+                (double) requestTypeCount / (successesByRequestType.getOrDefault(requestType, 0L) + requestTypeCount)));
+
+        return new ErrorResult(count, requests > 0 ? (double) count / requests : 0, retries,
+                errors.getCountsByStatus(), errors.getCountsByCode(), errors.getCountsByRequestType(),
+                rateByRequestType,
+                TestResult.toMillis(histogram.getValueAtPercentile(50)),
+                TestResult.toMillis(histogram.getValueAtPercentile(99)),
+                TestResult.toMillis(histogram.getMaxValue()));
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    public long getRetries() {
+        return retries;
+    }
+
+    public Map<String, Long> getByStatus() {
+        return byStatus;
+    }
+
+    public Map<String, Long> getByCode() {
+        return byCode;
+    }
+
+    public Map<String, Long> getByRequestType() {
+        return byRequestType;
+    }
+
+    public Map<String, Double> getRateByRequestType() {
+        return rateByRequestType;
+    }
+
+    public double getP50() {
+        return p50;
+    }
+
+    public double getP99() {
+        return p99;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+}
@@ -1,6 +1,12 @@
 package de.jeha.s3pt;
 
 import de.jeha.s3pt.args4j.IntFromByteUnitOptionHandler;
+import de.jeha.s3pt.jfr.FlightRecorderEvents;
+import de.jeha.s3pt.operations.OperationMix;
+import de.jeha.s3pt.operations.size.SizeDistribution;
+import de.jeha.s3pt.utils.Checksum;
+import de.jeha.s3pt.utils.PayloadGenerator;
+import de.jeha.s3pt.utils.WorkerExecutors;
 import org.apache.commons.lang3.time.StopWatch;
 import org.kohsuke.args4j.CmdLineException;
 import org.kohsuke.args4j.CmdLineParser;
@@ -11,8 +17,10 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Set;
 
 /**
  * @author jenshadlich@googlemail.com
@@ -22,20 +30,108 @@ public class Main {
     private static final Logger LOG = LoggerFactory.getLogger(Main.class);
     private static final String DEFAULT_S3_ENDPOINT = "s3.amazonaws.com";
     private static final String KEY_FILE_NAME_MISSING_FOR_CREATE = "Operation CREATE_KEY_FILE requires a keyFileName";
+    private static final String NUMBER_OR_DURATION_MISSING = "Either -n or --duration is required";
+    private static final String DURATION_NOT_SUPPORTED = "Option --duration requires a multi-threaded operation";
+    private static final String VIRTUAL_THREADS_NOT_SUPPORTED = "Option --virtualThreads requires Java 21 or higher";
+    private static final String RAMP_REQUIRES_DURATION = "Option --ramp requires --duration (per step) and a multi-threaded operation";
+    private static final String ASYNC_NOT_SUPPORTED = "Option --async supports UPLOAD, RANDOM_READ and RANDOM_READ_METADATA only";
+    private static final String PHASES_NOT_SUPPORTED = "Option --phases cannot be combined with --async";
+    private static final String CREDENTIALS_MISSING = "Options --accessKey and --secretKey are required";
+    private static final String RAMP_OUT_OF_RANGE = "Options --rampStart and --rampStep must be positive and --rampMaxSteps at least 1";
+    private static final String DISTRIBUTED_RAMP_NOT_SUPPORTED = "Option --ramp cannot be combined with --workers";
+    private static final String TRIALS_NOT_SUPPORTED = "Option --trials must be at least 1 and cannot be combined with --ramp or --workers";
+    private static final String BASELINE_REQUIRES_TRIALS = "Option --baseline requires --trials of at least 2";
+    private static final String JFR_EVENTS_NOT_SUPPORTED = "Option --jfrEvents requires Java 11 or 8u262 and higher";
+    private static final String PAYLOAD_OUT_OF_RANGE = "Option --compressionRatio must be at least 1, --dedupRatio between 0 and 1 and --dedupBlockSize positive";
+    private static final String VERIFY_NOT_SUPPORTED = "Option --verify is not supported for reads of the non-blocking S3 client (--async)";
+    private static final String ALPHA_OUT_OF_RANGE = "Option --alpha must be between 0 and 1";
+    private static final String WORKER_TOKEN_MISSING = "Options --workers and --workerPort require --workerToken (also possible to set S3PT_WORKER_TOKEN in environment)";
+    private static final String OPTION_NOT_SUPPORTED_BY_WORKERS = "Option is not supported by workers: ";
+    private static final String OPERATION_NOT_SUPPORTED_BY_WORKERS = "Operation is not supported by workers: ";
+
+    /**
+     * Options of the coordinator of a distributed test which are not sent to the workers; all of them take a value.
+     */
+    private static final Set<String> COORDINATOR_OPTIONS = new HashSet<>(Arrays.asList(
+            "--workers", "--workerToken", "--accessKey", "--secretKey", "--resultFileName", "--source", "--backend"
+    ));
 
     @Option(name = "-t", aliases = {"--threads"}, usage = "number of threads")
     private int threads = 1;
 
-    @Option(name = "-n", aliases = {"--number"}, usage = "number of operations", required = true)
-    private int n = 1;
+    @Option(name = "-n", aliases = {"--number"}, usage = "number of operations; required unless --duration is given")
+    private int n = 0;
+
+    @Option(name = "--duration", usage = "run for the given number of seconds (steady state) instead of a number of operations")
+    private int duration = 0;
+
+    @Option(name = "--warmup", usage = "number of seconds before the steady state which are excluded from the results (requires --duration)")
+    private int warmup = 0;
+
+    @Option(name = "--cooldown", usage = "number of seconds after the steady state which are excluded from the results (requires --duration)")
+    private int cooldown = 0;
+
+    @Option(name = "--rate", usage = "target rate in operations/s over all threads (open-loop, latency is measured from the intended start time); 0 means closed-loop")
+    private double rate = 0;
+
+    @Option(name = "--ramp", usage = "search the maximum sustainable throughput: raise THREADS or RATE step by step until p99 exceeds --sloP99 or throughput stops growing (requires --duration)")
+    private SaturationSearch.Dimension ramp = null;
+
+    @Option(name = "--rampStart", usage = "number of threads or rate of the first ramp step")
+    private double rampStart = 1;
+
+    @Option(name = "--rampStep", usage = "increment of threads or rate per ramp step")
+    private double rampStep = 1;
+
+    @Option(name = "--rampMaxSteps", usage = "maximum number of ramp steps")
+    private int rampMaxSteps = 10;
+
+    @Option(name = "--sloP99", usage = "p99 latency SLO in ms for --ramp; 0 means no SLO")
+    private double sloP99 = 0;
+
+    @Option(name = "--minGrowth", usage = "minimum throughput growth from one ramp step to the next in percent")
+    private double minGrowth = 5;
+
+    @Option(name = "--trials", usage = "repeat the test the given number of times and report mean and confidence interval of each metric")
+    private int trials = 1;
+
+    @Option(name = "--baseline", usage = "result file of an earlier run with --trials (see --resultFileName) to compare with; exits with status 1 if a metric regressed significantly")
+    private String baseline = null;
+
+    @Option(name = "--alpha", usage = "significance level of the confidence intervals of --trials and the comparison with --baseline")
+    private double alpha = 0.05;
 
     @Option(name = "--size", usage = "file size (e.g. for UPLOAD); supported units: B, K, M", handler = IntFromByteUnitOptionHandler.class)
     private int size = 128 * 1024; // 128K
 
-    @Option(name = "--accessKey", usage = "access key ID; also possible to set AWS_ACCESS_KEY int environment", required = true)
+    @Option(name = "--sizes", usage = "distribution of the object sizes of write operations instead of --size, e.g. uniform:1K-1M, lognormal:median=64K,sigma=1.5,max=200M, buckets:1K-16K=60,1M=30 or file:sizes.csv; results are broken down by size class")
+    private String sizeDistribution = null;
+
+    @Option(name = "--compressionRatio", usage = "target compression ratio of the uploaded data; 1 means random (incompressible) data")
+    private double compressionRatio = 1;
+
+    @Option(name = "--dedupRatio", usage = "target share of duplicate blocks of the uploaded data (see --dedupBlockSize); 0 means all blocks are unique")
+    private double dedupRatio = 0;
+
+    @Option(name = "--dedupBlockSize", usage = "size of the blocks of the uploaded data for --dedupRatio and --compressionRatio; supported units: B, K, M", handler = IntFromByteUnitOptionHandler.class)
+    private int dedupBlockSize = PayloadGenerator.DEFAULT_BLOCK_SIZE;
+
+    @Option(name = "--verify", usage = "upload objects with contents derived from --seed and the key, and verify the response body of reads against them; corrupt objects are counted as errors")
+    private boolean verify = false;
+
+    @Option(name = "--seed", usage = "seed of the object contents of --verify")
+    private long seed = 0;
+
+    @Option(name = "--checksum", usage = "integrity checksum of uploads and downloads: SDK (defaults of the S3 client), NONE, MD5 (precomputed Content-MD5), CRC32C or SHA256")
+    private Checksum checksum = Checksum.SDK;
+
+    @Option(name = "--chunkedEncoding", usage = "send uploads with chunked encoding (aws-chunked)")
+    private boolean chunkedEncoding = false;
+
+    @Option(name = "--accessKey", usage = "access key ID; also possible to set AWS_ACCESS_KEY int environment")
     private String accessKey = null;
 
-    @Option(name = "--secretKey", usage = "secret access key; also possible to set AWS_SECRET_KEY in environment", required = true)
+    @Option(name = "--secretKey", usage = "secret access key; also possible to set AWS_SECRET_KEY in environment")
     private String secretKey = null;
 
     @Option(name = "--endpointUrl", usage = "endpoint url")
@@ -47,6 +143,9 @@ public class Main {
     @Option(name = "--operation", usage = "operation")
     private String operation = Operation.UPLOAD.name();
 
+    @Option(name = "--mix", usage = "weights of the request types of operation MIXED; supported types: GET, HEAD, PUT, DELETE, LIST")
+    private String mix = "GET=70,HEAD=15,PUT=10,DELETE=5";
+
     @Option(name = "--http", usage = "use http instead of https")
     private boolean useHttp = false;
 
@@ -62,9 +161,54 @@ public class Main {
     @Option(name = "--usePathStyleAccess", usage = "use path-style access (instead of DNS-style)")
     private boolean usePathStyleAccess = false;
 
+    @Option(name = "--virtualThreads", usage = "run each thread as a virtual thread (requires Java 21 or higher)")
+    private boolean useVirtualThreads = false;
+
+    @Option(name = "--async", usage = "use the non-blocking S3 client; threads only issue requests, concurrency is limited by --maxInFlight")
+    private boolean useAsync = false;
+
+    @Option(name = "--maxInFlight", usage = "maximum number of requests in flight over all threads (requires --async)")
+    private int maxInFlight = 1000;
+
+    @Option(name = "--region", usage = "region used to sign requests of the non-blocking S3 client (requires --async)")
+    private String region = "us-east-1";
+
+    @Option(name = "--phases", usage = "record the time of each request phase: DNS, connect (incl. TLS), signing, send, time to first byte and body transfer")
+    private boolean recordPhases = false;
+
+    @Option(name = "--fullBody", usage = "read the complete response body of GET requests (e.g. to measure the download throughput in MB/s); the non-blocking S3 client always does")
+    private boolean fullBody = false;
+
+    @Option(name = "--workers", usage = "comma-separated list of workers (host:port) which run the test at the same time; the results of all workers are merged")
+    private String workers = null;
+
+    @Option(name = "--workerPort", usage = "run as worker of a distributed test and wait for workloads on the given port; requests are signed with the credentials of the worker")
+    private int workerPort = 0;
+
+    @Option(name = "--workerAddress", usage = "address the worker of a distributed test listens on, e.g. 0.0.0.0 for all interfaces")
+    private String workerAddress = "127.0.0.1";
+
+    @Option(name = "--workerToken", usage = "shared token of the coordinator and the workers of a distributed test; also possible to set S3PT_WORKER_TOKEN in environment")
+    private String workerToken = null;
+
     @Option(name = "--keyFileName", usage = "name of file with object keys")
     private String keyFileName = null;
 
+    @Option(name = "--reportInterval", usage = "report throughput, errors and latency percentiles every given number of seconds while the test is running; 0 means no report")
+    private int reportInterval = 0;
+
+    @Option(name = "--reportFileName", usage = "name of a CSV file the reports of --reportInterval are appended to")
+    private String reportFileName = null;
+
+    @Option(name = "--metricsPort", usage = "expose live metrics in the Prometheus text format at http://<host>:<port>/metrics while the test is running; 0 means no endpoint")
+    private int metricsPort = 0;
+
+    @Option(name = "--traceFileName", usage = "name of a file each request is traced to (start time, operation, key, bytes, status and latency); read it with de.jeha.s3pt.tools.TraceTool")
+    private String traceFileName = null;
+
+    @Option(name = "--jfrEvents", usage = "emit Java Flight Recorder events for each request (operation, key, bytes, status, latency) and run phase; start a recording with -XX:StartFlightRecording or jcmd")
+    private boolean recordEvents = false;
+
     @Option(name = "--resultFileName", usage = "name of file with test results", hidden = true)
     private String resultFileName = null;
 
@@ -79,11 +223,16 @@ public class Main {
 
 
     private final List<String> commandLineArguments = new ArrayList<>();
+    private int exitStatus = 0;
 
     public static void main(String... args) throws IOException {
         Locale.setDefault(Locale.ENGLISH);
 
-        new Main(args).run();
+        Main main = new Main(args);
+        main.run();
+        if (main.exitStatus != 0) {
+            System.exit(main.exitStatus);
+        }
     }
 
     public Main(String... args) {
@@ -94,17 +243,7 @@ public class Main {
         CmdLineParser parser = new CmdLineParser(this);
 
         try {
-            addArgumentsFromEnvironment("--accessKey", "AWS_ACCESS_KEY");
-            addArgumentsFromEnvironment("--secretKey", "AWS_SECRET_KEY");
-            addArgumentsFromEnvironment("--source", "SOURCE");
-            addArgumentsFromEnvironment("--backend", "BACKEND");
-
-            parser.parseArgument(commandLineArguments);
-
-            if (Operation.CREATE_KEY_FILE.name().equals(operation) && keyFileName == null) {
-                throw new CmdLineException(parser, new IllegalStateException(KEY_FILE_NAME_MISSING_FOR_CREATE));
-            }
-
+            parse(parser);
         } catch (CmdLineException e) {
 
             System.err.println(e.getMessage());
@@ -115,28 +254,84 @@ public class Main {
             return;
         }
 
+        if (workerPort > 0) {
+            try (DistributedWorker worker = new DistributedWorker(workerAddress, workerPort, workerToken, accessKey,
+                    secretKey)) {
+                worker.run();
+            }
+            return;
+        }
+
         StopWatch stopWatch = new StopWatch();
         stopWatch.start();
 
-        TestResult testResult = new S3PerformanceTest(
-                accessKey,
-                secretKey,
-                endpointUrl,
-                bucketName,
-                Operation.valueOf(operation),
-                threads,
-                n,
-                size,
-                useHttp,
-                useGzip,
-                signerOverride,
-                useKeepAlive,
-                usePathStyleAccess,
-                keyFileName,
-                kairosdbUrl,
-                source,
-                backend
-        ).call();
+        if (workers != null) {
+            TestResult testResult = new DistributedCoordinator(
+                    Arrays.asList(workers.split(",")),
+                    workloadArguments(),
+                    workerToken
+            ).call();
+
+            stopWatch.stop();
+            LOG.info("Total time = {} ms", stopWatch.getTime());
+
+            if (testResult != null) {
+                testResult.log();
+                if (resultFileName != null) {
+                    testResult.writeToFileAsJson(resultFileName);
+                }
+            }
+            return;
+        }
+
+        S3PerformanceTest test = createTest();
+
+        if (ramp != null) {
+            SaturationResult saturationResult = new SaturationSearch(
+                    test,
+                    ramp,
+                    threads,
+                    rampStart,
+                    rampStep,
+                    rampMaxSteps,
+                    sloP99,
+                    minGrowth
+            ).call();
+
+            stopWatch.stop();
+            LOG.info("Total time = {} ms", stopWatch.getTime());
+
+            saturationResult.log();
+            if (resultFileName != null) {
+                saturationResult.writeToFileAsJson(resultFileName);
+            }
+            return;
+        }
+
+        if (trials > 1) {
+            TrialResult trialResult = new TrialRunner(
+                    test,
+                    trials,
+                    alpha,
+                    baseline != null ? TrialResult.readFromFile(baseline) : null
+            ).call();
+
+            stopWatch.stop();
+            LOG.info("Total time = {} ms", stopWatch.getTime());
+
+            if (trialResult != null) {
+                trialResult.log();
+                if (resultFileName != null) {
+                    trialResult.writeToFileAsJson(resultFileName);
+                }
+                if (!trialResult.isPassed()) {
+                    exitStatus = 1;
+                }
+            }
+            return;
+        }
+
+        TestResult testResult = test.call();
 
         stopWatch.stop();
         LOG.info("Total time = {} ms", stopWatch.getTime());
@@ -149,6 +344,192 @@ public class Main {
         }
     }
 
+    /**
+     * Parse and validate the command line arguments.
+     *
+     * @param parser parser bound to this instance
+     * @throws CmdLineException if the arguments are invalid
+     */
+    void parse(CmdLineParser parser) throws CmdLineException {
+        addArgumentsFromEnvironment("--accessKey", "AWS_ACCESS_KEY");
+        addArgumentsFromEnvironment("--secretKey", "AWS_SECRET_KEY");
+        addArgumentsFromEnvironment("--source", "SOURCE");
+        addArgumentsFromEnvironment("--backend", "BACKEND");
+        addArgumentsFromEnvironment("--workerToken", "S3PT_WORKER_TOKEN");
+
+        parser.parseArgument(commandLineArguments);
+
+        if ((workerPort > 0 || workers != null) && workerToken == null) {
+            throw new CmdLineException(parser, new IllegalStateException(WORKER_TOKEN_MISSING));
+        }
+        if (workerPort > 0) {
+            // the workload is received from the coordinator, the credentials are the worker's own
+            if (accessKey == null || secretKey == null) {
+                throw new CmdLineException(parser, new IllegalStateException(CREDENTIALS_MISSING));
+            }
+            return;
+        }
+        if (workers == null && (accessKey == null || secretKey == null)) {
+            throw new CmdLineException(parser, new IllegalStateException(CREDENTIALS_MISSING));
+        }
+        if (Operation.CREATE_KEY_FILE.name().equals(operation) && keyFileName == null) {
+            throw new CmdLineException(parser, new IllegalStateException(KEY_FILE_NAME_MISSING_FOR_CREATE));
+        }
+        if (Operation.MIXED.name().equals(operation)) {
+            try {
+                OperationMix.parse(mix);
+            } catch (IllegalArgumentException e) {
+                throw new CmdLineException(parser, e);
+            }
+        }
+        if (sizeDistribution != null) {
+            try {
+                SizeDistribution.parse(sizeDistribution);
+            } catch (IllegalArgumentException e) {
+                throw new CmdLineException(parser, e);
+            }
+        }
+        if (n <= 0 && duration <= 0) {
+            throw new CmdLineException(parser, new IllegalStateException(NUMBER_OR_DURATION_MISSING));
+        }
+        if (duration > 0 && !Operation.valueOf(operation).isMultiThreaded()) {
+            throw new CmdLineException(parser, new IllegalStateException(DURATION_NOT_SUPPORTED));
+        }
+        if (ramp != null && (duration <= 0 || !Operation.valueOf(operation).isMultiThreaded())) {
+            throw new CmdLineException(parser, new IllegalStateException(RAMP_REQUIRES_DURATION));
+        }
+        if (useVirtualThreads && !WorkerExecutors.isVirtualThreadsSupported()) {
+            throw new CmdLineException(parser, new IllegalStateException(VIRTUAL_THREADS_NOT_SUPPORTED));
+        }
+        if (ramp != null && (rampStart <= 0 || rampStep <= 0 || rampMaxSteps < 1)) {
+            throw new CmdLineException(parser, new IllegalStateException(RAMP_OUT_OF_RANGE));
+        }
+        if (ramp != null && workers != null) {
+            throw new CmdLineException(parser, new IllegalStateException(DISTRIBUTED_RAMP_NOT_SUPPORTED));
+        }
+        if (workers != null) {
+            final String unsupportedOption = DistributedWorker.unsupportedOption(workloadArguments());
+            if (unsupportedOption != null) {
+                throw new CmdLineException(parser,
+                        new IllegalStateException(OPTION_NOT_SUPPORTED_BY_WORKERS + unsupportedOption));
+            }
+            if (!DistributedWorker.WORKLOAD_OPERATIONS.contains(getOperation())) {
+                throw new CmdLineException(parser,
+                        new IllegalStateException(OPERATION_NOT_SUPPORTED_BY_WORKERS + operation));
+            }
+        }
+        if (trials < 1 || (trials > 1 && (ramp != null || workers != null))) {
+            throw new CmdLineException(parser, new IllegalStateException(TRIALS_NOT_SUPPORTED));
+        }
+        if (baseline != null && trials < 2) {
+            throw new CmdLineException(parser, new IllegalStateException(BASELINE_REQUIRES_TRIALS));
+        }
+        if (recordEvents && !FlightRecorderEvents.isSupported()) {
+            throw new CmdLineException(parser, new IllegalStateException(JFR_EVENTS_NOT_SUPPORTED));
+        }
+        if (compressionRatio < 1 || dedupRatio < 0 || dedupRatio > 1 || dedupBlockSize < 1) {
+            throw new CmdLineException(parser, new IllegalStateException(PAYLOAD_OUT_OF_RANGE));
+        }
+        if (verify && useAsync && !Operation.UPLOAD.name().equals(operation)) {
+            throw new CmdLineException(parser, new IllegalStateException(VERIFY_NOT_SUPPORTED));
+        }
+        if (alpha <= 0 || alpha >= 1) {
+            throw new CmdLineException(parser, new IllegalStateException(ALPHA_OUT_OF_RANGE));
+        }
+        if (useAsync && !Operation.valueOf(operation).isAsyncSupported()) {
+            throw new CmdLineException(parser, new IllegalStateException(ASYNC_NOT_SUPPORTED));
+        }
+        if (useAsync && recordPhases) {
+            throw new CmdLineException(parser, new IllegalStateException(PHASES_NOT_SUPPORTED));
+        }
+    }
+
+    /**
+     * @return test configured by the parsed command line arguments
+     */
+    S3PerformanceTest createTest() {
+        return new S3PerformanceTest(settings());
+    }
+
+    /**
+     * @return settings of the test from the parsed command line arguments
+     */
+    TestSettings settings() {
+        return TestSettings.builder()
+                .accessKey(accessKey)
+                .secretKey(secretKey)
+                .endpointUrl(endpointUrl)
+                .bucketName(bucketName)
+                .operation(getOperation())
+                .threads(threads)
+                .maxThreads(ramp != null
+                        ? SaturationSearch.maxThreads(ramp, threads, rampStart, rampStep, rampMaxSteps)
+                        : threads)
+                .n(n)
+                .duration(duration)
+                .warmup(warmup)
+                .cooldown(cooldown)
+                .rate(rate)
+                .size(size)
+                .sizeDistribution(sizeDistribution)
+                .compressionRatio(compressionRatio)
+                .dedupRatio(dedupRatio)
+                .dedupBlockSize(dedupBlockSize)
+                .verify(verify)
+                .seed(seed)
+                .checksum(checksum)
+                .chunkedEncoding(chunkedEncoding)
+                .mix(mix)
+                .useHttp(useHttp)
+                .useGzip(useGzip)
+                .signerOverride(signerOverride)
+                .useKeepAlive(useKeepAlive)
+                .usePathStyleAccess(usePathStyleAccess)
+                .useVirtualThreads(useVirtualThreads)
+                .useAsync(useAsync)
+                .maxInFlight(maxInFlight)
+                .region(region)
+                .recordPhases(recordPhases)
+                .fullBody(fullBody)
+                .keyFileName(keyFileName)
+                .reportInterval(reportInterval)
+                .reportFileName(reportFileName)
+                .metricsPort(metricsPort)
+                .traceFileName(traceFileName)
+                .recordEvents(recordEvents)
+                .kairosdbUrl(kairosdbUrl)
+                .source(source)
+                .backend(backend)
+                .build();
+    }
+
+    /**
+     * @return operation of the parsed command line arguments
+     */
+    Operation getOperation() {
+        return Operation.valueOf(operation);
+    }
+
+    /**
+     * @return command line arguments to be run by the workers of a distributed test, without the options of the
+     * coordinator (e.g. the credentials, the workers use their own)
+     */
+    List<String> workloadArguments() {
+        List<String> arguments = new ArrayList<>();
+        for (int i = 0; i < commandLineArguments.size(); i++) {
+            final String argument = commandLineArguments.get(i);
+            if (COORDINATOR_OPTIONS.contains(DistributedWorker.optionName(argument))) {
+                if (argument.indexOf('=') < 0) {
+                    // skip the value
+                    i++;
+                }
+            } else {
+                arguments.add(argument);
+            }
+        }
+        return arguments;
+    }
+
     private void addArgumentsFromEnvironment(String commandLineKey, String environmentKey) {
         String value = System.getenv(environmentKey);
         if (value != null) {
@@ -5,23 +5,39 @@ package de.jeha.s3pt;
  */
 public enum Operation {
 
-    CLEAR_BUCKET(false),
-    CREATE_BUCKET(false),
-    DELETE_BUCKET(false),
-    CREATE_KEY_FILE(false),
-    RANDOM_READ(true),
-    RANDOM_READ_METADATA(true),
-    UPLOAD_AND_READ(true),
-    UPLOAD(true);
+    CLEAR_BUCKET(false, false, false),
+    CREATE_BUCKET(false, false, false),
+    DELETE_BUCKET(false, false, false),
+    CREATE_KEY_FILE(false, false, false),
+    RANDOM_READ(true, true, false),
+    RANDOM_READ_METADATA(true, true, false),
+    UPLOAD_AND_READ(true, false, true),
+    UPLOAD(true, true, true),
+    MIXED(true, false, true);
 
     private final boolean multiThreaded;
+    private final boolean asyncSupported;
+    private final boolean uploading;
 
-    Operation(boolean multiThreaded) {
+    Operation(boolean multiThreaded, boolean asyncSupported, boolean uploading) {
         this.multiThreaded = multiThreaded;
+        this.asyncSupported = asyncSupported;
+        this.uploading = uploading;
     }
 
     public boolean isMultiThreaded() {
         return multiThreaded;
     }
 
+    public boolean isAsyncSupported() {
+        return asyncSupported;
+    }
+
+    /**
+     * @return true if the operation uploads objects, i.e. needs upload data
+     */
+    public boolean isUploading() {
+        return uploading;
+    }
+
 }
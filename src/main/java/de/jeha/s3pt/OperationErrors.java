@@ -0,0 +1,108 @@
+package de.jeha.s3pt;
+
+import de.jeha.s3pt.metrics.RequestError;
+import de.jeha.s3pt.utils.LatencyHistograms;
+import org.HdrHistogram.Histogram;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Failed requests of an operation: the latencies of the failed requests and their number per HTTP status, error code
+ * and request type (of operation MIXED). Failed requests are not part of the latencies of an {@link OperationResult}.
+ *
+ * @author jenshadlich@googlemail.com
+ */
+public class OperationErrors {
+
+    private final Histogram histogram;
+    private final Map<String, Long> countsByStatus;
+    private final Map<String, Long> countsByCode;
+    private final Map<String, Long> countsByRequestType;
+
+    public OperationErrors() {
+        this(LatencyHistograms.create(), new TreeMap<>(), new TreeMap<>(), new TreeMap<>());
+    }
+
+    /**
+     * @param histogram           latencies of the failed requests in µs
+     * @param countsByStatus      number of failed requests per HTTP status
+     * @param countsByCode        number of failed requests per error code
+     * @param countsByRequestType number of failed requests per request type
+     */
+    public OperationErrors(Histogram histogram, Map<String, Long> countsByStatus, Map<String, Long> countsByCode,
+                           Map<String, Long> countsByRequestType) {
+        this.histogram = histogram;
+        this.countsByStatus = countsByStatus;
+        this.countsByCode = countsByCode;
+        this.countsByRequestType = countsByRequestType;
+    }
+
+    /**
+     * @param error   classification of the failed request
+     * @param latency latency of the failed request in µs
+     */
+    public void record(RequestError error, long latency) {
+        record(null, error, latency);
+    }
+
+    /**
+     * @param requestType request type of the failed request, null if the operation has a single request type
+     * @param error       classification of the failed request
+     * @param latency     latency of the failed request in µs
+     */
+    public void record(String requestType, RequestError error, long latency) {
+        histogram.recordValue(latency);
+        countsByStatus.merge(error.getStatus(), 1L, Long::sum);
+        countsByCode.merge(error.getCode(), 1L, Long::sum);
+        if (requestType != null) {
+            countsByRequestType.merge(requestType, 1L, Long::sum);
+        }
+    }
+
+    /**
+     * Merge the errors of several threads (or workers).
+     *
+     * @param errors errors to merge
+     * @return merged errors
+     */
+    public static OperationErrors merge(List<OperationErrors> errors) {
+        OperationErrors merged = new OperationErrors();
+        for (OperationErrors e : errors) {
+            merged.histogram.add(e.histogram);
+            e.countsByStatus.forEach((status, count) -> merged.countsByStatus.merge(status, count, Long::sum));
+            e.countsByCode.forEach((code, count) -> merged.countsByCode.merge(code, count, Long::sum));
+            e.countsByRequestType.forEach((requestType, count) ->
+                    merged.countsByRequestType.merge(requestType, count, Long::sum));
+        }
+        return merged;
+    }
+
+    /**
+     * @return number of failed requests
+     */
+    public long getCount() {
+        return histogram.getTotalCount();
+    }
+
+    public Histogram getHistogram() {
+        return histogram;
+    }
+
+    public Map<String, Long> getCountsByStatus() {
+        return countsByStatus;
+    }
+
+    public Map<String, Long> getCountsByCode() {
+        return countsByCode;
+    }
+
+    /**
+     * @return number of failed requests per request type, empty if the operation has a single request type
+     */
+    public Map<String, Long> getCountsByRequestType() {
+        return countsByRequestType;
+    }
+
+}
@@ -1,19 +1,117 @@
 package de.jeha.s3pt;
 
-import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
+import de.jeha.s3pt.operations.size.SizeClasses;
+import de.jeha.s3pt.utils.LatencyHistograms;
+import org.HdrHistogram.Histogram;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * @author jenshadlich@googlemail.com
  */
 public class OperationResult {
 
-    private final DescriptiveStatistics stats;
+    private final Histogram histogram;
+    private final Map<String, Histogram> histogramsByRequestType;
+    private final Map<String, Histogram> histogramsByPhase;
+    private final long bytesUploaded;
+    private final long bytesDownloaded;
+    private final OperationErrors errors;
+    private final Map<String, Histogram> histogramsBySizeClass;
+    private final Map<String, Long> bytesBySizeClass;
+
+    /**
+     * @param histogram               latencies of all successful requests in µs
+     * @param histogramsByRequestType latencies per request type in µs (e.g. of a mixed workload)
+     * @param histogramsByPhase       time per request phase in µs (e.g. "ttfb"), empty if phases are not recorded
+     * @param bytesUploaded           bytes sent in request bodies
+     * @param bytesDownloaded         bytes received in response bodies
+     * @param errors                  failed requests
+     * @param histogramsBySizeClass   latencies per object size class in µs, empty if all objects have the same size
+     * @param bytesBySizeClass        bytes transferred per object size class
+     */
+    public OperationResult(Histogram histogram, Map<String, Histogram> histogramsByRequestType,
+                           Map<String, Histogram> histogramsByPhase, long bytesUploaded, long bytesDownloaded,
+                           OperationErrors errors, Map<String, Histogram> histogramsBySizeClass,
+                           Map<String, Long> bytesBySizeClass) {
+        this.histogram = histogram;
+        this.histogramsByRequestType = histogramsByRequestType;
+        this.histogramsByPhase = histogramsByPhase;
+        this.bytesUploaded = bytesUploaded;
+        this.bytesDownloaded = bytesDownloaded;
+        this.errors = errors;
+        this.histogramsBySizeClass = histogramsBySizeClass;
+        this.bytesBySizeClass = bytesBySizeClass;
+    }
+
+    /**
+     * Merge the results of several threads (or workers) without loss.
+     *
+     * @param results results to merge
+     * @return merged result
+     */
+    public static OperationResult merge(List<OperationResult> results) {
+        Histogram histogram = LatencyHistograms.create();
+        Map<String, Histogram> histogramsByRequestType = new TreeMap<>();
+        Map<String, Histogram> histogramsByPhase = new LinkedHashMap<>();
+        long bytesUploaded = 0;
+        long bytesDownloaded = 0;
+        List<OperationErrors> errors = new ArrayList<>();
+        Map<String, Histogram> histogramsBySizeClass = new TreeMap<>(SizeClasses.ORDER);
+        Map<String, Long> bytesBySizeClass = new TreeMap<>(SizeClasses.ORDER);
+        for (OperationResult result : results) {
+            histogram.add(result.getHistogram());
+            mergeInto(histogramsByRequestType, result.getHistogramsByRequestType());
+            mergeInto(histogramsByPhase, result.getHistogramsByPhase());
+            bytesUploaded += result.getBytesUploaded();
+            bytesDownloaded += result.getBytesDownloaded();
+            errors.add(result.getErrors());
+            mergeInto(histogramsBySizeClass, result.getHistogramsBySizeClass());
+            result.getBytesBySizeClass().forEach((sizeClass, bytes) ->
+                    bytesBySizeClass.merge(sizeClass, bytes, Long::sum));
+        }
+        return new OperationResult(histogram, histogramsByRequestType, histogramsByPhase, bytesUploaded,
+                bytesDownloaded, OperationErrors.merge(errors), histogramsBySizeClass, bytesBySizeClass);
+    }
+
+    private static void mergeInto(Map<String, Histogram> target, Map<String, Histogram> source) {
+        source.forEach((key, histogram) ->
+                target.computeIfAbsent(key, k -> LatencyHistograms.create()).add(histogram));
+    }
+
+    public Histogram getHistogram() {
+        return histogram;
+    }
+
+    public Map<String, Histogram> getHistogramsByRequestType() {
+        return histogramsByRequestType;
+    }
+
+    public Map<String, Histogram> getHistogramsByPhase() {
+        return histogramsByPhase;
+    }
+
+    public long getBytesUploaded() {
+        return bytesUploaded;
+    }
+
+    public long getBytesDownloaded() {
+        return bytesDownloaded;
+    }
+
+    public OperationErrors getErrors() {
+        return errors;
+    }
 
-    public OperationResult(DescriptiveStatistics stats) {
-        this.stats = stats;
+    public Map<String, Histogram> getHistogramsBySizeClass() {
+        return histogramsBySizeClass;
     }
 
-    public DescriptiveStatistics getStats() {
-        return stats;
+    public Map<String, Long> getBytesBySizeClass() {
+        return bytesBySizeClass;
     }
 }
@@ -0,0 +1,66 @@
+package de.jeha.s3pt;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Distribution of the time spent in a phase of the requests, see {@link de.jeha.s3pt.metrics.RequestPhase}.
+ *
+ * @author jenshadlich@googlemail.com
+ */
+class PhaseResult {
+
+    @JsonProperty
+    private final double avg;
+    @JsonProperty
+    private final double p50;
+    @JsonProperty
+    private final double p95;
+    @JsonProperty
+    private final double p99;
+    @JsonProperty
+    private final double max;
+
+    PhaseResult(double avg, double p50, double p95, double p99, double max) {
+        this.avg = avg;
+        this.p50 = p50;
+        this.p95 = p95;
+        this.p99 = p99;
+        this.max = max;
+    }
+
+    /**
+     * @param histogram time spent in the phase in µs
+     * @return distribution in ms
+     */
+    static PhaseResult compute(Histogram histogram) {
+        // arithmetic mean, many requests do not spend any time in a phase (e.g. connect with keep-alive)
+        return new PhaseResult(
+                TestResult.toMillis(histogram.getMean()),
+                TestResult.toMillis(histogram.getValueAtPercentile(50)),
+                TestResult.toMillis(histogram.getValueAtPercentile(95)),
+                TestResult.toMillis(histogram.getValueAtPercentile(99)),
+                TestResult.toMillis(histogram.getMaxValue()));
+    }
+
+    public double getAvg() {
+        return avg;
+    }
+
+    public double getP50() {
+        return p50;
+    }
+
+    public double getP95() {
+        return p95;
+    }
+
+    public double getP99() {
+        return p99;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+}
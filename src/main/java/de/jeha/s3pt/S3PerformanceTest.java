@@ -3,14 +3,53 @@ package de.jeha.s3pt;
 import com.amazonaws.ClientConfiguration;
 import com.amazonaws.Protocol;
 import com.amazonaws.auth.AWSCredentials;
+import com.amazonaws.auth.AWSStaticCredentialsProvider;
 import com.amazonaws.auth.BasicAWSCredentials;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3Client;
 import com.amazonaws.services.s3.S3ClientOptions;
+import com.amazonaws.services.s3.internal.SkipMd5CheckStrategy;
+import de.jeha.s3pt.jfr.RunPhaseRecorder;
+import de.jeha.s3pt.metrics.CpuTime;
+import de.jeha.s3pt.metrics.RequestPhaseCollector;
+import de.jeha.s3pt.metrics.RetryCounter;
+import de.jeha.s3pt.metrics.TimingDnsResolver;
 import de.jeha.s3pt.operations.*;
+import de.jeha.s3pt.operations.async.AsyncRandomRead;
+import de.jeha.s3pt.operations.async.AsyncRandomReadMetadata;
+import de.jeha.s3pt.operations.async.AsyncUpload;
+import de.jeha.s3pt.operations.schedule.ClosedLoopSchedule;
+import de.jeha.s3pt.operations.schedule.FixedRateSchedule;
+import de.jeha.s3pt.operations.schedule.RequestSchedule;
+import de.jeha.s3pt.operations.schedule.RunClock;
+import de.jeha.s3pt.operations.schedule.StartGate;
+import de.jeha.s3pt.operations.size.SizeDistribution;
+import de.jeha.s3pt.report.IntervalRecorder;
+import de.jeha.s3pt.report.IntervalReporter;
+import de.jeha.s3pt.report.KairosdbExporter;
+import de.jeha.s3pt.report.KairosdbPoint;
+import de.jeha.s3pt.report.LiveMetrics;
+import de.jeha.s3pt.report.MetricsEndpoint;
+import de.jeha.s3pt.trace.TraceBuffer;
+import de.jeha.s3pt.trace.TraceWriter;
+import de.jeha.s3pt.utils.Checksum;
+import de.jeha.s3pt.utils.ObjectContent;
+import de.jeha.s3pt.utils.PayloadGenerator;
+import de.jeha.s3pt.utils.PayloadPool;
+import de.jeha.s3pt.utils.WorkerExecutors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.core.client.config.SdkAdvancedClientOption;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3Configuration;
+
+import java.io.IOException;
+import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -19,22 +58,18 @@ import java.util.Arrays;
 
 import java.util.concurrent.*;
 
-import org.apache.http.HttpEntity;
-import org.apache.http.HttpResponse;
-import org.apache.http.client.HttpClient;
-import org.apache.http.client.methods.HttpPost;
-import org.apache.http.entity.StringEntity;
-import org.apache.http.impl.client.HttpClientBuilder;
-
-
-import com.google.gson.Gson;
-
 /**
  * @author jenshadlich@googlemail.com
  */
 public class S3PerformanceTest implements Callable<TestResult> {
 
     private static final Logger LOG = LoggerFactory.getLogger(S3PerformanceTest.class);
+    private static final int KAIROSDB_QUEUE_CAPACITY = 10_000;
+    private static final int KAIROSDB_BATCH_SIZE = 100;
+    private static final String[] MD5_VALIDATION_PROPERTIES = {
+            SkipMd5CheckStrategy.DISABLE_GET_OBJECT_MD5_VALIDATION_PROPERTY,
+            SkipMd5CheckStrategy.DISABLE_PUT_OBJECT_MD5_VALIDATION_PROPERTY
+    };
 
     private final String accessKey;
     private final String secretKey;
@@ -42,72 +77,172 @@ public class S3PerformanceTest implements Callable<TestResult> {
     private final String bucketName;
     private final Operation operation;
     private final int threads;
+    private final int maxThreads;
     private final int n;
+    private final int duration;
+    private final int warmup;
+    private final int cooldown;
+    private final double rate;
     private final int size;
+    private final SizeDistribution sizes;
+    private final PayloadGenerator payload;
+    private final PayloadPool payloadPool;
+    private final ObjectContent objectContent;
+    private final Checksum checksum;
+    private final boolean chunkedEncoding;
+    private final String mix;
     private final boolean useHttp;
     private final boolean useGzip;
     private final String signerOverride;
     private final boolean useKeepAlive;
     private final boolean usePathStyleAccess;
+    private final boolean useVirtualThreads;
+    private final boolean useAsync;
+    private final int maxInFlight;
+    private final String region;
+    private final boolean recordPhases;
+    private final boolean fullBody;
     private final String keyFileName;
+    private final int reportInterval;
+    private final String reportFileName;
+    private final int metricsPort;
+    private final String traceFileName;
+    private final boolean recordEvents;
     private final String kairosdbUrl;
     private final String source;
     private final String backend;
-    private final List<KairosdbPoint> pointBuffer;
+    private final RetryCounter retryCounter = new RetryCounter();
+
+    private AmazonS3 s3Client;
+    private Map<String, String> previousMd5Properties;
+    private S3AsyncClient s3AsyncClient;
+    private KairosdbExporter kairosdbExporter;
+    private LiveMetrics liveMetrics;
+    private MetricsEndpoint metricsEndpoint;
+    private TraceWriter traceWriter;
 
     /**
-     * @param accessKey      access key
-     * @param secretKey      secret key
-     * @param endpointUrl    endpoint url, e.g. 's3.amazonaws.com'
-     * @param bucketName     name of bucket
-     * @param operation      operation
-     * @param threads        number of threads
-     * @param n              number of operations
-     * @param size           size (if applicable), e.g. for UPLOAD operation
-     * @param useHttp        switch to HTTP when
-     * @param useGzip        enable GZIP compression
-     * @param signerOverride override the S3 signer
-     * @param useKeepAlive   use TCP keep alive
-     * @param keyFileName    name of file with object keys
-     * @param kairosdbUrl    Url of KairosDB for posting metrics
-     * @param source         source tag for metrics
-     * @param backend        backend tag for metrics
+     * @param settings settings of the test
      */
-    public S3PerformanceTest(String accessKey, String secretKey, String endpointUrl, String bucketName,
-                             Operation operation, int threads, int n, int size, boolean useHttp, boolean useGzip,
-                             String signerOverride, boolean useKeepAlive, boolean usePathStyleAccess,
-                             String keyFileName,
-                             String kairosdbUrl, String source, String backend) {
-        this.accessKey = accessKey;
-        this.secretKey = secretKey;
-        this.endpointUrl = endpointUrl;
-        this.bucketName = bucketName;
-        this.operation = operation;
-        this.threads = threads;
-        this.n = n;
-        this.size = size;
-        this.useHttp = useHttp;
-        this.useGzip = useGzip;
-        this.signerOverride = signerOverride;
-        this.useKeepAlive = useKeepAlive;
-        this.usePathStyleAccess = usePathStyleAccess;
-        this.keyFileName = keyFileName;
-        this.kairosdbUrl = kairosdbUrl;
-        this.source = source;
-        this.backend = backend;
-        this.pointBuffer = new ArrayList<KairosdbPoint>();
+    public S3PerformanceTest(TestSettings settings) {
+        this.accessKey = settings.getAccessKey();
+        this.secretKey = settings.getSecretKey();
+        this.endpointUrl = settings.getEndpointUrl();
+        this.bucketName = settings.getBucketName();
+        this.operation = settings.getOperation();
+        this.threads = settings.getThreads();
+        this.maxThreads = Math.max(settings.getThreads(), settings.getMaxThreads());
+        this.n = settings.getN();
+        this.duration = settings.getDuration();
+        this.warmup = settings.getWarmup();
+        this.cooldown = settings.getCooldown();
+        this.rate = settings.getRate();
+        this.size = settings.getSize();
+        this.sizes = settings.getSizeDistribution() != null
+                ? SizeDistribution.parse(settings.getSizeDistribution())
+                : SizeDistribution.fixed(size);
+        this.payload = (settings.getCompressionRatio() == 1 && settings.getDedupRatio() == 0)
+                ? PayloadGenerator.RANDOM
+                : new PayloadGenerator(settings.getCompressionRatio(), settings.getDedupRatio(),
+                settings.getDedupBlockSize());
+        this.objectContent = settings.isVerify() ? new ObjectContent(payload, settings.getSeed()) : null;
+        this.checksum = settings.getChecksum();
+        this.chunkedEncoding = settings.isChunkedEncoding();
+        this.mix = settings.getMix();
+        this.useHttp = settings.isUseHttp();
+        this.useGzip = settings.isUseGzip();
+        this.signerOverride = settings.getSignerOverride();
+        this.useKeepAlive = settings.isUseKeepAlive();
+        this.usePathStyleAccess = settings.isUsePathStyleAccess();
+        this.useVirtualThreads = settings.isUseVirtualThreads();
+        this.useAsync = settings.isUseAsync();
+        // slices of the non-blocking S3 client cannot wrap around, so the pool must hold the largest object
+        this.payloadPool = operation.isUploading() ? new PayloadPool(payload, useAsync ? sizes.max() : 0) : null;
+        this.maxInFlight = settings.getMaxInFlight();
+        this.region = settings.getRegion();
+        this.recordPhases = settings.isRecordPhases();
+        this.fullBody = settings.isFullBody();
+        this.keyFileName = settings.getKeyFileName();
+        this.reportInterval = settings.getReportInterval();
+        this.reportFileName = settings.getReportFileName();
+        this.metricsPort = settings.getMetricsPort();
+        this.traceFileName = settings.getTraceFileName();
+        this.recordEvents = settings.isRecordEvents();
+        this.kairosdbUrl = settings.getKairosdbUrl();
+        this.source = settings.getSource();
+        this.backend = settings.getBackend();
     }
 
     @Override
     public TestResult call() {
-        AmazonS3 s3Client = buildS3Client();
+        TestResult testResult = run();
+
+        close();
+
+        LOG.info("Done");
+
+        return testResult;
+    }
 
-        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+    /**
+     * Run the workload once with the configured number of threads and rate.
+     *
+     * @return test result or null if an error occurred
+     */
+    TestResult run() {
+        return run(threads, rate);
+    }
 
-        List<Callable<OperationResult>> operations = new ArrayList<>();
+    /**
+     * Run the workload once with the given number of threads and rate. The S3 clients are created by the first run
+     * and reused by subsequent runs, so their connections stay warm. With KairosDB, the result of each run (e.g. of
+     * each step of a ramp or each trial) is pushed, tagged with its threads and rate.
+     *
+     * @param threads number of threads
+     * @param rate    target rate in operations/s over all threads (open-loop), 0 for closed-loop
+     * @return test result or null if an error occurred
+     */
+    TestResult run(int threads, double rate) {
+        if (s3Client == null) {
+            s3Client = buildS3Client();
+            s3AsyncClient = useAsync ? buildS3AsyncClient() : null;
+            kairosdbExporter = kairosdbUrl != null
+                    ? new KairosdbExporter(kairosdbUrl, KAIROSDB_QUEUE_CAPACITY, KAIROSDB_BATCH_SIZE)
+                    : null;
+            if (metricsPort > 0) {
+                liveMetrics = new LiveMetrics(retryCounter::getTotalRetries);
+                metricsEndpoint = startMetricsEndpoint(liveMetrics);
+            }
+            traceWriter = traceFileName != null ? startTraceWriter() : null;
+            if (payloadPool != null) {
+                LOG.info("Payload pool: {}", payloadPool);
+            }
+        }
+        if (threads > Math.max(maxThreads, ClientConfiguration.DEFAULT_MAX_CONNECTIONS)) {
+            LOG.warn("{} threads share a connection pool of {} connections, requests queue in the S3 client",
+                    threads, Math.max(maxThreads, ClientConfiguration.DEFAULT_MAX_CONNECTIONS));
+        }
+        Semaphore inFlight = new Semaphore(maxInFlight);
+
+        ExecutorService executorService = WorkerExecutors.create(threads, useVirtualThreads);
+
+        RunClock runClock = buildRunClock();
+
+        List<AbstractOperation> operations = new ArrayList<>();
         if (operation.isMultiThreaded()) {
+            RequestSchedule requestSchedule = buildRequestSchedule(rate);
             for (int i = 0; i < threads; i++) {
-                operations.add(createOperation(operation, s3Client));
+                AbstractOperation op = useAsync
+                        ? createAsyncOperation(operation, s3Client, s3AsyncClient, inFlight)
+                        : createOperation(operation, s3Client);
+                op.setRequestSchedule(requestSchedule);
+                op.setRunClock(runClock);
+                op.setRecordPhases(recordPhases);
+                if (objectContent != null) {
+                    op.setObjectContent(objectContent);
+                }
+                op.setChecksum(checksum);
+                operations.add(op);
             }
         } else {
             if (threads > 1) {
@@ -116,30 +251,129 @@ public class S3PerformanceTest implements Callable<TestResult> {
             operations.add(createOperation(operation, s3Client));
         }
 
+        if (liveMetrics != null) {
+            for (AbstractOperation op : operations) {
+                op.setLiveMetrics(liveMetrics, operation.name(), "T" + threads);
+            }
+        }
+        if (traceWriter != null) {
+            List<TraceBuffer> traceBuffers = traceWriter.createBuffers(operations.size());
+            for (int i = 0; i < operations.size(); i++) {
+                operations.get(i).setTraceBuffer(traceBuffers.get(i), operation.name());
+            }
+        }
+        if (recordEvents) {
+            for (AbstractOperation op : operations) {
+                op.setRecordEvents(true, operation.name());
+            }
+        }
+
         TestResult testResult = null;
-        try {
-            List<Future<OperationResult>> futureResults = executorService.invokeAll(operations);
+        try (IntervalReporter intervalReporter = buildIntervalReporter(operations, threads, rate)) {
+            if (intervalReporter != null) {
+                intervalReporter.start();
+            }
+            final RunPhaseRecorder runPhaseRecorder = recordEvents
+                    ? new RunPhaseRecorder(operation.name(), threads, rate)
+                    : null;
+            // the run starts once all threads finished their set-up (e.g. collecting the object keys)
+            StartGate startGate = new StartGate(operations.size(), () -> {
+                retryCounter.reset(runClock);
+                if (runClock != null) {
+                    runClock.start();
+                }
+                if (runPhaseRecorder != null) {
+                    runPhaseRecorder.start(runClock);
+                }
+            });
+            List<Callable<OperationResult>> workers = new ArrayList<>();
+            for (AbstractOperation op : operations) {
+                op.setStartGate(startGate);
+                workers.add(() -> {
+                    try {
+                        return op.call();
+                    } finally {
+                        op.leaveStartGate();
+                    }
+                });
+            }
+            final long startCpuNanos = CpuTime.processNanos();
+            final long startNanos = System.nanoTime();
+            List<Future<OperationResult>> futureResults = executorService.invokeAll(workers);
+            final long elapsedNanos = System.nanoTime() - startNanos;
+            final long cpuNanos = startCpuNanos < 0 ? -1 : CpuTime.processNanos() - startCpuNanos;
+            if (runPhaseRecorder != null) {
+                runPhaseRecorder.close();
+            }
 
+            // failed requests are recorded by the operations, a thread only fails on unexpected errors (e.g. while
+            // collecting the object keys); the results of the other threads are kept
             List<OperationResult> operationResults = new ArrayList<>();
             for (Future<OperationResult> result : futureResults) {
-                OperationResult res = result.get();
-                operationResults.add(res);
+                try {
+                    operationResults.add(result.get());
+                } catch (ExecutionException e) {
+                    LOG.error("A thread failed", e.getCause());
+                }
             }
 
-            testResult = TestResult.compute(operationResults);
-            pushResults(testResult);
+            if (operationResults.isEmpty()) {
+                LOG.error("All threads failed");
+            } else if (runClock != null) {
+                testResult = TestResult.compute(operationResults, runClock.getDurationNanos(),
+                        retryCounter.getRetries(), cpuNanos, elapsedNanos);
+            } else {
+                testResult = TestResult.compute(operationResults, measurementWindowNanos(operations, elapsedNanos),
+                        retryCounter.getRetries(), cpuNanos, elapsedNanos);
+            }
 
-        } catch (InterruptedException | ExecutionException e) {
+        } catch (InterruptedException | IOException e) {
             LOG.error("An error occurred", e);
         }
 
         executorService.shutdown();
 
-        LOG.info("Done");
+        if (testResult != null && kairosdbExporter != null) {
+            pushResults(testResult, threads, rate);
+        }
 
         return testResult;
     }
 
+    /**
+     * Release the non-blocking S3 client, restore the MD5 validation of the blocking S3 client, stop the metrics
+     * endpoint, write the rest of the trace and send the points which are still queued to KairosDB.
+     */
+    void close() {
+        if (previousMd5Properties != null) {
+            restoreMd5Validation();
+        }
+        if (s3AsyncClient != null) {
+            s3AsyncClient.close();
+            s3AsyncClient = null;
+        }
+        if (metricsEndpoint != null) {
+            metricsEndpoint.close();
+            metricsEndpoint = null;
+        }
+        if (traceWriter != null) {
+            try {
+                traceWriter.close();
+            } catch (IOException e) {
+                LOG.warn("Unable to close trace {}", traceFileName, e);
+            }
+            traceWriter = null;
+        }
+        if (kairosdbExporter != null) {
+            try {
+                kairosdbExporter.close();
+            } catch (IOException e) {
+                LOG.warn("Unable to close KairosDB exporter", e);
+            }
+            kairosdbExporter = null;
+        }
+    }
+
     // -----------------------------------------------------------------------------------------------------------------
 
     /**
@@ -152,7 +386,9 @@ public class S3PerformanceTest implements Callable<TestResult> {
                 .withProtocol(useHttp ? Protocol.HTTP : Protocol.HTTPS)
                 .withUserAgent("s3pt")
                 .withGzip(useGzip)
-                .withTcpKeepAlive(useKeepAlive);
+                .withTcpKeepAlive(useKeepAlive)
+                .withMaxConnections(Math.max(maxThreads, ClientConfiguration.DEFAULT_MAX_CONNECTIONS))
+                .withRetryPolicy(retryCounter.retryPolicy());
 
         if (signerOverride != null) {
             String signer = signerOverride.endsWith("Type")
@@ -161,13 +397,180 @@ public class S3PerformanceTest implements Callable<TestResult> {
             clientConfiguration.setSignerOverride(signer);
         }
 
-        AmazonS3 s3Client = new AmazonS3Client(credentials, clientConfiguration);
-        s3Client.setS3ClientOptions(S3ClientOptions.builder().setPathStyleAccess(usePathStyleAccess).disableChunkedEncoding().build());
+        if (checksum == Checksum.NONE || checksum.header() != null) {
+            disableMd5Validation();
+        }
+        LOG.info("Checksum: {}, chunked encoding = {}", checksum, chunkedEncoding);
+
+        AmazonS3 s3Client;
+        if (recordPhases) {
+            clientConfiguration.setDnsResolver(new TimingDnsResolver());
+            s3Client = new AmazonS3Client(new AWSStaticCredentialsProvider(credentials), clientConfiguration,
+                    new RequestPhaseCollector());
+        } else {
+            s3Client = new AmazonS3Client(credentials, clientConfiguration);
+        }
+        S3ClientOptions.Builder s3ClientOptions = S3ClientOptions.builder().setPathStyleAccess(usePathStyleAccess);
+        if (!chunkedEncoding) {
+            s3ClientOptions.disableChunkedEncoding();
+        }
+        s3Client.setS3ClientOptions(s3ClientOptions.build());
         s3Client.setEndpoint(endpointUrl);
 
         return s3Client;
     }
 
+    /**
+     * The blocking S3 client computes and validates MD5 digests unless they are disabled by system properties, which
+     * the client reads per request. The previous values are restored by {@link #close()}, so later tests of the same
+     * JVM (e.g. of a {@link DistributedWorker}, which runs one test after another) keep their own checksum mode.
+     */
+    private void disableMd5Validation() {
+        previousMd5Properties = new HashMap<>();
+        for (String property : MD5_VALIDATION_PROPERTIES) {
+            previousMd5Properties.put(property, System.getProperty(property));
+            System.setProperty(property, "true");
+        }
+    }
+
+    private void restoreMd5Validation() {
+        previousMd5Properties.forEach((property, value) -> {
+            if (value != null) {
+                System.setProperty(property, value);
+            } else {
+                System.clearProperty(property);
+            }
+        });
+        previousMd5Properties = null;
+    }
+
+    /**
+     * @return non-blocking S3 client
+     */
+    private S3AsyncClient buildS3AsyncClient() {
+        if (signerOverride != null) {
+            LOG.warn("Non-blocking S3 client always uses signature version 4, ignore signer override {}", signerOverride);
+        }
+        if (useGzip) {
+            LOG.warn("Non-blocking S3 client does not support gzip, ignore");
+        }
+
+        final String endpoint = endpointUrl.contains("://")
+                ? endpointUrl
+                : (useHttp ? "http://" : "https://") + endpointUrl;
+
+        LOG.info("Non-blocking S3 client: max in flight = {}", maxInFlight);
+
+        return S3AsyncClient.builder()
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey)))
+                .endpointOverride(URI.create(endpoint))
+                .region(Region.of(region))
+                .serviceConfiguration(S3Configuration.builder()
+                        .pathStyleAccessEnabled(usePathStyleAccess)
+                        .chunkedEncodingEnabled(chunkedEncoding)
+                        .build())
+                .overrideConfiguration(ClientOverrideConfiguration.builder()
+                        .putAdvancedOption(SdkAdvancedClientOption.USER_AGENT_PREFIX, "s3pt")
+                        .retryPolicy(retryCounter.asyncRetryPolicy())
+                        .build())
+                .httpClientBuilder(NettyNioAsyncHttpClient.builder()
+                        .maxConcurrency(maxInFlight)
+                        .tcpKeepAlive(useKeepAlive))
+                .build();
+    }
+
+    /**
+     * @return running metrics endpoint or null if it cannot be started
+     */
+    private MetricsEndpoint startMetricsEndpoint(LiveMetrics liveMetrics) {
+        try {
+            MetricsEndpoint endpoint = new MetricsEndpoint(liveMetrics, metricsPort);
+            endpoint.start();
+            return endpoint;
+        } catch (IOException e) {
+            LOG.warn("Unable to start metrics endpoint on port {}", metricsPort, e);
+            return null;
+        }
+    }
+
+    /**
+     * @return running trace writer or null if the trace file cannot be created
+     */
+    private TraceWriter startTraceWriter() {
+        try {
+            TraceWriter writer = new TraceWriter(traceFileName);
+            writer.start();
+            return writer;
+        } catch (IOException e) {
+            LOG.warn("Unable to create trace {}", traceFileName, e);
+            return null;
+        }
+    }
+
+    /**
+     * @param operations operations of all threads
+     * @param threads    number of threads of the run
+     * @param rate       target rate of the run, 0 for closed-loop
+     * @return interval reporter of the given operations or null if interval reporting is not enabled
+     */
+    private IntervalReporter buildIntervalReporter(List<AbstractOperation> operations, int threads, double rate) {
+        if (reportInterval <= 0) {
+            return null;
+        }
+        List<IntervalRecorder> recorders = new ArrayList<>();
+        for (AbstractOperation op : operations) {
+            IntervalRecorder recorder = new IntervalRecorder();
+            op.setIntervalRecorder(recorder);
+            recorders.add(recorder);
+        }
+        return new IntervalReporter(recorders, reportInterval, reportFileName,
+                kairosdbExporter != null ? kairosdbExporter.intervalListener(kairosdbTags(threads, rate)) : null);
+    }
+
+    /**
+     * The measurement window (wall clock) spans from the first request to the last response of all threads, so the
+     * time to prepare the operations (e.g. to collect object keys) is not part of it.
+     *
+     * @param operations   operations of all threads
+     * @param elapsedNanos time to run all operations, used if the operations do not track their requests
+     * @return length of the measurement window in ns
+     */
+    private static long measurementWindowNanos(List<AbstractOperation> operations, long elapsedNanos) {
+        long firstRequest = Long.MAX_VALUE;
+        long lastResponse = Long.MIN_VALUE;
+        for (AbstractOperation op : operations) {
+            if (!op.hasRequested()) {
+                return elapsedNanos;
+            }
+            firstRequest = Math.min(firstRequest, op.getFirstRequestNanos());
+            lastResponse = Math.max(lastResponse, op.getLastResponseNanos());
+        }
+        return lastResponse > firstRequest ? lastResponse - firstRequest : elapsedNanos;
+    }
+
+    /**
+     * @return run clock shared by all threads or null if the run is not duration-based
+     */
+    private RunClock buildRunClock() {
+        if (duration > 0) {
+            LOG.info("Duration-based: warm-up = {} s, steady state = {} s, cool-down = {} s", warmup, duration, cooldown);
+            return new RunClock(warmup, duration, cooldown, TimeUnit.SECONDS);
+        }
+        return null;
+    }
+
+    /**
+     * @param rate target rate in operations/s over all threads (open-loop), 0 for closed-loop
+     * @return request schedule shared by all threads
+     */
+    private RequestSchedule buildRequestSchedule(double rate) {
+        if (rate > 0) {
+            LOG.info("Open-loop: target rate = {} operations/s", rate);
+            return new FixedRateSchedule(rate);
+        }
+        return new ClosedLoopSchedule();
+    }
+
     /**
      * Build the given operation.
      *
@@ -178,7 +581,7 @@ public class S3PerformanceTest implements Callable<TestResult> {
     private AbstractOperation createOperation(Operation operation, AmazonS3 s3Client) {
         switch (operation) {
             case CLEAR_BUCKET:
-                return new ClearBucket(s3Client, bucketName, n, threads);
+                return new ClearBucket(s3Client, bucketName, n, threads, useVirtualThreads);
             case CREATE_BUCKET:
                 return new CreateBucket(s3Client, bucketName);
             case DELETE_BUCKET:
@@ -186,22 +589,50 @@ public class S3PerformanceTest implements Callable<TestResult> {
             case CREATE_KEY_FILE:
                 return new CreateKeyFile(s3Client, bucketName, n, keyFileName);
             case RANDOM_READ:
-                return new RandomRead(s3Client, bucketName, n, keyFileName);
+                return new RandomRead(s3Client, bucketName, n, keyFileName, fullBody || objectContent != null);
             case RANDOM_READ_METADATA:
                 return new RandomReadMetadata(s3Client, bucketName, n, keyFileName);
             case UPLOAD:
-                return new Upload(s3Client, bucketName, n, size);
+                return new Upload(s3Client, bucketName, n, sizes, payloadPool);
             case UPLOAD_AND_READ:
-                return new UploadAndRead(s3Client, bucketName, n, size);
+                return new UploadAndRead(s3Client, bucketName, n, sizes, payloadPool);
+            case MIXED:
+                return new MixedWorkload(s3Client, bucketName, n, sizes, payloadPool, keyFileName,
+                        OperationMix.parse(mix), fullBody || objectContent != null);
             default:
                 throw new UnsupportedOperationException("Unknown operation: " + operation);
         }
     }
 
-    private void pushResults(TestResult testResult) {
-        int i = 0;
-        List<KairosdbPoint> points = new ArrayList<KairosdbPoint>();
+    /**
+     * Build the given operation for the non-blocking S3 client.
+     *
+     * @param operation     operation (enum)
+     * @param s3Client      S3 client (used to collect object keys)
+     * @param s3AsyncClient non-blocking S3 client
+     * @param inFlight      window of requests in flight, shared by all operations
+     * @return operation
+     */
+    private AbstractOperation createAsyncOperation(Operation operation, AmazonS3 s3Client,
+                                                   S3AsyncClient s3AsyncClient, Semaphore inFlight) {
+        switch (operation) {
+            case RANDOM_READ:
+                return new AsyncRandomRead(s3Client, s3AsyncClient, bucketName, n, keyFileName, inFlight);
+            case RANDOM_READ_METADATA:
+                return new AsyncRandomReadMetadata(s3Client, s3AsyncClient, bucketName, n, keyFileName, inFlight);
+            case UPLOAD:
+                return new AsyncUpload(s3AsyncClient, bucketName, n, sizes, payloadPool, inFlight);
+            default:
+                throw new UnsupportedOperationException("Operation not supported by non-blocking S3 client: " + operation);
+        }
+    }
 
+    /**
+     * @param threads number of threads of the run
+     * @param rate    target rate of the run, 0 for closed-loop
+     * @return tags of the points sent to KairosDB
+     */
+    private Map<String, String> kairosdbTags(int threads, double rate) {
         Map<String, String> tags = new HashMap<String, String>();
         tags.put("backend", "riak");
         tags.put("op", operation.toString());
@@ -209,60 +640,64 @@ public class S3PerformanceTest implements Callable<TestResult> {
         tags.put("source", source);
         tags.put("backend", backend);
         tags.put("threads", "T" + String.valueOf(threads));
+        if (rate > 0) {
+            tags.put("rate", String.valueOf(rate));
+        }
+        return tags;
+    }
 
-        pushPoint(new KairosdbPoint("core.engineering.s3.operation_time.avg",
+    private void pushResults(TestResult testResult, int threads, double rate) {
+        int i = 0;
+        Map<String, String> tags = kairosdbTags(threads, rate);
+
+        kairosdbExporter.offer(new KairosdbPoint("core.engineering.s3.operation_time.avg",
             System.currentTimeMillis(),
             testResult.getAvg(),
             tags));
-        pushPoint(new KairosdbPoint("core.engineering.s3.operation_time.min",
+        kairosdbExporter.offer(new KairosdbPoint("core.engineering.s3.operation_time.min",
             System.currentTimeMillis(),
             testResult.getMin(),
             tags));
-        pushPoint(new KairosdbPoint("core.engineering.s3.operation_time.max",
+        kairosdbExporter.offer(new KairosdbPoint("core.engineering.s3.operation_time.max",
             System.currentTimeMillis(),
             testResult.getMax(),
             tags));
-        pushPoint(new KairosdbPoint("core.engineering.s3.operation_time.p99",
+        kairosdbExporter.offer(new KairosdbPoint("core.engineering.s3.operation_time.p99",
             System.currentTimeMillis(),
             testResult.getP99(),
             tags));
-        pushPoint(new KairosdbPoint("core.engineering.s3.operation_time.p95",
+        kairosdbExporter.offer(new KairosdbPoint("core.engineering.s3.operation_time.p95",
             System.currentTimeMillis(),
             testResult.getP95(),
             tags));
 
-        pushPoint(new KairosdbPoint("core.engineering.s3.ops",
+        kairosdbExporter.offer(new KairosdbPoint("core.engineering.s3.ops",
             System.currentTimeMillis() + (i++),
             testResult.getOps(),
             tags));
-        pushPoint(null);
-    }
 
-    private void pushPoint(KairosdbPoint point) {
-        if (point != null) {
-            pointBuffer.add(point);
-            if (pointBuffer.size() < 100) {
-                return;
-            }
-        }
-        try {
-            String       postUrl       = kairosdbUrl + "/api/v1/datapoints";// put in your url
-            Gson         gson          = new Gson();
-            HttpClient   httpClient    = HttpClientBuilder.create().build();
-            HttpPost     post          = new HttpPost(postUrl);
-            StringEntity postingString = new StringEntity(gson.toJson(pointBuffer));//gson.tojson() converts your pojo to json
-            post.setEntity(postingString);
-            post.setHeader("Content-type", "application/json");
-            HttpResponse  response = httpClient.execute(post);
-        } catch (Exception ex) {
-            throw new RuntimeException(ex);
-            //handle exception here
-
-        } finally {
-            pointBuffer.clear();
-            //Deprecated
-            //httpClient.getConnectionManager().shutdown();
-        }
+        TransferResult transfer = testResult.getTransfer();
+        kairosdbExporter.offer(new KairosdbPoint("core.engineering.s3.upload_mbps",
+            System.currentTimeMillis(),
+            transfer.getUploadMBps(),
+            tags));
+        kairosdbExporter.offer(new KairosdbPoint("core.engineering.s3.upload_mbps.per_thread",
+            System.currentTimeMillis(),
+            transfer.getUploadMBpsPerThread(),
+            tags));
+        kairosdbExporter.offer(new KairosdbPoint("core.engineering.s3.download_mbps",
+            System.currentTimeMillis(),
+            transfer.getDownloadMBps(),
+            tags));
+        kairosdbExporter.offer(new KairosdbPoint("core.engineering.s3.download_mbps.per_thread",
+            System.currentTimeMillis(),
+            transfer.getDownloadMBpsPerThread(),
+            tags));
+        kairosdbExporter.offer(new KairosdbPoint("core.engineering.s3.error_rate",
+            System.currentTimeMillis(),
+            testResult.getErrors().getRate(),
+            tags));
     }
 
+
 }
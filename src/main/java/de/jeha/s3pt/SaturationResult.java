@@ -0,0 +1,109 @@
+package de.jeha.s3pt;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Result of a {@link SaturationSearch}: the throughput curve and the maximum sustainable throughput.
+ *
+ * @author jenshadlich@googlemail.com
+ */
+class SaturationResult {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SaturationResult.class);
+
+    @JsonProperty
+    private final List<Step> steps;
+    @JsonProperty
+    private final double maxSustainableOps;
+
+    SaturationResult(List<Step> steps, double maxSustainableOps) {
+        this.steps = steps;
+        this.maxSustainableOps = maxSustainableOps;
+    }
+
+    public List<Step> getSteps() {
+        return steps;
+    }
+
+    public double getMaxSustainableOps() {
+        return maxSustainableOps;
+    }
+
+    /**
+     * Log the throughput curve.
+     */
+    public void log() {
+        LOG.info("Saturation summary:");
+        LOG.info("step | threads | rate | throughput | avg | p50 | p99 | SLO met");
+        for (int i = 0; i < steps.size(); i++) {
+            Step step = steps.get(i);
+            LOG.info("{} | {} | {} | {} | {} | {} | {} | {}", i + 1, step.threads, (int) step.rate, (int) step.ops,
+                    step.avg, step.p50, step.p99, step.sloMet);
+        }
+        LOG.info("max. sustainable throughput = {} operations/s", (int) maxSustainableOps);
+    }
+
+    /**
+     * Write the result to file as json.
+     *
+     * @param resultFileName name of the result file
+     * @throws IOException
+     */
+    public void writeToFileAsJson(String resultFileName) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.enable(SerializationFeature.INDENT_OUTPUT);
+        String resultJson = mapper.writeValueAsString(this);
+        FileUtils.writeStringToFile(new File(resultFileName), resultJson, StandardCharsets.UTF_8);
+    }
+
+    static class Step {
+
+        @JsonProperty
+        private final int threads;
+        @JsonProperty
+        private final double rate;
+        @JsonProperty
+        private final double ops;
+        @JsonProperty
+        private final double avg;
+        @JsonProperty
+        private final double p50;
+        @JsonProperty
+        private final double p99;
+        @JsonProperty
+        private final boolean sloMet;
+
+        Step(int threads, double rate, TestResult testResult, boolean sloMet) {
+            this.threads = threads;
+            this.rate = rate;
+            this.ops = testResult.getOps();
+            this.avg = testResult.getAvg();
+            this.p50 = testResult.getP50();
+            this.p99 = testResult.getP99();
+            this.sloMet = sloMet;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public double getRate() {
+            return rate;
+        }
+
+        public boolean isSloMet() {
+            return sloMet;
+        }
+    }
+
+}
@@ -0,0 +1,129 @@
+package de.jeha.s3pt;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.function.BiFunction;
+
+/**
+ * Searches the maximum sustainable throughput: the number of threads or the target rate is raised step by step
+ * (within one JVM, reusing the S3 clients) until the p99 latency exceeds the SLO or throughput stops growing. Each step
+ * is a duration-based run of the given test.
+ *
+ * @author jenshadlich@googlemail.com
+ */
+public class SaturationSearch implements Callable<SaturationResult> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SaturationSearch.class);
+
+    public enum Dimension {
+        THREADS,
+        RATE
+    }
+
+    private final BiFunction<Integer, Double, TestResult> runStep;
+    private final Runnable close;
+    private final Dimension dimension;
+    private final int threads;
+    private final double start;
+    private final double step;
+    private final int maxSteps;
+    private final double sloP99;
+    private final double minGrowth;
+
+    /**
+     * @param test      test to run in each step
+     * @param dimension what to raise from step to step
+     * @param threads   number of threads (if the rate is raised)
+     * @param start     number of threads or rate of the first step
+     * @param step      increment per step
+     * @param maxSteps  maximum number of steps
+     * @param sloP99    p99 latency SLO in ms, 0 if not set
+     * @param minGrowth minimum throughput growth from one step to the next in percent
+     */
+    public SaturationSearch(S3PerformanceTest test, Dimension dimension, int threads, double start, double step,
+                            int maxSteps, double sloP99, double minGrowth) {
+        this(test::run, test::close, dimension, threads, start, step, maxSteps, sloP99, minGrowth);
+    }
+
+    /**
+     * @param runStep   runs a step with the given number of threads and rate, returns null if the step failed
+     * @param close     releases the test after the last step
+     * @param dimension what to raise from step to step
+     * @param threads   number of threads (if the rate is raised)
+     * @param start     number of threads or rate of the first step
+     * @param step      increment per step
+     * @param maxSteps  maximum number of steps
+     * @param sloP99    p99 latency SLO in ms, 0 if not set
+     * @param minGrowth minimum throughput growth from one step to the next in percent
+     */
+    SaturationSearch(BiFunction<Integer, Double, TestResult> runStep, Runnable close, Dimension dimension,
+                     int threads, double start, double step, int maxSteps, double sloP99, double minGrowth) {
+        this.runStep = runStep;
+        this.close = close;
+        this.dimension = dimension;
+        this.threads = threads;
+        this.start = start;
+        this.step = step;
+        this.maxSteps = maxSteps;
+        this.sloP99 = sloP99;
+        this.minGrowth = minGrowth;
+    }
+
+    /**
+     * @param dimension what to raise from step to step
+     * @param threads   number of threads (if the rate is raised)
+     * @param start     number of threads or rate of the first step
+     * @param step      increment per step
+     * @param maxSteps  maximum number of steps
+     * @return largest number of threads of a step
+     */
+    static int maxThreads(Dimension dimension, int threads, double start, double step, int maxSteps) {
+        return dimension == Dimension.THREADS ? (int) (start + (maxSteps - 1) * step) : threads;
+    }
+
+    @Override
+    public SaturationResult call() {
+        List<SaturationResult.Step> steps = new ArrayList<>();
+        double maxSustainableOps = 0;
+        TestResult previous = null;
+
+        for (int i = 0; i < maxSteps; i++) {
+            final double level = start + i * step;
+            final int stepThreads = (dimension == Dimension.THREADS) ? (int) level : threads;
+            final double stepRate = (dimension == Dimension.RATE) ? level : 0;
+
+            LOG.info("Step {}: threads = {}, rate = {} operations/s", i + 1, stepThreads, stepRate);
+
+            TestResult testResult = runStep.apply(stepThreads, stepRate);
+            if (testResult == null) {
+                LOG.warn("Step {} failed, stop", i + 1);
+                break;
+            }
+
+            final boolean sloMet = sloP99 <= 0 || testResult.getP99() <= sloP99;
+            steps.add(new SaturationResult.Step(stepThreads, stepRate, testResult, sloMet));
+
+            if (!sloMet) {
+                LOG.info("p99 = {} ms exceeds SLO of {} ms, stop", testResult.getP99(), sloP99);
+                break;
+            }
+            maxSustainableOps = Math.max(maxSustainableOps, testResult.getOps());
+
+            if (previous != null && testResult.getOps() < previous.getOps() * (1 + minGrowth / 100)) {
+                LOG.info("Throughput grew less than {}% ({} -> {} operations/s), stop",
+                        minGrowth, (int) previous.getOps(), (int) testResult.getOps());
+                break;
+            }
+            previous = testResult;
+        }
+
+        close.run();
+
+        return new SaturationResult(steps, maxSustainableOps);
+    }
+
+}
@@ -0,0 +1,92 @@
+package de.jeha.s3pt;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Result of the requests of an object size class, see {@link de.jeha.s3pt.operations.size.SizeClasses}.
+ *
+ * @author jenshadlich@googlemail.com
+ */
+class SizeClassResult {
+
+    @JsonProperty
+    private final long count;
+    @JsonProperty
+    private final long bytes;
+    @JsonProperty
+    private final double ops;
+    @JsonProperty
+    private final double mbps;
+    @JsonProperty
+    private final double avg;
+    @JsonProperty
+    private final double p50;
+    @JsonProperty
+    private final double p99;
+    @JsonProperty
+    private final double max;
+
+    SizeClassResult(long count, long bytes, double ops, double mbps, double avg, double p50, double p99, double max) {
+        this.count = count;
+        this.bytes = bytes;
+        this.ops = ops;
+        this.mbps = mbps;
+        this.avg = avg;
+        this.p50 = p50;
+        this.p99 = p99;
+        this.max = max;
+    }
+
+    /**
+     * @param histogram latencies of the size class in µs
+     * @param bytes     bytes transferred by the requests of the size class
+     * @param ops       throughput of the size class in operations/s
+     * @param mbps      bandwidth of the size class in MB/s
+     * @return result with latencies in ms
+     */
+    static SizeClassResult compute(Histogram histogram, long bytes, double ops, double mbps) {
+        return new SizeClassResult(
+                histogram.getTotalCount(),
+                bytes,
+                ops,
+                mbps,
+                TestResult.toMillis(histogram.getMean()),
+                TestResult.toMillis(histogram.getValueAtPercentile(50)),
+                TestResult.toMillis(histogram.getValueAtPercentile(99)),
+                TestResult.toMillis(histogram.getMaxValue()));
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public double getOps() {
+        return ops;
+    }
+
+    public double getMbps() {
+        return mbps;
+    }
+
+    public double getAvg() {
+        return avg;
+    }
+
+    public double getP50() {
+        return p50;
+    }
+
+    public double getP99() {
+        return p99;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+}
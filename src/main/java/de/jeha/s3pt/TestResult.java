@@ -1,16 +1,24 @@
 package de.jeha.s3pt;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import de.jeha.s3pt.utils.LatencyHistograms;
 import org.apache.commons.io.FileUtils;
+import org.HdrHistogram.Histogram;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * @author jenshadlich@googlemail.com
@@ -20,25 +28,54 @@ class TestResult {
     private static final Logger LOG = LoggerFactory.getLogger(TestResult.class);
 
     @JsonProperty
-    private final int min;
+    private final double min;
     @JsonProperty
-    private final int max;
+    private final double max;
     @JsonProperty
-    private final int avg;
+    private final double avg;
     @JsonProperty
-    private final int p50;
+    private final double p50;
     @JsonProperty
-    private final int p75;
+    private final double p75;
     @JsonProperty
-    private final int p95;
+    private final double p95;
     @JsonProperty
-    private final int p98;
+    private final double p98;
     @JsonProperty
-    private final int p99;
+    private final double p99;
     @JsonProperty
     private final double ops;
+    @JsonProperty
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private final Map<String, TestResult> requestTypes;
+    @JsonProperty
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private final Map<String, PhaseResult> phases;
+    @JsonProperty
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private final Map<String, SizeClassResult> sizeClasses;
+    @JsonProperty
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final TransferResult transfer;
+    @JsonProperty
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final ErrorResult errors;
+    @JsonProperty
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final CpuResult cpu;
+    @JsonIgnore
+    private final List<OperationResult> operationResults;
 
-    TestResult(int min, int max, int avg, int p50, int p75, int p95, int p98, int p99, double ops) {
+    TestResult(double min, double max, double avg, double p50, double p75, double p95, double p98, double p99,
+               double ops) {
+        this(min, max, avg, p50, p75, p95, p98, p99, ops, Collections.emptyMap(), Collections.emptyMap(),
+                Collections.emptyMap(), null, null, null, Collections.emptyList());
+    }
+
+    TestResult(double min, double max, double avg, double p50, double p75, double p95, double p98, double p99,
+               double ops, Map<String, TestResult> requestTypes, Map<String, PhaseResult> phases,
+               Map<String, SizeClassResult> sizeClasses, TransferResult transfer, ErrorResult errors,
+               CpuResult cpu, List<OperationResult> operationResults) {
         this.min = min;
         this.max = max;
         this.avg = avg;
@@ -48,51 +85,136 @@ class TestResult {
         this.p98 = p98;
         this.p99 = p99;
         this.ops = ops;
+        this.requestTypes = requestTypes;
+        this.phases = phases;
+        this.sizeClasses = sizeClasses;
+        this.transfer = transfer;
+        this.errors = errors;
+        this.cpu = cpu;
+        this.operationResults = operationResults;
     }
 
-    public static TestResult compute(List<OperationResult> results) {
-        int min = (int) results.stream().mapToDouble(x -> x.getStats().getMin()).average().orElse(0.0);
-        int max = (int) results.stream().mapToDouble(x -> x.getStats().getMax()).average().orElse(0.0);
-        int avg = (int) results.stream().mapToDouble(x -> x.getStats().getGeometricMean()).average().orElse(0.0);
-        int p50 = (int) results.stream().mapToDouble(x -> x.getStats().getPercentile(50)).average().orElse(0.0);
-        int p75 = (int) results.stream().mapToDouble(x -> x.getStats().getPercentile(75)).average().orElse(0.0);
-        int p95 = (int) results.stream().mapToDouble(x -> x.getStats().getPercentile(95)).average().orElse(0.0);
-        int p98 = (int) results.stream().mapToDouble(x -> x.getStats().getPercentile(98)).average().orElse(0.0);
-        int p99 = (int) results.stream().mapToDouble(x -> x.getStats().getPercentile(99)).average().orElse(0.0);
-        double ops = results.stream().mapToDouble(x -> x.getStats().getN() / x.getStats().getSum() * 1_000).sum();
+    /**
+     * Compute the test result; throughput (operations/s and MB/s) is derived from the length of the measurement
+     * window.
+     *
+     * @param results       results of all threads
+     * @param durationNanos length of the measurement window in ns
+     * @param retries       number of retries of the S3 clients
+     * @param cpuNanos      CPU time of the client during the run in ns, negative if not measured
+     * @param elapsedNanos  elapsed time of the run in ns (including warm-up and cool-down)
+     * @return test result
+     */
+    public static TestResult compute(List<OperationResult> results, long durationNanos, long retries,
+                                     long cpuNanos, long elapsedNanos) {
+        long n = results.stream().mapToLong(x -> x.getHistogram().getTotalCount()).sum();
+        double ops = n / (durationNanos / 1_000_000_000.0);
+
+        return withThroughput(results, ops, TransferResult.compute(results, durationNanos), retries,
+                CpuResult.compute(cpuNanos, elapsedNanos, ops));
+    }
+
+    /**
+     * Compute the test result with the given throughput.
+     *
+     * @param results  results of all threads
+     * @param ops      throughput in operations/s
+     * @param transfer bytes transferred and throughput in MB/s
+     * @param retries  number of retries of the S3 clients
+     * @param cpu      CPU time of the client, null if not measured
+     * @return test result
+     */
+    static TestResult withThroughput(List<OperationResult> results, double ops, TransferResult transfer,
+                                     long retries, CpuResult cpu) {
+        // percentiles are computed from the merged histograms of all threads
+        OperationResult merged = OperationResult.merge(results);
+        Histogram histogram = merged.getHistogram();
+        long n = histogram.getTotalCount();
+
+        // throughput of a request type is its share of the overall throughput
+        Map<String, TestResult> requestTypes = new TreeMap<>();
+        merged.getHistogramsByRequestType().forEach((requestType, requestTypeHistogram) -> {
+            long requestTypeN = requestTypeHistogram.getTotalCount();
+            requestTypes.put(requestType, summarize(requestTypeHistogram, n > 0 ? ops * requestTypeN / n : 0,
+                    Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap(), null, null, null,
+                    Collections.emptyList()));
+        });
+
+        Map<String, PhaseResult> phases = new LinkedHashMap<>();
+        merged.getHistogramsByPhase().forEach((phase, phaseHistogram) ->
+                phases.put(phase, PhaseResult.compute(phaseHistogram)));
+
+        // like request types, throughput and bandwidth of a size class are its share of the overall values
+        Map<String, SizeClassResult> sizeClasses = new LinkedHashMap<>();
+        final long bytes = transfer != null ? transfer.getBytesUploaded() + transfer.getBytesDownloaded() : 0;
+        final double mbps = transfer != null ? transfer.getUploadMBps() + transfer.getDownloadMBps() : 0;
+        merged.getHistogramsBySizeClass().forEach((sizeClass, sizeClassHistogram) -> {
+            long sizeClassN = sizeClassHistogram.getTotalCount();
+            long sizeClassBytes = merged.getBytesBySizeClass().getOrDefault(sizeClass, 0L);
+            sizeClasses.put(sizeClass, SizeClassResult.compute(sizeClassHistogram, sizeClassBytes,
+                    n > 0 ? ops * sizeClassN / n : 0, bytes > 0 ? mbps * sizeClassBytes / bytes : 0));
+        });
+
+        Map<String, Long> successesByRequestType = new TreeMap<>();
+        merged.getHistogramsByRequestType().forEach((requestType, requestTypeHistogram) ->
+                successesByRequestType.put(requestType, requestTypeHistogram.getTotalCount()));
+        ErrorResult errors = ErrorResult.compute(merged.getErrors(), n, successesByRequestType, retries);
+
+        return summarize(histogram, ops, requestTypes, phases, sizeClasses, transfer, errors, cpu, results);
+    }
+
+    private static TestResult summarize(Histogram histogram, double ops, Map<String, TestResult> requestTypes,
+                                        Map<String, PhaseResult> phases, Map<String, SizeClassResult> sizeClasses,
+                                        TransferResult transfer, ErrorResult errors, CpuResult cpu,
+                                        List<OperationResult> results) {
+        // histograms are recorded in µs, results are given in ms
+        double min = toMillis(histogram.getMinValue());
+        double max = toMillis(histogram.getMaxValue());
+        double avg = toMillis(LatencyHistograms.geometricMean(histogram));
+        double p50 = toMillis(histogram.getValueAtPercentile(50));
+        double p75 = toMillis(histogram.getValueAtPercentile(75));
+        double p95 = toMillis(histogram.getValueAtPercentile(95));
+        double p98 = toMillis(histogram.getValueAtPercentile(98));
+        double p99 = toMillis(histogram.getValueAtPercentile(99));
+
+        return new TestResult(min, max, avg, p50, p75, p95, p98, p99, ops, requestTypes, phases, sizeClasses,
+                transfer, errors, cpu, results);
+    }
 
-        return new TestResult(min, max, avg, p50, p75, p95, p98, p99, ops);
+    static double toMillis(double micros) {
+        // keep µs resolution, but no more
+        return Math.round(micros) / 1_000.0;
     }
 
-    public int getMin() {
+    public double getMin() {
         return min;
     }
 
-    public int getMax() {
+    public double getMax() {
         return max;
     }
 
-    public int getAvg() {
+    public double getAvg() {
         return avg;
     }
 
-    public int getP50() {
+    public double getP50() {
         return p50;
     }
 
-    public int getP75() {
+    public double getP75() {
         return p75;
     }
 
-    public int getP95() {
+    public double getP95() {
         return p95;
     }
 
-    public int getP98() {
+    public double getP98() {
         return p98;
     }
 
-    public int getP99() {
+    public double getP99() {
         return p99;
     }
 
@@ -100,6 +222,50 @@ class TestResult {
         return ops;
     }
 
+    public Map<String, TestResult> getRequestTypes() {
+        return requestTypes;
+    }
+
+    public Map<String, PhaseResult> getPhases() {
+        return phases;
+    }
+
+    /**
+     * @return results per object size class, empty if all objects have the same size
+     */
+    public Map<String, SizeClassResult> getSizeClasses() {
+        return sizeClasses;
+    }
+
+    /**
+     * @return bytes transferred and throughput in MB/s, null for the results of request types
+     */
+    public TransferResult getTransfer() {
+        return transfer;
+    }
+
+    /**
+     * @return failed requests, null for the results of request types
+     */
+    public ErrorResult getErrors() {
+        return errors;
+    }
+
+    /**
+     * @return CPU time of the client, null for the results of request types or if not measured
+     */
+    public CpuResult getCpu() {
+        return cpu;
+    }
+
+    /**
+     * @return results of all threads the test result was computed from (e.g. to merge them with other results)
+     */
+    @JsonIgnore
+    public List<OperationResult> getOperationResults() {
+        return operationResults;
+    }
+
     /**
      * Log the test results.
      */
@@ -114,6 +280,44 @@ class TestResult {
         LOG.info("p98 = {} ms", p98);
         LOG.info("p99 = {} ms", p99);
         LOG.info("throughput = {} operations/s", (int) ops);
+        if (transfer != null && transfer.getBytesUploaded() > 0) {
+            LOG.info("upload = {} MB/s ({} MB/s per thread), {} bytes",
+                    String.format("%.2f", transfer.getUploadMBps()),
+                    String.format("%.2f", transfer.getUploadMBpsPerThread()), transfer.getBytesUploaded());
+        }
+        if (transfer != null && transfer.getBytesDownloaded() > 0) {
+            LOG.info("download = {} MB/s ({} MB/s per thread), {} bytes",
+                    String.format("%.2f", transfer.getDownloadMBps()),
+                    String.format("%.2f", transfer.getDownloadMBpsPerThread()), transfer.getBytesDownloaded());
+        }
+        if (errors != null) {
+            LOG.info("errors = {} ({} %), retries = {}", errors.getCount(),
+                    String.format("%.2f", errors.getRate() * 100), errors.getRetries());
+            if (errors.getCount() > 0) {
+                LOG.info("errors by status: {}, by code: {}", errors.getByStatus(), errors.getByCode());
+                if (!errors.getByRequestType().isEmpty()) {
+                    LOG.info("errors by request type: {}, rate by request type: {}", errors.getByRequestType(),
+                            errors.getRateByRequestType());
+                }
+                LOG.info("failed requests: p50 = {} ms, p99 = {} ms, max = {} ms",
+                        errors.getP50(), errors.getP99(), errors.getMax());
+            }
+        }
+        if (cpu != null) {
+            LOG.info("client cpu = {} s ({} cores), {} ms per request", String.format("%.2f", cpu.getSeconds()),
+                    String.format("%.2f", cpu.getCores()), String.format("%.3f", cpu.getPerRequest()));
+        }
+        requestTypes.forEach((requestType, result) ->
+                LOG.info("{}: throughput = {} operations/s, avg = {} ms, p50 = {} ms, p99 = {} ms, max = {} ms",
+                        requestType, (int) result.ops, result.avg, result.p50, result.p99, result.max));
+        phases.forEach((phase, result) ->
+                LOG.info("phase {}: avg = {} ms, p50 = {} ms, p95 = {} ms, p99 = {} ms, max = {} ms",
+                        phase, result.getAvg(), result.getP50(), result.getP95(), result.getP99(), result.getMax()));
+        sizeClasses.forEach((sizeClass, result) ->
+                LOG.info("size {}: {} requests, throughput = {} operations/s, {} MB/s, avg = {} ms, p50 = {} ms, "
+                                + "p99 = {} ms, max = {} ms", sizeClass, result.getCount(), (int) result.getOps(),
+                        String.format("%.2f", result.getMbps()), result.getAvg(), result.getP50(), result.getP99(),
+                        result.getMax()));
     }
 
     /**
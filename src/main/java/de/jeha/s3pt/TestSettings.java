@@ -0,0 +1,712 @@
+package de.jeha.s3pt;
+
+import de.jeha.s3pt.operations.size.SizeDistribution;
+import de.jeha.s3pt.utils.Checksum;
+import de.jeha.s3pt.utils.ObjectContent;
+import de.jeha.s3pt.utils.PayloadGenerator;
+
+/**
+ * Settings of a {@link S3PerformanceTest}, filled from the command line arguments by {@link Main} (on the workers of a
+ * distributed test from the arguments of the workload). Create with {@link #builder()}; settings which are not set
+ * have the defaults of the command line options.
+ *
+ * @author jenshadlich@googlemail.com
+ */
+public class TestSettings {
+
+    private final String accessKey;
+    private final String secretKey;
+    private final String endpointUrl;
+    private final String bucketName;
+    private final Operation operation;
+    private final int threads;
+    private final int maxThreads;
+    private final int n;
+    private final int duration;
+    private final int warmup;
+    private final int cooldown;
+    private final double rate;
+    private final int size;
+    private final String sizeDistribution;
+    private final double compressionRatio;
+    private final double dedupRatio;
+    private final int dedupBlockSize;
+    private final boolean verify;
+    private final long seed;
+    private final Checksum checksum;
+    private final boolean chunkedEncoding;
+    private final String mix;
+    private final boolean useHttp;
+    private final boolean useGzip;
+    private final String signerOverride;
+    private final boolean useKeepAlive;
+    private final boolean usePathStyleAccess;
+    private final boolean useVirtualThreads;
+    private final boolean useAsync;
+    private final int maxInFlight;
+    private final String region;
+    private final boolean recordPhases;
+    private final boolean fullBody;
+    private final String keyFileName;
+    private final int reportInterval;
+    private final String reportFileName;
+    private final int metricsPort;
+    private final String traceFileName;
+    private final boolean recordEvents;
+    private final String kairosdbUrl;
+    private final String source;
+    private final String backend;
+
+    private TestSettings(Builder builder) {
+        this.accessKey = builder.accessKey;
+        this.secretKey = builder.secretKey;
+        this.endpointUrl = builder.endpointUrl;
+        this.bucketName = builder.bucketName;
+        this.operation = builder.operation;
+        this.threads = builder.threads;
+        this.maxThreads = builder.maxThreads;
+        this.n = builder.n;
+        this.duration = builder.duration;
+        this.warmup = builder.warmup;
+        this.cooldown = builder.cooldown;
+        this.rate = builder.rate;
+        this.size = builder.size;
+        this.sizeDistribution = builder.sizeDistribution;
+        this.compressionRatio = builder.compressionRatio;
+        this.dedupRatio = builder.dedupRatio;
+        this.dedupBlockSize = builder.dedupBlockSize;
+        this.verify = builder.verify;
+        this.seed = builder.seed;
+        this.checksum = builder.checksum;
+        this.chunkedEncoding = builder.chunkedEncoding;
+        this.mix = builder.mix;
+        this.useHttp = builder.useHttp;
+        this.useGzip = builder.useGzip;
+        this.signerOverride = builder.signerOverride;
+        this.useKeepAlive = builder.useKeepAlive;
+        this.usePathStyleAccess = builder.usePathStyleAccess;
+        this.useVirtualThreads = builder.useVirtualThreads;
+        this.useAsync = builder.useAsync;
+        this.maxInFlight = builder.maxInFlight;
+        this.region = builder.region;
+        this.recordPhases = builder.recordPhases;
+        this.fullBody = builder.fullBody;
+        this.keyFileName = builder.keyFileName;
+        this.reportInterval = builder.reportInterval;
+        this.reportFileName = builder.reportFileName;
+        this.metricsPort = builder.metricsPort;
+        this.traceFileName = builder.traceFileName;
+        this.recordEvents = builder.recordEvents;
+        this.kairosdbUrl = builder.kairosdbUrl;
+        this.source = builder.source;
+        this.backend = builder.backend;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public String getAccessKey() {
+        return accessKey;
+    }
+
+    public String getSecretKey() {
+        return secretKey;
+    }
+
+    public String getEndpointUrl() {
+        return endpointUrl;
+    }
+
+    public String getBucketName() {
+        return bucketName;
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public int getMaxThreads() {
+        return maxThreads;
+    }
+
+    public int getN() {
+        return n;
+    }
+
+    public int getDuration() {
+        return duration;
+    }
+
+    public int getWarmup() {
+        return warmup;
+    }
+
+    public int getCooldown() {
+        return cooldown;
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public String getSizeDistribution() {
+        return sizeDistribution;
+    }
+
+    public double getCompressionRatio() {
+        return compressionRatio;
+    }
+
+    public double getDedupRatio() {
+        return dedupRatio;
+    }
+
+    public int getDedupBlockSize() {
+        return dedupBlockSize;
+    }
+
+    public boolean isVerify() {
+        return verify;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public Checksum getChecksum() {
+        return checksum;
+    }
+
+    public boolean isChunkedEncoding() {
+        return chunkedEncoding;
+    }
+
+    public String getMix() {
+        return mix;
+    }
+
+    public boolean isUseHttp() {
+        return useHttp;
+    }
+
+    public boolean isUseGzip() {
+        return useGzip;
+    }
+
+    public String getSignerOverride() {
+        return signerOverride;
+    }
+
+    public boolean isUseKeepAlive() {
+        return useKeepAlive;
+    }
+
+    public boolean isUsePathStyleAccess() {
+        return usePathStyleAccess;
+    }
+
+    public boolean isUseVirtualThreads() {
+        return useVirtualThreads;
+    }
+
+    public boolean isUseAsync() {
+        return useAsync;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    public boolean isRecordPhases() {
+        return recordPhases;
+    }
+
+    public boolean isFullBody() {
+        return fullBody;
+    }
+
+    public String getKeyFileName() {
+        return keyFileName;
+    }
+
+    public int getReportInterval() {
+        return reportInterval;
+    }
+
+    public String getReportFileName() {
+        return reportFileName;
+    }
+
+    public int getMetricsPort() {
+        return metricsPort;
+    }
+
+    public String getTraceFileName() {
+        return traceFileName;
+    }
+
+    public boolean isRecordEvents() {
+        return recordEvents;
+    }
+
+    public String getKairosdbUrl() {
+        return kairosdbUrl;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public String getBackend() {
+        return backend;
+    }
+
+    public static class Builder {
+
+        private String accessKey;
+        private String secretKey;
+        private String endpointUrl = "s3.amazonaws.com";
+        private String bucketName;
+        private Operation operation = Operation.UPLOAD;
+        private int threads = 1;
+        private int maxThreads;
+        private int n;
+        private int duration;
+        private int warmup;
+        private int cooldown;
+        private double rate;
+        private int size = 128 * 1024;
+        private String sizeDistribution;
+        private double compressionRatio = 1;
+        private double dedupRatio;
+        private int dedupBlockSize = PayloadGenerator.DEFAULT_BLOCK_SIZE;
+        private boolean verify;
+        private long seed;
+        private Checksum checksum = Checksum.SDK;
+        private boolean chunkedEncoding;
+        private String mix = "GET=70,HEAD=15,PUT=10,DELETE=5";
+        private boolean useHttp;
+        private boolean useGzip;
+        private String signerOverride;
+        private boolean useKeepAlive;
+        private boolean usePathStyleAccess;
+        private boolean useVirtualThreads;
+        private boolean useAsync;
+        private int maxInFlight = 1000;
+        private String region = "us-east-1";
+        private boolean recordPhases;
+        private boolean fullBody;
+        private String keyFileName;
+        private int reportInterval;
+        private String reportFileName;
+        private int metricsPort;
+        private String traceFileName;
+        private boolean recordEvents;
+        private String kairosdbUrl;
+        private String source;
+        private String backend;
+
+        private Builder() {
+        }
+
+        /**
+         * @param accessKey access key
+         * @return this builder
+         */
+        public Builder accessKey(String accessKey) {
+            this.accessKey = accessKey;
+            return this;
+        }
+
+        /**
+         * @param secretKey secret key
+         * @return this builder
+         */
+        public Builder secretKey(String secretKey) {
+            this.secretKey = secretKey;
+            return this;
+        }
+
+        /**
+         * @param endpointUrl endpoint url, e.g. 's3.amazonaws.com'
+         * @return this builder
+         */
+        public Builder endpointUrl(String endpointUrl) {
+            this.endpointUrl = endpointUrl;
+            return this;
+        }
+
+        /**
+         * @param bucketName name of bucket
+         * @return this builder
+         */
+        public Builder bucketName(String bucketName) {
+            this.bucketName = bucketName;
+            return this;
+        }
+
+        /**
+         * @param operation operation
+         * @return this builder
+         */
+        public Builder operation(Operation operation) {
+            this.operation = operation;
+            return this;
+        }
+
+        /**
+         * @param threads number of threads
+         * @return this builder
+         */
+        public Builder threads(int threads) {
+            this.threads = threads;
+            return this;
+        }
+
+        /**
+         * @param maxThreads largest number of threads of a run (e.g. of the last step of a ramp), the connection pool of
+         *                   the S3 client is sized for it; 0 if the test only runs with the number of threads
+         * @return this builder
+         */
+        public Builder maxThreads(int maxThreads) {
+            this.maxThreads = maxThreads;
+            return this;
+        }
+
+        /**
+         * @param n number of operations, 0 if duration is set
+         * @return this builder
+         */
+        public Builder n(int n) {
+            this.n = n;
+            return this;
+        }
+
+        /**
+         * @param duration duration of the steady state in seconds (instead of a number of operations), 0 if not set
+         * @return this builder
+         */
+        public Builder duration(int duration) {
+            this.duration = duration;
+            return this;
+        }
+
+        /**
+         * @param warmup duration of the warm-up phase in seconds (requires duration)
+         * @return this builder
+         */
+        public Builder warmup(int warmup) {
+            this.warmup = warmup;
+            return this;
+        }
+
+        /**
+         * @param cooldown duration of the cool-down phase in seconds (requires duration)
+         * @return this builder
+         */
+        public Builder cooldown(int cooldown) {
+            this.cooldown = cooldown;
+            return this;
+        }
+
+        /**
+         * @param rate target rate in operations/s over all threads (open-loop), 0 for closed-loop
+         * @return this builder
+         */
+        public Builder rate(double rate) {
+            this.rate = rate;
+            return this;
+        }
+
+        /**
+         * @param size size (if applicable), e.g. for UPLOAD operation
+         * @return this builder
+         */
+        public Builder size(int size) {
+            this.size = size;
+            return this;
+        }
+
+        /**
+         * @param sizeDistribution distribution of the object sizes instead of a fixed size, e.g. "uniform:1K-1M", see
+         *                         {@link SizeDistribution}; null if not set
+         * @return this builder
+         */
+        public Builder sizeDistribution(String sizeDistribution) {
+            this.sizeDistribution = sizeDistribution;
+            return this;
+        }
+
+        /**
+         * @param compressionRatio target compression ratio of the uploaded data, 1 for random data
+         * @return this builder
+         */
+        public Builder compressionRatio(double compressionRatio) {
+            this.compressionRatio = compressionRatio;
+            return this;
+        }
+
+        /**
+         * @param dedupRatio target share of duplicate blocks of the uploaded data, 0 for unique blocks
+         * @return this builder
+         */
+        public Builder dedupRatio(double dedupRatio) {
+            this.dedupRatio = dedupRatio;
+            return this;
+        }
+
+        /**
+         * @param dedupBlockSize size of the blocks of the uploaded data in bytes (e.g. of the dedup ratio)
+         * @return this builder
+         */
+        public Builder dedupBlockSize(int dedupBlockSize) {
+            this.dedupBlockSize = dedupBlockSize;
+            return this;
+        }
+
+        /**
+         * @param verify upload verifiable object contents and verify the response bodies of reads, see {@link
+         *               ObjectContent}
+         * @return this builder
+         */
+        public Builder verify(boolean verify) {
+            this.verify = verify;
+            return this;
+        }
+
+        /**
+         * @param seed seed of the object contents (if verify)
+         * @return this builder
+         */
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * @param checksum integrity checksum of uploads and downloads, see {@link Checksum}
+         * @return this builder
+         */
+        public Builder checksum(Checksum checksum) {
+            this.checksum = checksum;
+            return this;
+        }
+
+        /**
+         * @param chunkedEncoding send uploads with chunked (aws-chunked) encoding
+         * @return this builder
+         */
+        public Builder chunkedEncoding(boolean chunkedEncoding) {
+            this.chunkedEncoding = chunkedEncoding;
+            return this;
+        }
+
+        /**
+         * @param mix weights of the request types of operation MIXED, e.g. "GET=70,HEAD=15,PUT=10,DELETE=5"
+         * @return this builder
+         */
+        public Builder mix(String mix) {
+            this.mix = mix;
+            return this;
+        }
+
+        /**
+         * @param useHttp use HTTP instead of HTTPS
+         * @return this builder
+         */
+        public Builder useHttp(boolean useHttp) {
+            this.useHttp = useHttp;
+            return this;
+        }
+
+        /**
+         * @param useGzip enable GZIP compression
+         * @return this builder
+         */
+        public Builder useGzip(boolean useGzip) {
+            this.useGzip = useGzip;
+            return this;
+        }
+
+        /**
+         * @param signerOverride override the S3 signer
+         * @return this builder
+         */
+        public Builder signerOverride(String signerOverride) {
+            this.signerOverride = signerOverride;
+            return this;
+        }
+
+        /**
+         * @param useKeepAlive use TCP keep alive
+         * @return this builder
+         */
+        public Builder useKeepAlive(boolean useKeepAlive) {
+            this.useKeepAlive = useKeepAlive;
+            return this;
+        }
+
+        /**
+         * @param usePathStyleAccess use path-style access instead of DNS-style
+         * @return this builder
+         */
+        public Builder usePathStyleAccess(boolean usePathStyleAccess) {
+            this.usePathStyleAccess = usePathStyleAccess;
+            return this;
+        }
+
+        /**
+         * @param useVirtualThreads run each thread as a virtual thread (Java 21 or higher)
+         * @return this builder
+         */
+        public Builder useVirtualThreads(boolean useVirtualThreads) {
+            this.useVirtualThreads = useVirtualThreads;
+            return this;
+        }
+
+        /**
+         * @param useAsync use the non-blocking S3 client
+         * @return this builder
+         */
+        public Builder useAsync(boolean useAsync) {
+            this.useAsync = useAsync;
+            return this;
+        }
+
+        /**
+         * @param maxInFlight maximum number of requests in flight over all threads (non-blocking S3 client)
+         * @return this builder
+         */
+        public Builder maxInFlight(int maxInFlight) {
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        /**
+         * @param region region used to sign requests (non-blocking S3 client)
+         * @return this builder
+         */
+        public Builder region(String region) {
+            this.region = region;
+            return this;
+        }
+
+        /**
+         * @param recordPhases record the time of each request phase (blocking S3 client)
+         * @return this builder
+         */
+        public Builder recordPhases(boolean recordPhases) {
+            this.recordPhases = recordPhases;
+            return this;
+        }
+
+        /**
+         * @param fullBody read the complete response body of GET requests (blocking S3 client)
+         * @return this builder
+         */
+        public Builder fullBody(boolean fullBody) {
+            this.fullBody = fullBody;
+            return this;
+        }
+
+        /**
+         * @param keyFileName name of file with object keys
+         * @return this builder
+         */
+        public Builder keyFileName(String keyFileName) {
+            this.keyFileName = keyFileName;
+            return this;
+        }
+
+        /**
+         * @param reportInterval interval of the live report in seconds, 0 if not set
+         * @return this builder
+         */
+        public Builder reportInterval(int reportInterval) {
+            this.reportInterval = reportInterval;
+            return this;
+        }
+
+        /**
+         * @param reportFileName name of the CSV file the live report is appended to, null if not set
+         * @return this builder
+         */
+        public Builder reportFileName(String reportFileName) {
+            this.reportFileName = reportFileName;
+            return this;
+        }
+
+        /**
+         * @param metricsPort port of the Prometheus metrics endpoint, 0 if not set
+         * @return this builder
+         */
+        public Builder metricsPort(int metricsPort) {
+            this.metricsPort = metricsPort;
+            return this;
+        }
+
+        /**
+         * @param traceFileName name of the file each request is traced to, null if not set
+         * @return this builder
+         */
+        public Builder traceFileName(String traceFileName) {
+            this.traceFileName = traceFileName;
+            return this;
+        }
+
+        /**
+         * @param recordEvents emit flight recorder events for each request and run phase
+         * @return this builder
+         */
+        public Builder recordEvents(boolean recordEvents) {
+            this.recordEvents = recordEvents;
+            return this;
+        }
+
+        /**
+         * @param kairosdbUrl Url of KairosDB for posting metrics
+         * @return this builder
+         */
+        public Builder kairosdbUrl(String kairosdbUrl) {
+            this.kairosdbUrl = kairosdbUrl;
+            return this;
+        }
+
+        /**
+         * @param source source tag for metrics
+         * @return this builder
+         */
+        public Builder source(String source) {
+            this.source = source;
+            return this;
+        }
+
+        /**
+         * @param backend backend tag for metrics
+         * @return this builder
+         */
+        public Builder backend(String backend) {
+            this.backend = backend;
+            return this;
+        }
+
+        public TestSettings build() {
+            return new TestSettings(this);
+        }
+
+    }
+
+}
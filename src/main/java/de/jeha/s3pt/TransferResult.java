@@ -0,0 +1,110 @@
+package de.jeha.s3pt;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * Bytes transferred by the requests of a test and the resulting bandwidth. 1 MB = 1024 * 1024 bytes.
+ *
+ * @author jenshadlich@googlemail.com
+ */
+class TransferResult {
+
+    private static final double BYTES_PER_MB = 1024 * 1024;
+
+    @JsonProperty
+    private final long bytesUploaded;
+    @JsonProperty
+    private final long bytesDownloaded;
+    @JsonProperty
+    private final double uploadMBps;
+    @JsonProperty
+    private final double downloadMBps;
+    @JsonProperty
+    private final double uploadMBpsPerThread;
+    @JsonProperty
+    private final double downloadMBpsPerThread;
+
+    @JsonCreator
+    TransferResult(@JsonProperty("bytesUploaded") long bytesUploaded,
+                   @JsonProperty("bytesDownloaded") long bytesDownloaded,
+                   @JsonProperty("uploadMBps") double uploadMBps,
+                   @JsonProperty("downloadMBps") double downloadMBps,
+                   @JsonProperty("uploadMBpsPerThread") double uploadMBpsPerThread,
+                   @JsonProperty("downloadMBpsPerThread") double downloadMBpsPerThread) {
+        this.bytesUploaded = bytesUploaded;
+        this.bytesDownloaded = bytesDownloaded;
+        this.uploadMBps = uploadMBps;
+        this.downloadMBps = downloadMBps;
+        this.uploadMBpsPerThread = uploadMBpsPerThread;
+        this.downloadMBpsPerThread = downloadMBpsPerThread;
+    }
+
+    /**
+     * @param results       results of all threads
+     * @param durationNanos length of the measurement window in ns
+     * @return bytes transferred by all threads and the bandwidth over the measurement window
+     */
+    static TransferResult compute(List<OperationResult> results, long durationNanos) {
+        long bytesUploaded = results.stream().mapToLong(OperationResult::getBytesUploaded).sum();
+        long bytesDownloaded = results.stream().mapToLong(OperationResult::getBytesDownloaded).sum();
+        double seconds = durationNanos / 1_000_000_000.0;
+        double uploadMBps = bytesUploaded / BYTES_PER_MB / seconds;
+        double downloadMBps = bytesDownloaded / BYTES_PER_MB / seconds;
+        int threads = Math.max(results.size(), 1);
+
+        return new TransferResult(bytesUploaded, bytesDownloaded, uploadMBps, downloadMBps,
+                uploadMBps / threads, downloadMBps / threads);
+    }
+
+    /**
+     * Sum up the transfers of several workers, which ran at the same time.
+     *
+     * @param transfers transfers of all workers
+     * @param threads   number of threads of all workers
+     * @return transfer of all workers
+     */
+    static TransferResult sum(List<TransferResult> transfers, int threads) {
+        long bytesUploaded = 0;
+        long bytesDownloaded = 0;
+        double uploadMBps = 0;
+        double downloadMBps = 0;
+        for (TransferResult transfer : transfers) {
+            bytesUploaded += transfer.bytesUploaded;
+            bytesDownloaded += transfer.bytesDownloaded;
+            uploadMBps += transfer.uploadMBps;
+            downloadMBps += transfer.downloadMBps;
+        }
+        threads = Math.max(threads, 1);
+
+        return new TransferResult(bytesUploaded, bytesDownloaded, uploadMBps, downloadMBps,
+                uploadMBps / threads, downloadMBps / threads);
+    }
+
+    public long getBytesUploaded() {
+        return bytesUploaded;
+    }
+
+    public long getBytesDownloaded() {
+        return bytesDownloaded;
+    }
+
+    public double getUploadMBps() {
+        return uploadMBps;
+    }
+
+    public double getDownloadMBps() {
+        return downloadMBps;
+    }
+
+    public double getUploadMBpsPerThread() {
+        return uploadMBpsPerThread;
+    }
+
+    public double getDownloadMBpsPerThread() {
+        return downloadMBpsPerThread;
+    }
+
+}
@@ -0,0 +1,390 @@
+package de.jeha.s3pt;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.math3.distribution.TDistribution;
+import org.apache.commons.math3.stat.StatUtils;
+import org.apache.commons.math3.stat.inference.TTest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Result of {@link TrialRunner}: mean and confidence interval of each metric over the trials and, if a baseline is
+ * given, a verdict whether the metrics regressed significantly compared to the baseline.
+ *
+ * @author jenshadlich@googlemail.com
+ */
+class TrialResult {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TrialResult.class);
+
+    /**
+     * Metrics which are compared over trials.
+     */
+    enum Metric {
+        OPS("ops", true, TestResult::getOps),
+        AVG("avg", false, TestResult::getAvg),
+        P50("p50", false, TestResult::getP50),
+        P95("p95", false, TestResult::getP95),
+        P99("p99", false, TestResult::getP99),
+        ERROR_RATE("errorRate", false, r -> r.getErrors() != null ? r.getErrors().getRate() : 0);
+
+        private final String key;
+        private final boolean higherIsBetter;
+        private final ToDoubleFunction<TestResult> value;
+
+        Metric(String key, boolean higherIsBetter, ToDoubleFunction<TestResult> value) {
+            this.key = key;
+            this.higherIsBetter = higherIsBetter;
+            this.value = value;
+        }
+
+        String key() {
+            return key;
+        }
+    }
+
+    @JsonProperty
+    private final int trials;
+    @JsonProperty
+    private final double alpha;
+    @JsonProperty
+    private final Map<String, Summary> metrics;
+    @JsonProperty
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final Verdict verdict;
+
+    /**
+     * @param trials  number of successful trials
+     * @param alpha   significance level; confidence intervals are given at 1 - alpha
+     * @param metrics summary of each metric, see {@link Metric#key()}
+     * @param verdict comparison with a baseline, null if not compared
+     */
+    @JsonCreator
+    TrialResult(@JsonProperty("trials") int trials,
+                @JsonProperty("alpha") double alpha,
+                @JsonProperty("metrics") Map<String, Summary> metrics,
+                @JsonProperty("verdict") Verdict verdict) {
+        this.trials = trials;
+        this.alpha = alpha;
+        this.metrics = metrics;
+        this.verdict = verdict;
+    }
+
+    /**
+     * @param results results of all trials
+     * @param alpha   significance level; confidence intervals are given at 1 - alpha
+     * @return trial result
+     */
+    static TrialResult compute(List<TestResult> results, double alpha) {
+        Map<String, Summary> metrics = new LinkedHashMap<>();
+        for (Metric metric : Metric.values()) {
+            double[] values = results.stream().mapToDouble(metric.value).toArray();
+            metrics.put(metric.key, Summary.compute(values, alpha));
+        }
+        return new TrialResult(results.size(), alpha, metrics, null);
+    }
+
+    /**
+     * Compare the metrics with a baseline. A metric regressed if it is significantly worse than in the baseline: the
+     * one-sided p-value of Welch's t-test (or a one-sample t-test if the baseline is a single trial) in the direction
+     * of a regression is lower than alpha after the Holm-Bonferroni correction over all compared metrics, so the
+     * verdict fails with a probability of at most alpha if no metric regressed.
+     *
+     * @param baseline result of earlier trials
+     * @return trial result with verdict
+     */
+    TrialResult compareWith(TrialResult baseline) {
+        List<Metric> compared = new ArrayList<>();
+        Map<Metric, Double> pValues = new LinkedHashMap<>();
+        for (Metric metric : Metric.values()) {
+            Summary current = metrics.get(metric.key);
+            Summary base = baseline.metrics.get(metric.key);
+            if (current == null || base == null || base.values.length == 0) {
+                continue;
+            }
+            compared.add(metric);
+            final double pValue = pValue(base.values, current.values);
+            final boolean worse = metric.higherIsBetter ? current.mean < base.mean : current.mean > base.mean;
+            // the t distribution is symmetric, so the one-sided p-value is half the two-sided one
+            pValues.put(metric, worse ? pValue / 2 : 1 - pValue / 2);
+        }
+
+        final Map<Metric, Double> adjustedPValues = holm(pValues);
+        Map<String, Comparison> comparisons = new LinkedHashMap<>();
+        List<String> regressions = new ArrayList<>();
+        for (Metric metric : compared) {
+            final double adjustedPValue = adjustedPValues.get(metric);
+            final boolean regression = adjustedPValue < alpha;
+            comparisons.put(metric.key, new Comparison(baseline.metrics.get(metric.key).mean,
+                    metrics.get(metric.key).mean, pValues.get(metric), adjustedPValue, regression));
+            if (regression) {
+                regressions.add(metric.key);
+            }
+        }
+        return new TrialResult(trials, alpha, metrics, new Verdict(regressions.isEmpty(), regressions, comparisons));
+    }
+
+    /**
+     * Holm-Bonferroni adjusted p-values: the i-th smallest of m p-values is multiplied by m - i + 1 (i from 1), and
+     * the adjusted p-values are made monotone. A hypothesis is rejected at alpha if its adjusted p-value is lower.
+     *
+     * @param pValues p-values of all hypotheses
+     * @return adjusted p-values
+     */
+    static <K> Map<K, Double> holm(Map<K, Double> pValues) {
+        List<Map.Entry<K, Double>> sorted = new ArrayList<>(pValues.entrySet());
+        sorted.sort(Map.Entry.comparingByValue());
+        Map<K, Double> adjusted = new LinkedHashMap<>();
+        double max = 0;
+        for (int i = 0; i < sorted.size(); i++) {
+            max = Math.max(max, Math.min(1, (sorted.size() - i) * sorted.get(i).getValue()));
+            adjusted.put(sorted.get(i).getKey(), max);
+        }
+        return adjusted;
+    }
+
+    static double pValue(double[] baseline, double[] current) {
+        if (current.length < 2) {
+            return 1.0;
+        }
+        final double pValue = baseline.length < 2
+                ? new TTest().tTest(baseline[0], current)
+                : new TTest().tTest(baseline, current);
+        if (Double.isNaN(pValue)) {
+            // no variance at all: the difference is either certain or none
+            return StatUtils.mean(baseline) == StatUtils.mean(current) ? 1.0 : 0.0;
+        }
+        return pValue;
+    }
+
+    public int getTrials() {
+        return trials;
+    }
+
+    public Map<String, Summary> getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return comparison with the baseline, null if not compared
+     */
+    public Verdict getVerdict() {
+        return verdict;
+    }
+
+    /**
+     * @return false if a metric regressed significantly compared to the baseline
+     */
+    @JsonIgnore
+    public boolean isPassed() {
+        return verdict == null || verdict.passed;
+    }
+
+    /**
+     * Log mean and confidence interval of each metric and the verdict.
+     */
+    public void log() {
+        LOG.info("Trial summary ({} trials, {}% confidence):", trials, String.format("%.0f", (1 - alpha) * 100));
+        LOG.info("metric | mean | stddev | confidence interval");
+        metrics.forEach((key, summary) ->
+                LOG.info("{} | {} | {} | [{}, {}]", key, format(summary.mean), format(summary.stddev),
+                        format(summary.ciLow), format(summary.ciHigh)));
+        if (verdict != null) {
+            LOG.info("metric | baseline | current | change | p-value | adjusted p-value | regression");
+            verdict.comparisons.forEach((key, c) ->
+                    LOG.info("{} | {} | {} | {} % | {} | {} | {}", key, format(c.baseline), format(c.current),
+                            String.format("%+.2f", c.change * 100), String.format("%.4f", c.pValue),
+                            String.format("%.4f", c.adjustedPValue), c.regression));
+            if (verdict.passed) {
+                LOG.info("Verdict: PASS (no significant regression at alpha = {})", alpha);
+            } else {
+                LOG.warn("Verdict: FAIL (significant regression of {} at alpha = {})", verdict.regressions, alpha);
+            }
+        }
+    }
+
+    private static String format(double value) {
+        return String.format("%.4f", value);
+    }
+
+    /**
+     * Write the result to file as json.
+     *
+     * @param resultFileName name of the result file
+     * @throws IOException
+     */
+    public void writeToFileAsJson(String resultFileName) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.enable(SerializationFeature.INDENT_OUTPUT);
+        String resultJson = mapper.writeValueAsString(this);
+        FileUtils.writeStringToFile(new File(resultFileName), resultJson, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Read a result written by {@link #writeToFileAsJson(String)}, e.g. as baseline.
+     *
+     * @param fileName name of the result file
+     * @return trial result
+     * @throws IOException if the file cannot be read
+     */
+    static TrialResult readFromFile(String fileName) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        return mapper.readValue(new File(fileName), TrialResult.class);
+    }
+
+    /**
+     * Values of a metric over all trials with mean, standard deviation and confidence interval (Student's t).
+     */
+    static class Summary {
+
+        @JsonProperty
+        private final double[] values;
+        @JsonProperty
+        private final double mean;
+        @JsonProperty
+        private final double stddev;
+        @JsonProperty
+        private final double ciLow;
+        @JsonProperty
+        private final double ciHigh;
+
+        @JsonCreator
+        Summary(@JsonProperty("values") double[] values,
+                @JsonProperty("mean") double mean,
+                @JsonProperty("stddev") double stddev,
+                @JsonProperty("ciLow") double ciLow,
+                @JsonProperty("ciHigh") double ciHigh) {
+            this.values = values != null ? values : new double[0];
+            this.mean = mean;
+            this.stddev = stddev;
+            this.ciLow = ciLow;
+            this.ciHigh = ciHigh;
+        }
+
+        static Summary compute(double[] values, double alpha) {
+            final int n = values.length;
+            final double mean = n > 0 ? StatUtils.mean(values) : 0;
+            if (n < 2) {
+                return new Summary(values, mean, 0, mean, mean);
+            }
+            final double stddev = Math.sqrt(StatUtils.variance(values, mean));
+            final double t = new TDistribution(n - 1).inverseCumulativeProbability(1 - alpha / 2);
+            final double halfWidth = t * stddev / Math.sqrt(n);
+            return new Summary(values, mean, stddev, mean - halfWidth, mean + halfWidth);
+        }
+
+        public double[] getValues() {
+            return values;
+        }
+
+        public double getMean() {
+            return mean;
+        }
+
+        public double getStddev() {
+            return stddev;
+        }
+
+        public double getCiLow() {
+            return ciLow;
+        }
+
+        public double getCiHigh() {
+            return ciHigh;
+        }
+    }
+
+    /**
+     * Comparison of a metric with the baseline: the one-sided p-value of a regression and the p-value adjusted for the
+     * comparison of several metrics (Holm-Bonferroni).
+     */
+    static class Comparison {
+
+        @JsonProperty
+        private final double baseline;
+        @JsonProperty
+        private final double current;
+        @JsonProperty
+        private final double change;
+        @JsonProperty
+        private final double pValue;
+        @JsonProperty
+        private final double adjustedPValue;
+        @JsonProperty
+        private final boolean regression;
+
+        @JsonCreator
+        Comparison(@JsonProperty("baseline") double baseline,
+                   @JsonProperty("current") double current,
+                   @JsonProperty("pValue") double pValue,
+                   @JsonProperty("adjustedPValue") double adjustedPValue,
+                   @JsonProperty("regression") boolean regression) {
+            this.baseline = baseline;
+            this.current = current;
+            this.change = baseline != 0 ? (current - baseline) / baseline : 0;
+            this.pValue = pValue;
+            this.adjustedPValue = adjustedPValue;
+            this.regression = regression;
+        }
+
+        double pValue() {
+            return pValue;
+        }
+
+        double adjustedPValue() {
+            return adjustedPValue;
+        }
+
+        boolean isRegression() {
+            return regression;
+        }
+    }
+
+    /**
+     * Verdict of the comparison with the baseline.
+     */
+    static class Verdict {
+
+        @JsonProperty
+        private final boolean passed;
+        @JsonProperty
+        private final List<String> regressions;
+        @JsonProperty
+        private final Map<String, Comparison> comparisons;
+
+        @JsonCreator
+        Verdict(@JsonProperty("passed") boolean passed,
+                @JsonProperty("regressions") List<String> regressions,
+                @JsonProperty("comparisons") Map<String, Comparison> comparisons) {
+            this.passed = passed;
+            this.regressions = regressions;
+            this.comparisons = comparisons;
+        }
+
+        List<String> getRegressions() {
+            return regressions;
+        }
+
+        Map<String, Comparison> getComparisons() {
+            return comparisons;
+        }
+    }
+
+}
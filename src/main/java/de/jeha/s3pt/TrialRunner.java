@@ -0,0 +1,65 @@
+package de.jeha.s3pt;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Repeats a test a number of times (within one JVM, reusing the S3 clients) and summarizes each metric over the trials,
+ * so run-to-run noise can be told apart from real changes. If a baseline is given, the result is compared with it.
+ *
+ * @author jenshadlich@googlemail.com
+ */
+public class TrialRunner implements Callable<TrialResult> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TrialRunner.class);
+
+    private final S3PerformanceTest test;
+    private final int trials;
+    private final double alpha;
+    private final TrialResult baseline;
+
+    /**
+     * @param test     test to run in each trial
+     * @param trials   number of trials
+     * @param alpha    significance level of the confidence intervals and the comparison with the baseline
+     * @param baseline result of earlier trials to compare with, null if not set
+     */
+    public TrialRunner(S3PerformanceTest test, int trials, double alpha, TrialResult baseline) {
+        this.test = test;
+        this.trials = trials;
+        this.alpha = alpha;
+        this.baseline = baseline;
+    }
+
+    @Override
+    public TrialResult call() {
+        List<TestResult> results = new ArrayList<>();
+
+        for (int i = 0; i < trials; i++) {
+            LOG.info("Trial {} of {}", i + 1, trials);
+
+            TestResult testResult = test.run();
+            if (testResult == null) {
+                LOG.warn("Trial {} failed, skip", i + 1);
+                continue;
+            }
+            LOG.info("Trial {}: throughput = {} operations/s, avg = {} ms, p99 = {} ms",
+                    i + 1, (int) testResult.getOps(), testResult.getAvg(), testResult.getP99());
+            results.add(testResult);
+        }
+
+        test.close();
+
+        if (results.isEmpty()) {
+            LOG.error("All trials failed");
+            return null;
+        }
+        TrialResult trialResult = TrialResult.compute(results, alpha);
+        return baseline != null ? trialResult.compareWith(baseline) : trialResult;
+    }
+
+}
@@ -0,0 +1,203 @@
+package de.jeha.s3pt;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import de.jeha.s3pt.utils.LatencyHistograms;
+import org.HdrHistogram.Histogram;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Result of a worker of a distributed test. Contains the latency histograms instead of percentiles, so the coordinator
+ * can compute percentiles over all workers.
+ *
+ * @author jenshadlich@googlemail.com
+ */
+class WorkerReport {
+
+    @JsonProperty
+    private final double ops;
+    @JsonProperty
+    private final byte[] histogram;
+    @JsonProperty
+    private final Map<String, byte[]> histogramsByRequestType;
+    @JsonProperty
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private final Map<String, byte[]> histogramsByPhase;
+    @JsonProperty
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private final Map<String, byte[]> histogramsBySizeClass;
+    @JsonProperty
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private final Map<String, Long> bytesBySizeClass;
+    @JsonProperty
+    private final int threads;
+    @JsonProperty
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final TransferResult transfer;
+    @JsonProperty
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final byte[] failureHistogram;
+    @JsonProperty
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final ErrorResult errors;
+    @JsonProperty
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final CpuResult cpu;
+    @JsonProperty
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final String error;
+
+    /**
+     * @param ops                     throughput of the worker in operations/s
+     * @param histogram               encoded histogram of the latencies of all requests
+     * @param histogramsByRequestType encoded histograms of the latencies per request type
+     * @param histogramsByPhase       encoded histograms of the time per request phase
+     * @param histogramsBySizeClass   encoded histograms of the latencies per object size class
+     * @param bytesBySizeClass        bytes transferred per object size class
+     * @param threads                 number of threads of the worker
+     * @param transfer                bytes transferred by the worker and its throughput in MB/s
+     * @param failureHistogram        encoded histogram of the latencies of the failed requests
+     * @param errors                  failed requests of the worker
+     * @param cpu                     CPU time of the worker, null if not measured
+     * @param error                   error message if the worker failed, otherwise null
+     */
+    @JsonCreator
+    WorkerReport(@JsonProperty("ops") double ops,
+                 @JsonProperty("histogram") byte[] histogram,
+                 @JsonProperty("histogramsByRequestType") Map<String, byte[]> histogramsByRequestType,
+                 @JsonProperty("histogramsByPhase") Map<String, byte[]> histogramsByPhase,
+                 @JsonProperty("histogramsBySizeClass") Map<String, byte[]> histogramsBySizeClass,
+                 @JsonProperty("bytesBySizeClass") Map<String, Long> bytesBySizeClass,
+                 @JsonProperty("threads") int threads,
+                 @JsonProperty("transfer") TransferResult transfer,
+                 @JsonProperty("failureHistogram") byte[] failureHistogram,
+                 @JsonProperty("errors") ErrorResult errors,
+                 @JsonProperty("cpu") CpuResult cpu,
+                 @JsonProperty("error") String error) {
+        this.ops = ops;
+        this.histogram = histogram;
+        this.histogramsByRequestType = histogramsByRequestType;
+        this.histogramsByPhase = histogramsByPhase != null ? histogramsByPhase : Collections.emptyMap();
+        this.histogramsBySizeClass = histogramsBySizeClass != null ? histogramsBySizeClass : Collections.emptyMap();
+        this.bytesBySizeClass = bytesBySizeClass != null ? bytesBySizeClass : Collections.emptyMap();
+        this.threads = threads;
+        this.transfer = transfer;
+        this.failureHistogram = failureHistogram;
+        this.errors = errors;
+        this.cpu = cpu;
+        this.error = error;
+    }
+
+    /**
+     * Create the report of a successful test run.
+     *
+     * @param testResult test result of the worker
+     * @return worker report
+     */
+    static WorkerReport of(TestResult testResult) {
+        OperationResult merged = OperationResult.merge(testResult.getOperationResults());
+
+        return new WorkerReport(testResult.getOps(), LatencyHistograms.encode(merged.getHistogram()),
+                encode(merged.getHistogramsByRequestType()), encode(merged.getHistogramsByPhase()),
+                encode(merged.getHistogramsBySizeClass()), merged.getBytesBySizeClass(), testResult.getOperationResults().size(), testResult.getTransfer(),
+                LatencyHistograms.encode(merged.getErrors().getHistogram()), testResult.getErrors(), testResult.getCpu(),
+                null);
+    }
+
+    /**
+     * Create the report of a failed test run.
+     *
+     * @param error error message
+     * @return worker report
+     */
+    static WorkerReport failed(String error) {
+        return new WorkerReport(0, LatencyHistograms.encode(LatencyHistograms.create()), Collections.emptyMap(),
+                Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap(), 0, null, null, null, null,
+                error);
+    }
+
+    private static Map<String, byte[]> encode(Map<String, Histogram> histograms) {
+        Map<String, byte[]> encoded = new LinkedHashMap<>();
+        histograms.forEach((key, histogram) -> encoded.put(key, LatencyHistograms.encode(histogram)));
+        return encoded;
+    }
+
+    private static Map<String, Histogram> decode(Map<String, byte[]> encoded) {
+        Map<String, Histogram> histograms = new LinkedHashMap<>();
+        encoded.forEach((key, bytes) -> histograms.put(key, LatencyHistograms.decode(bytes)));
+        return histograms;
+    }
+
+    public double getOps() {
+        return ops;
+    }
+
+    public byte[] getHistogram() {
+        return histogram;
+    }
+
+    public Map<String, byte[]> getHistogramsByRequestType() {
+        return histogramsByRequestType;
+    }
+
+    public Map<String, byte[]> getHistogramsByPhase() {
+        return histogramsByPhase;
+    }
+
+    public Map<String, byte[]> getHistogramsBySizeClass() {
+        return histogramsBySizeClass;
+    }
+
+    public Map<String, Long> getBytesBySizeClass() {
+        return bytesBySizeClass;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public TransferResult getTransfer() {
+        return transfer;
+    }
+
+    public byte[] getFailureHistogram() {
+        return failureHistogram;
+    }
+
+    public ErrorResult getErrors() {
+        return errors;
+    }
+
+    public CpuResult getCpu() {
+        return cpu;
+    }
+
+    /**
+     * @return decoded histograms
+     */
+    @JsonIgnore
+    public OperationResult toOperationResult() {
+        OperationErrors operationErrors = (failureHistogram != null && errors != null)
+                ? new OperationErrors(LatencyHistograms.decode(failureHistogram),
+                new TreeMap<>(errors.getByStatus()), new TreeMap<>(errors.getByCode()),
+                new TreeMap<>(errors.getByRequestType()))
+                : new OperationErrors();
+        long bytesUploaded = transfer != null ? transfer.getBytesUploaded() : 0;
+        long bytesDownloaded = transfer != null ? transfer.getBytesDownloaded() : 0;
+
+        return new OperationResult(LatencyHistograms.decode(histogram), decode(histogramsByRequestType),
+                decode(histogramsByPhase), bytesUploaded, bytesDownloaded, operationErrors,
+                decode(histogramsBySizeClass), bytesBySizeClass);
+    }
+
+    public String getError() {
+        return error;
+    }
+
+}
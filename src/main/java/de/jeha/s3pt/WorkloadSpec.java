@@ -0,0 +1,48 @@
+package de.jeha.s3pt;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * Workload sent by the coordinator of a distributed test to each worker.
+ *
+ * @author jenshadlich@googlemail.com
+ */
+class WorkloadSpec {
+
+    @JsonProperty
+    private final List<String> arguments;
+    @JsonProperty
+    private final long startAt;
+    @JsonProperty
+    private final String token;
+
+    /**
+     * @param arguments command line arguments of the test
+     * @param startAt   wall clock time in ms since the epoch at which all workers start the test
+     * @param token     shared token of the workers
+     */
+    @JsonCreator
+    WorkloadSpec(@JsonProperty("arguments") List<String> arguments,
+                 @JsonProperty("startAt") long startAt,
+                 @JsonProperty("token") String token) {
+        this.arguments = arguments;
+        this.startAt = startAt;
+        this.token = token;
+    }
+
+    public List<String> getArguments() {
+        return arguments;
+    }
+
+    public long getStartAt() {
+        return startAt;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+}
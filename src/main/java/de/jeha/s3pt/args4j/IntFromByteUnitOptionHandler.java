@@ -27,6 +27,15 @@ public class IntFromByteUnitOptionHandler extends OneArgumentOptionHandler<Integ
 
     @Override
     protected Integer parse(String argument) throws IllegalArgumentException {
+        return parseBytes(argument);
+    }
+
+    /**
+     * @param argument number of bytes with an optional unit, e.g. "64K"; supported units: B, K, M
+     * @return number of bytes
+     * @throws IllegalArgumentException if the argument cannot be parsed
+     */
+    public static int parseBytes(String argument) {
         StringBuilder number = new StringBuilder();
         String unit = "B";
 
@@ -0,0 +1,29 @@
+package de.jeha.s3pt.jfr;
+
+/**
+ * Helpers for the flight recorder events.
+ *
+ * @author jenshadlich@googlemail.com
+ */
+public class FlightRecorderEvents {
+
+    private static final boolean SUPPORTED = isEventApiAvailable();
+
+    /**
+     * @return true if the JVM supports custom flight recorder events (Java 11 or 8u262 and higher)
+     */
+    public static boolean isSupported() {
+        return SUPPORTED;
+    }
+
+    // the event classes must not be loaded if the API is missing, so it is looked up at runtime
+    private static boolean isEventApiAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event", false, FlightRecorderEvents.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+}
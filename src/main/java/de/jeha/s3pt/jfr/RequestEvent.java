@@ -0,0 +1,57 @@
+package de.jeha.s3pt.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event of an S3 request. The event lasts from the actual start of the request until its response was
+ * received; the latency is measured from the intended start time, so it includes the time the request was delayed.
+ *
+ * @author jenshadlich@googlemail.com
+ */
+@Name("de.jeha.s3pt.Request")
+@Label("S3 Request")
+@Description("Request issued by a worker")
+@Category("S3 Performance Test")
+@StackTrace(false)
+public class RequestEvent extends jdk.jfr.Event {
+
+    @Label("Operation")
+    @Description("Operation or request type, e.g. GET")
+    String operation;
+
+    @Label("Key")
+    String key;
+
+    @Label("Bytes")
+    @Description("Bytes transferred in the request and response body")
+    @DataAmount
+    long bytes;
+
+    @Label("Status")
+    @Description("\"ok\" or the status of a failed request")
+    String status;
+
+    @Label("Latency")
+    @Description("Latency measured from the intended start time")
+    @Timespan(Timespan.MICROSECONDS)
+    long latency;
+
+    /**
+     * Set the fields and commit the event.
+     */
+    public void commit(String operation, String key, long bytes, String status, long latency) {
+        this.operation = operation;
+        this.key = key;
+        this.bytes = bytes;
+        this.status = status;
+        this.latency = latency;
+        commit();
+    }
+
+}
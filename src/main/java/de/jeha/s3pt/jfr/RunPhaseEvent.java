@@ -0,0 +1,35 @@
+package de.jeha.s3pt.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event of a phase of a run: warm-up, steady state or cool-down of a duration-based run, or the whole
+ * run otherwise.
+ *
+ * @author jenshadlich@googlemail.com
+ */
+@Name("de.jeha.s3pt.RunPhase")
+@Label("S3 Run Phase")
+@Description("Phase of a test run")
+@Category("S3 Performance Test")
+@StackTrace(false)
+public class RunPhaseEvent extends jdk.jfr.Event {
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Threads")
+    int threads;
+
+    @Label("Rate")
+    @Description("Target rate in operations/s, 0 for closed-loop")
+    double rate;
+
+}
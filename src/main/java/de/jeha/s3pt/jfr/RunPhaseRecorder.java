@@ -0,0 +1,94 @@
+package de.jeha.s3pt.jfr;
+
+import de.jeha.s3pt.operations.schedule.RunClock;
+
+import java.io.Closeable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Emits a {@link RunPhaseEvent} for each phase of a run. Phases of a duration-based run are switched by a background
+ * thread at the boundaries given by the {@link RunClock}; the last phase ends when the recorder is closed.
+ *
+ * @author jenshadlich@googlemail.com
+ */
+public class RunPhaseRecorder implements Closeable {
+
+    private final String operation;
+    private final int threads;
+    private final double rate;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "jfr-run-phases");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private RunPhaseEvent current = null;
+    private boolean closed = false;
+
+    /**
+     * @param operation name of the operation, e.g. RANDOM_READ
+     * @param threads   number of threads
+     * @param rate      target rate in operations/s, 0 for closed-loop
+     */
+    public RunPhaseRecorder(String operation, int threads, double rate) {
+        this.operation = operation;
+        this.threads = threads;
+        this.rate = rate;
+    }
+
+    /**
+     * Begin the first phase; call right after the run clock was started.
+     *
+     * @param runClock clock of a duration-based run, null if not set
+     */
+    public void start(RunClock runClock) {
+        if (runClock == null) {
+            begin("run");
+            return;
+        }
+        final long warmupNanos = runClock.getWarmupNanos();
+        final long steadyStateEndNanos = warmupNanos + runClock.getDurationNanos();
+        if (warmupNanos > 0) {
+            begin("warmup");
+            scheduler.schedule(() -> begin("steady state"), warmupNanos, TimeUnit.NANOSECONDS);
+        } else {
+            begin("steady state");
+        }
+        if (runClock.getCooldownNanos() > 0) {
+            scheduler.schedule(() -> begin("cooldown"), steadyStateEndNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * End the current phase.
+     */
+    @Override
+    public synchronized void close() {
+        scheduler.shutdownNow();
+        end();
+        closed = true;
+    }
+
+    private synchronized void begin(String phase) {
+        if (closed) {
+            return;
+        }
+        end();
+        current = new RunPhaseEvent();
+        current.phase = phase;
+        current.operation = operation;
+        current.threads = threads;
+        current.rate = rate;
+        current.begin();
+    }
+
+    private void end() {
+        if (current != null) {
+            current.commit();
+            current = null;
+        }
+    }
+
+}
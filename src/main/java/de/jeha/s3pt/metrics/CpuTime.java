@@ -0,0 +1,29 @@
+package de.jeha.s3pt.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+
+/**
+ * CPU time of the client process, e.g. to compare the client-side cost of checksums. Covers all threads of the process
+ * (including the event loops of the non-blocking S3 client and the garbage collector).
+ *
+ * @author jenshadlich@googlemail.com
+ */
+public class CpuTime {
+
+    private static final OperatingSystemMXBean OS = ManagementFactory.getOperatingSystemMXBean();
+
+    private CpuTime() {
+    }
+
+    /**
+     * @return CPU time of the process in ns, -1 if not supported by the JVM
+     */
+    public static long processNanos() {
+        if (OS instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) OS).getProcessCpuTime();
+        }
+        return -1;
+    }
+
+}
@@ -0,0 +1,96 @@
+package de.jeha.s3pt.metrics;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import de.jeha.s3pt.utils.CorruptPayloadException;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.exception.SdkServiceException;
+
+import java.util.concurrent.CompletionException;
+
+/**
+ * Classification of a failed request by HTTP status and error code, e.g. 503 and "SlowDown". Requests which failed
+ * without a response (e.g. a timeout) have the status "client" and the name of the exception as error code. Requests
+ * whose response body failed the verification have the status "corrupt", see {@link CorruptPayloadException}.
+ *
+ * @author jenshadlich@googlemail.com
+ */
+public final class RequestError {
+
+    public static final String CLIENT = "client";
+    public static final String CORRUPT = "corrupt";
+
+    private final String status;
+    private final String code;
+
+    RequestError(String status, String code) {
+        this.status = status;
+        this.code = code;
+    }
+
+    /**
+     * Classify an exception of one of the S3 clients.
+     *
+     * @param t exception thrown by a request (or the exception a future was completed with)
+     * @return classification or null if the exception is not an exception of the S3 clients (e.g. a bug)
+     */
+    public static RequestError of(Throwable t) {
+        if (t instanceof CompletionException && t.getCause() != null) {
+            t = t.getCause();
+        }
+
+        if (t instanceof CorruptPayloadException) {
+            return new RequestError(CORRUPT, ((CorruptPayloadException) t).getCode());
+        }
+        if (t instanceof AmazonServiceException) {
+            AmazonServiceException e = (AmazonServiceException) t;
+            return new RequestError(String.valueOf(e.getStatusCode()), orUnknown(e.getErrorCode()));
+        }
+        if (t instanceof AmazonClientException) {
+            return new RequestError(CLIENT, nameOf(t));
+        }
+
+        if (t instanceof AwsServiceException && ((AwsServiceException) t).awsErrorDetails() != null) {
+            AwsServiceException e = (AwsServiceException) t;
+            return new RequestError(String.valueOf(e.statusCode()), orUnknown(e.awsErrorDetails().errorCode()));
+        }
+        if (t instanceof SdkServiceException) {
+            return new RequestError(String.valueOf(((SdkServiceException) t).statusCode()), "Unknown");
+        }
+        if (t instanceof SdkException) {
+            return new RequestError(CLIENT, nameOf(t));
+        }
+
+        return null;
+    }
+
+    private static String orUnknown(String errorCode) {
+        return errorCode != null ? errorCode : "Unknown";
+    }
+
+    private static String nameOf(Throwable t) {
+        // the cause tells more than the exception of the client, e.g. SocketTimeoutException
+        return (t.getCause() != null ? t.getCause() : t).getClass().getSimpleName();
+    }
+
+    /**
+     * @return HTTP status, e.g. "503", {@link #CLIENT} or {@link #CORRUPT}
+     */
+    public String getStatus() {
+        return status;
+    }
+
+    /**
+     * @return error code, e.g. "SlowDown"
+     */
+    public String getCode() {
+        return code;
+    }
+
+    @Override
+    public String toString() {
+        return status + " " + code;
+    }
+
+}
@@ -0,0 +1,44 @@
+package de.jeha.s3pt.metrics;
+
+import java.util.Locale;
+
+/**
+ * Phases of a request.
+ *
+ * @author jenshadlich@googlemail.com
+ */
+public enum RequestPhase {
+
+    /**
+     * Resolve the host name of the endpoint.
+     */
+    DNS,
+    /**
+     * Obtain a connection: wait for a pooled connection or connect (TCP and TLS handshake), excluding DNS.
+     */
+    CONNECT,
+    /**
+     * Sign the request.
+     */
+    SIGNING,
+    /**
+     * Send the request headers and body.
+     */
+    SEND,
+    /**
+     * Wait for the response headers after the request was sent (time to first byte).
+     */
+    TTFB,
+    /**
+     * Transfer the response body (and process it, e.g. compute a digest) after the SDK returned.
+     */
+    BODY;
+
+    /**
+     * @return name used in results, e.g. "ttfb"
+     */
+    public String key() {
+        return name().toLowerCase(Locale.ENGLISH);
+    }
+
+}
@@ -0,0 +1,53 @@
+package de.jeha.s3pt.metrics;
+
+import com.amazonaws.Request;
+import com.amazonaws.Response;
+import com.amazonaws.metrics.RequestMetricCollector;
+import com.amazonaws.util.AWSRequestMetrics;
+import com.amazonaws.util.TimingInfo;
+
+import java.util.List;
+
+/**
+ * Takes the phase timings of each request from the request metrics of the SDK. The blocking client collects the
+ * metrics on the thread which executed the request, so they are added to {@link RequestPhaseTimer#current()}.
+ *
+ * @author jenshadlich@googlemail.com
+ */
+public class RequestPhaseCollector extends RequestMetricCollector {
+
+    @Override
+    public void collectMetrics(Request<?> request, Response<?> response) {
+        final TimingInfo timingInfo = request.getAWSRequestMetrics().getTimingInfo();
+        final RequestPhaseTimer timer = RequestPhaseTimer.current();
+
+        // all attempts of a request (retries) are summed up
+        final long signing = sum(timingInfo, AWSRequestMetrics.Field.RequestSigningTime);
+        final long send = sum(timingInfo, AWSRequestMetrics.Field.HttpClientSendRequestTime);
+        final long ttfb = sum(timingInfo, AWSRequestMetrics.Field.HttpClientReceiveResponseTime);
+        final long http = sum(timingInfo, AWSRequestMetrics.Field.HttpRequestTime);
+
+        timer.add(RequestPhase.SIGNING, signing);
+        timer.add(RequestPhase.SEND, send);
+        timer.add(RequestPhase.TTFB, ttfb);
+        // what remains of the HTTP request is spent to obtain a connection (the DNS phase is taken by the resolver)
+        timer.add(RequestPhase.CONNECT, Math.max(0, http - send - ttfb - timer.takeUnassignedDns()));
+        timer.clientExecuteEnded(System.nanoTime());
+    }
+
+    private static long sum(TimingInfo timingInfo, AWSRequestMetrics.Field field) {
+        List<TimingInfo> measurements = timingInfo.getAllSubMeasurements(field.name());
+        if (measurements == null) {
+            return 0;
+        }
+        double millis = 0;
+        for (TimingInfo measurement : measurements) {
+            Double timeTaken = measurement.getTimeTakenMillisIfKnown();
+            if (timeTaken != null) {
+                millis += timeTaken;
+            }
+        }
+        return (long) (millis * 1_000);
+    }
+
+}
@@ -0,0 +1,78 @@
+package de.jeha.s3pt.metrics;
+
+import java.util.Arrays;
+
+/**
+ * Collects the phase timings of the requests which the blocking S3 client executes on the current thread, until the
+ * operation takes them after the request has completed.
+ *
+ * @author jenshadlich@googlemail.com
+ */
+public class RequestPhaseTimer {
+
+    private static final ThreadLocal<RequestPhaseTimer> CURRENT = ThreadLocal.withInitial(RequestPhaseTimer::new);
+
+    private final long[] micros = new long[RequestPhase.values().length];
+    private long clientExecuteEndNanos = 0;
+    private long unassignedDnsMicros = 0;
+
+    private RequestPhaseTimer() {
+    }
+
+    /**
+     * @return timer of the current thread
+     */
+    public static RequestPhaseTimer current() {
+        return CURRENT.get();
+    }
+
+    void add(RequestPhase phase, long phaseMicros) {
+        micros[phase.ordinal()] += phaseMicros;
+    }
+
+    void dnsResolved(long dnsMicros) {
+        micros[RequestPhase.DNS.ordinal()] += dnsMicros;
+        unassignedDnsMicros += dnsMicros;
+    }
+
+    /**
+     * @return time spent resolving host names since the last call, i.e. of the request which just completed
+     */
+    long takeUnassignedDns() {
+        final long dnsMicros = unassignedDnsMicros;
+        unassignedDnsMicros = 0;
+        return dnsMicros;
+    }
+
+    void clientExecuteEnded(long nanoTime) {
+        clientExecuteEndNanos = nanoTime;
+    }
+
+    /**
+     * Discard the timings collected so far, e.g. of requests issued to prepare an operation.
+     */
+    public void reset() {
+        Arrays.fill(micros, 0);
+        clientExecuteEndNanos = 0;
+        unassignedDnsMicros = 0;
+    }
+
+    /**
+     * Take the timings of all requests since the last reset; the body phase lasts from the end of the last request
+     * until the given response time.
+     *
+     * @param responseNanos time the operation received the complete response (as given by {@link System#nanoTime()})
+     * @param target        array of the timings in µs, indexed by {@link RequestPhase#ordinal()}
+     * @return true if at least one request was timed
+     */
+    public boolean take(long responseNanos, long[] target) {
+        if (clientExecuteEndNanos == 0) {
+            return false;
+        }
+        add(RequestPhase.BODY, Math.max(0, (responseNanos - clientExecuteEndNanos) / 1_000));
+        System.arraycopy(micros, 0, target, 0, micros.length);
+        reset();
+        return true;
+    }
+
+}
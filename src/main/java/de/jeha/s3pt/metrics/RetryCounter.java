@@ -0,0 +1,92 @@
+package de.jeha.s3pt.metrics;
+
+import com.amazonaws.retry.PredefinedRetryPolicies;
+import com.amazonaws.retry.RetryPolicy;
+import de.jeha.s3pt.operations.schedule.RunClock;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the retries of the S3 clients. Retries are done by the clients internally, so they are not visible to the
+ * operations: a request which succeeds after a retry is recorded as success (with the latency of all attempts). The
+ * counter is wired into the backoff strategies, which are consulted once per retry.
+ *
+ * @author jenshadlich@googlemail.com
+ */
+public class RetryCounter {
+
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder totalRetries = new LongAdder();
+
+    private volatile RunClock runClock = null;
+
+    /**
+     * Reset the counter at the start of a run.
+     *
+     * @param runClock clock of a duration-based run (only retries in the steady state are counted), null if not set
+     */
+    public void reset(RunClock runClock) {
+        this.runClock = runClock;
+        retries.reset();
+    }
+
+    /**
+     * @return number of retries since the last reset
+     */
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    /**
+     * @return number of retries of all runs (regardless of the phase)
+     */
+    public long getTotalRetries() {
+        return totalRetries.sum();
+    }
+
+    private void record() {
+        totalRetries.increment();
+        final RunClock clock = runClock;
+        if (clock == null || clock.isSteadyState(System.nanoTime())) {
+            retries.increment();
+        }
+    }
+
+    /**
+     * @return default retry policy of the blocking S3 client, which counts its retries
+     */
+    public RetryPolicy retryPolicy() {
+        final RetryPolicy.BackoffStrategy backoffStrategy = PredefinedRetryPolicies.DEFAULT_BACKOFF_STRATEGY;
+        return new RetryPolicy(
+                PredefinedRetryPolicies.DEFAULT_RETRY_CONDITION,
+                (request, exception, retriesAttempted) -> {
+                    record();
+                    return backoffStrategy.delayBeforeNextRetry(request, exception, retriesAttempted);
+                },
+                PredefinedRetryPolicies.DEFAULT_MAX_ERROR_RETRY,
+                true);
+    }
+
+    /**
+     * @return default retry policy of the non-blocking S3 client, which counts its retries
+     */
+    public software.amazon.awssdk.core.retry.RetryPolicy asyncRetryPolicy() {
+        final software.amazon.awssdk.core.retry.RetryPolicy retryPolicy =
+                software.amazon.awssdk.core.retry.RetryPolicy.defaultRetryPolicy();
+        final software.amazon.awssdk.core.retry.backoff.BackoffStrategy backoffStrategy =
+                retryPolicy.backoffStrategy();
+        final software.amazon.awssdk.core.retry.backoff.BackoffStrategy throttlingBackoffStrategy =
+                retryPolicy.throttlingBackoffStrategy();
+        return retryPolicy.toBuilder()
+                .backoffStrategy(context -> {
+                    record();
+                    return backoffStrategy.computeDelayBeforeNextRetry(context);
+                })
+                .throttlingBackoffStrategy(context -> {
+                    record();
+                    return throttlingBackoffStrategy.computeDelayBeforeNextRetry(context);
+                })
+                .build();
+    }
+
+}
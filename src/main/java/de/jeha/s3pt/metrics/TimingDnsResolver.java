@@ -0,0 +1,29 @@
+package de.jeha.s3pt.metrics;
+
+import com.amazonaws.DnsResolver;
+import com.amazonaws.SystemDefaultDnsResolver;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * Resolves host names like the default resolver of the SDK and adds the time to the {@link RequestPhase#DNS} phase of
+ * the current request.
+ *
+ * @author jenshadlich@googlemail.com
+ */
+public class TimingDnsResolver implements DnsResolver {
+
+    private final DnsResolver delegate = new SystemDefaultDnsResolver();
+
+    @Override
+    public InetAddress[] resolve(String host) throws UnknownHostException {
+        final long start = System.nanoTime();
+        try {
+            return delegate.resolve(host);
+        } finally {
+            RequestPhaseTimer.current().dnsResolved((System.nanoTime() - start) / 1_000);
+        }
+    }
+
+}
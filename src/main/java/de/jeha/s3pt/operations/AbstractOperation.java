@@ -1,19 +1,593 @@
 package de.jeha.s3pt.operations;
 
+import de.jeha.s3pt.OperationErrors;
 import de.jeha.s3pt.OperationResult;
-import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
+import de.jeha.s3pt.jfr.RequestEvent;
+import de.jeha.s3pt.metrics.RequestError;
+import de.jeha.s3pt.metrics.RequestPhase;
+import de.jeha.s3pt.metrics.RequestPhaseTimer;
+import de.jeha.s3pt.operations.schedule.ClosedLoopSchedule;
+import de.jeha.s3pt.operations.schedule.RequestSchedule;
+import de.jeha.s3pt.operations.schedule.RunClock;
+import de.jeha.s3pt.operations.schedule.StartGate;
+import de.jeha.s3pt.operations.size.SizeClasses;
+import de.jeha.s3pt.report.IntervalRecorder;
+import de.jeha.s3pt.report.LiveMetrics;
+import de.jeha.s3pt.report.RequestSeries;
+import de.jeha.s3pt.trace.TraceBuffer;
+import de.jeha.s3pt.utils.Checksum;
+import de.jeha.s3pt.utils.LatencyHistograms;
+import de.jeha.s3pt.utils.ObjectContent;
+import de.jeha.s3pt.utils.PayloadVerifier;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author jenshadlich@googlemail.com
  */
 public abstract class AbstractOperation implements Callable<OperationResult> {
 
-    private final DescriptiveStatistics stats = new DescriptiveStatistics();
+    private static final Logger LOG = LoggerFactory.getLogger(AbstractOperation.class);
 
-    protected DescriptiveStatistics getStats() {
-        return stats;
+    /**
+     * Key of the time spent verifying response bodies in the histograms by phase.
+     */
+    public static final String VERIFY_PHASE = "verify";
+
+    private final Histogram histogram = LatencyHistograms.create();
+    private final Map<String, Histogram> histogramsByRequestType = new TreeMap<>();
+    private final Map<String, Histogram> histogramsByPhase = new LinkedHashMap<>();
+    private final long[] phaseMicros = new long[RequestPhase.values().length];
+    private final OperationErrors errors = new OperationErrors();
+    private final Map<String, Histogram> histogramsBySizeClass = new TreeMap<>(SizeClasses.ORDER);
+    private final Map<String, Long> bytesBySizeClass = new TreeMap<>(SizeClasses.ORDER);
+
+    private RequestSchedule requestSchedule = new ClosedLoopSchedule();
+    private RunClock runClock = null;
+    private StartGate startGate = null;
+    private boolean arrived = false;
+    private IntervalRecorder intervalRecorder = null;
+    private boolean recordPhases = false;
+    private Checksum checksum = Checksum.SDK;
+    private ObjectContent objectContent = null;
+    private PayloadVerifier verifier = null;
+
+    private LiveMetrics liveMetrics = null;
+    private String liveOperation;
+    private String liveThreadGroup;
+    private RequestSeries liveSeries;
+    private final Map<String, RequestSeries> liveSeriesByRequestType = new HashMap<>();
+    // keyed by request type (or operation) and status
+    private final Map<String, RequestSeries> liveFailureSeries = new HashMap<>();
+
+    private TraceBuffer traceBuffer = null;
+    private boolean recordEvents = false;
+    private RequestEvent requestEvent = null;
+    private String traceOperation;
+    private boolean tracePending = false;
+    private RequestEvent traceEvent;
+    private long traceStart;
+    private String traceRequestType;
+    private String traceStatus;
+    private String traceKey;
+    private long traceBytes;
+    private long traceLatency;
+
+    private boolean requested = false;
+    private long firstRequestNanos;
+    private long lastResponseNanos;
+    private long bytesUploaded;
+    private long bytesDownloaded;
+
+    /**
+     * @return histogram of the latencies in µs
+     */
+    protected Histogram getHistogram() {
+        return histogram;
+    }
+
+    protected Map<String, Histogram> getHistogramsByRequestType() {
+        return histogramsByRequestType;
+    }
+
+    /**
+     * @return result of the operation: the histograms, bytes and errors recorded so far
+     */
+    protected OperationResult getResult() {
+        commitTrace();
+        return new OperationResult(histogram, histogramsByRequestType, histogramsByPhase, bytesUploaded,
+                bytesDownloaded, errors, histogramsBySizeClass, bytesBySizeClass);
+    }
+
+    public void setRequestSchedule(RequestSchedule requestSchedule) {
+        this.requestSchedule = requestSchedule;
+    }
+
+    /**
+     * @param runClock shared clock of a duration-based run; if not set, the operation issues a fixed number of requests
+     */
+    public void setRunClock(RunClock runClock) {
+        this.runClock = runClock;
+    }
+
+    /**
+     * @param startGate gate shared by all workers of a run, passed (after the set-up) before the first request
+     */
+    public void setStartGate(StartGate startGate) {
+        this.startGate = startGate;
+    }
+
+    /**
+     * Arrive at the start gate if this operation has not arrived yet, e.g. because its set-up failed or it did not
+     * issue any requests, so the other workers do not wait for it.
+     */
+    public void leaveStartGate() {
+        if (!arrived) {
+            arrived = true;
+            if (startGate != null) {
+                startGate.arrive();
+            }
+        }
+    }
+
+    /**
+     * @param intervalRecorder recorder of the interval reporter, which receives all requests (regardless of the phase)
+     */
+    public void setIntervalRecorder(IntervalRecorder intervalRecorder) {
+        this.intervalRecorder = intervalRecorder;
+    }
+
+    /**
+     * @param liveMetrics live metrics, which receive all requests (regardless of the phase)
+     * @param operation   name of the operation, e.g. RANDOM_READ
+     * @param threadGroup thread group of the operation, e.g. "T8"
+     */
+    public void setLiveMetrics(LiveMetrics liveMetrics, String operation, String threadGroup) {
+        this.liveMetrics = liveMetrics;
+        this.liveOperation = operation;
+        this.liveThreadGroup = threadGroup;
+        this.liveSeries = liveMetrics.series(operation, "ok", threadGroup);
+    }
+
+    /**
+     * @param traceBuffer trace buffer of the operation, which receives all requests (regardless of the phase)
+     * @param operation   name of the operation, e.g. RANDOM_READ
+     */
+    public void setTraceBuffer(TraceBuffer traceBuffer, String operation) {
+        this.traceBuffer = traceBuffer;
+        this.traceOperation = operation;
+    }
+
+    /**
+     * @param recordEvents emit a flight recorder event for each request, see {@link RequestEvent}
+     * @param operation    name of the operation, e.g. RANDOM_READ
+     */
+    public void setRecordEvents(boolean recordEvents, String operation) {
+        this.recordEvents = recordEvents;
+        this.traceOperation = operation;
+    }
+
+    /**
+     * @param recordPhases record the phases of each request, see {@link RequestPhase}; requires a blocking S3 client
+     *                     with a {@link de.jeha.s3pt.metrics.RequestPhaseCollector}
+     */
+    public void setRecordPhases(boolean recordPhases) {
+        this.recordPhases = recordPhases;
+        if (recordPhases) {
+            for (RequestPhase phase : RequestPhase.values()) {
+                histogramsByPhase.putIfAbsent(phase.key(), LatencyHistograms.create());
+            }
+        }
+    }
+
+    /**
+     * @param checksum integrity checksum of uploads and downloads
+     */
+    public void setChecksum(Checksum checksum) {
+        this.checksum = checksum;
+    }
+
+    protected Checksum getChecksum() {
+        return checksum;
+    }
+
+    /**
+     * @param objectContent contents of the objects: uploads write the content derived from the key and reads verify
+     *                      their response bodies against it; the time spent verifying is excluded from the latencies
+     *                      and recorded as phase {@value #VERIFY_PHASE}
+     */
+    public void setObjectContent(ObjectContent objectContent) {
+        this.objectContent = objectContent;
+        this.verifier = objectContent.newVerifier();
+    }
+
+    /**
+     * @return contents of the objects, null if uploads write arbitrary data and reads are not verified
+     */
+    protected ObjectContent getObjectContent() {
+        return objectContent;
+    }
+
+    /**
+     * @return verifier of the response bodies of this operation, null if reads are not verified
+     */
+    protected PayloadVerifier getVerifier() {
+        return verifier;
+    }
+
+    /**
+     * @return true if at least one request was issued by {@link #awaitNextRequest()}
+     */
+    public boolean hasRequested() {
+        return requested;
+    }
+
+    /**
+     * @return intended start time of the first request (as given by {@link System#nanoTime()})
+     */
+    public long getFirstRequestNanos() {
+        return firstRequestNanos;
+    }
+
+    /**
+     * @return time of the last recorded response (as given by {@link System#nanoTime()})
+     */
+    public long getLastResponseNanos() {
+        return lastResponseNanos;
+    }
+
+    /**
+     * @param i number of requests issued so far
+     * @param n number of requests to issue (if not duration-based)
+     * @return true if another request should be issued
+     */
+    protected boolean hasNextRequest(int i, int n) {
+        if (!arrived) {
+            arrived = true;
+            if (startGate != null) {
+                try {
+                    startGate.arriveAndAwait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return runClock == null
+                ? i < n
+                : runClock.isRunning(System.nanoTime());
+    }
+
+    /**
+     * @return true if the requests are issued on a timetable (open-loop), see {@link RequestSchedule#isOpenLoop()}
+     */
+    protected boolean isOpenLoop() {
+        return requestSchedule.isOpenLoop();
+    }
+
+    /**
+     * Wait until the next request is due according to the request schedule.
+     *
+     * @return intended start time of the request (as given by {@link System#nanoTime()})
+     */
+    protected long awaitNextRequest() {
+        final long intendedStart = requestSchedule.awaitNext();
+        if (recordPhases) {
+            RequestPhaseTimer.current().reset();
+        }
+        if (recordEvents) {
+            requestEvent = new RequestEvent();
+            requestEvent.begin();
+        }
+        if (!requested) {
+            requested = true;
+            firstRequestNanos = intendedStart;
+        }
+        return intendedStart;
+    }
+
+    /**
+     * Record the latency of a request, measured from its intended start time. In a duration-based run only requests
+     * which were due in the steady state phase are recorded.
+     *
+     * @param intendedStart intended start time of the request, see {@link #awaitNextRequest()}
+     * @return latency in µs
+     */
+    protected long recordLatency(long intendedStart) {
+        return recordLatencyUntil(intendedStart, System.nanoTime());
+    }
+
+    /**
+     * Record the latency of a request which ended at the given time, see {@link #recordLatency(long)}. Operations
+     * whose completions compete for a lock take the end time before the lock, so the wait is not part of the latency.
+     *
+     * @param intendedStart intended start time of the request, see {@link #awaitNextRequest()}
+     * @param endNanos      end of the request (as given by {@link System#nanoTime()})
+     * @return latency in µs
+     */
+    protected long recordLatencyUntil(long intendedStart, long endNanos) {
+        final long latency = measureLatency(intendedStart, endNanos);
+        trace(intendedStart, traceOperation, "ok", latency);
+        if (liveMetrics != null) {
+            liveSeries.record(latency);
+        }
+        if (runClock == null || runClock.isSteadyState(intendedStart)) {
+            histogram.recordValue(latency);
+            recordPhases();
+        }
+        return latency;
+    }
+
+    /**
+     * Record the latency of a request like {@link #recordLatency(long)}, additionally in the histogram of the given
+     * request type.
+     *
+     * @param intendedStart intended start time of the request, see {@link #awaitNextRequest()}
+     * @param requestType   type of the request, e.g. GET
+     * @return latency in µs
+     */
+    protected long recordLatency(long intendedStart, String requestType) {
+        final long latency = measureLatency(intendedStart, System.nanoTime());
+        trace(intendedStart, requestType, "ok", latency);
+        if (liveMetrics != null) {
+            RequestSeries series = liveSeriesByRequestType.get(requestType);
+            if (series == null) {
+                series = liveMetrics.series(requestType, "ok", liveThreadGroup);
+                liveSeriesByRequestType.put(requestType, series);
+            }
+            series.record(latency);
+        }
+        if (runClock == null || runClock.isSteadyState(intendedStart)) {
+            histogram.recordValue(latency);
+            histogramsByRequestType.computeIfAbsent(requestType, k -> LatencyHistograms.create()).recordValue(latency);
+            recordPhases();
+        }
+        return latency;
+    }
+
+    /**
+     * Count the bytes transferred by a request. Like latencies, in a duration-based run only requests which were due
+     * in the steady state phase are counted.
+     *
+     * @param intendedStart   intended start time of the request, see {@link #awaitNextRequest()}
+     * @param bytesUploaded   bytes sent in the request body
+     * @param bytesDownloaded bytes received in the response body
+     */
+    protected void recordBytes(long intendedStart, long bytesUploaded, long bytesDownloaded) {
+        if (liveMetrics != null) {
+            liveMetrics.recordBytes(bytesUploaded, bytesDownloaded);
+        }
+        if (tracePending) {
+            traceBytes += bytesUploaded + bytesDownloaded;
+        }
+        if (runClock == null || runClock.isSteadyState(intendedStart)) {
+            this.bytesUploaded += bytesUploaded;
+            this.bytesDownloaded += bytesDownloaded;
+        }
+    }
+
+    /**
+     * Record the latency and the bytes of a successful request in its object size class, see {@link SizeClasses}.
+     * Operations only call this for a workload with mixed object sizes. Like latencies, in a duration-based run only
+     * requests which were due in the steady state phase are recorded.
+     *
+     * @param intendedStart intended start time of the request, see {@link #awaitNextRequest()}
+     * @param size          object size in bytes
+     * @param latency       latency in µs, see {@link #recordLatency(long)}
+     */
+    protected void recordSize(long intendedStart, long size, long latency) {
+        if (runClock == null || runClock.isSteadyState(intendedStart)) {
+            final String sizeClass = SizeClasses.of(size);
+            histogramsBySizeClass.computeIfAbsent(sizeClass, k -> LatencyHistograms.create()).recordValue(latency);
+            bytesBySizeClass.merge(sizeClass, size, Long::sum);
+        }
+    }
+
+    private long measureLatency(long intendedStart, long endNanos) {
+        final long end = endOfRequest(intendedStart, endNanos);
+        // completions may be recorded out of order if their end time was taken before a lock
+        lastResponseNanos = Math.max(lastResponseNanos, end);
+        final long latency = TimeUnit.NANOSECONDS.toMicros(end - intendedStart);
+        if (intervalRecorder != null) {
+            intervalRecorder.recordLatency(latency);
+        }
+        return latency;
+    }
+
+    /**
+     * @param intendedStart intended start time of the request, see {@link #awaitNextRequest()}
+     * @param now           time the request ended
+     * @return end of the request, excluding the time spent verifying its response body (which is recorded as phase)
+     */
+    private long endOfRequest(long intendedStart, long now) {
+        final long verifyNanos = verifier != null ? verifier.takeNanos() : -1;
+        if (verifyNanos < 0) {
+            return now;
+        }
+        if (runClock == null || runClock.isSteadyState(intendedStart)) {
+            histogramsByPhase.computeIfAbsent(VERIFY_PHASE, k -> LatencyHistograms.create())
+                    .recordValue(TimeUnit.NANOSECONDS.toMicros(verifyNanos));
+        }
+        return now - verifyNanos;
+    }
+
+    private void recordPhases() {
+        if (recordPhases && RequestPhaseTimer.current().take(lastResponseNanos, phaseMicros)) {
+            for (RequestPhase phase : RequestPhase.values()) {
+                histogramsByPhase.get(phase.key()).recordValue(phaseMicros[phase.ordinal()]);
+            }
+        }
+    }
+
+    /**
+     * Record a failed request. Its latency is kept apart from the latencies of successful requests and it is counted by
+     * HTTP status and error code. Like latencies, in a duration-based run only requests which were due in the steady
+     * state phase are recorded.
+     *
+     * @param intendedStart intended start time of the request, see {@link #awaitNextRequest()}
+     * @param error         classification of the failure
+     * @return latency in µs
+     */
+    protected long recordFailure(long intendedStart, RequestError error) {
+        return recordFailure(intendedStart, null, error, System.nanoTime());
+    }
+
+    /**
+     * Record a failed request like {@link #recordFailure(long, RequestError)}, labeled with the given request type (in
+     * the trace and the live metrics) and additionally counted per request type, like
+     * {@link #recordLatency(long, String)} does for successful requests.
+     *
+     * @param intendedStart intended start time of the request, see {@link #awaitNextRequest()}
+     * @param requestType   request type, e.g. GET
+     * @param error         classification of the failure
+     * @return latency in µs
+     */
+    protected long recordFailure(long intendedStart, String requestType, RequestError error) {
+        return recordFailure(intendedStart, requestType, error, System.nanoTime());
+    }
+
+    /**
+     * Record a failed request which ended at the given time, see {@link #recordFailure(long, RequestError)} and
+     * {@link #recordLatencyUntil(long, long)}.
+     *
+     * @param intendedStart intended start time of the request, see {@link #awaitNextRequest()}
+     * @param error         classification of the failure
+     * @param endNanos      end of the request (as given by {@link System#nanoTime()})
+     * @return latency in µs
+     */
+    protected long recordFailureUntil(long intendedStart, RequestError error, long endNanos) {
+        return recordFailure(intendedStart, null, error, endNanos);
+    }
+
+    private long recordFailure(long intendedStart, String requestType, RequestError error, long endNanos) {
+        final long end = endOfRequest(intendedStart, endNanos);
+        // completions may be recorded out of order if their end time was taken before a lock
+        lastResponseNanos = Math.max(lastResponseNanos, end);
+        final long latency = TimeUnit.NANOSECONDS.toMicros(end - intendedStart);
+        LOG.debug("Request failed: {}, time = {} µs", error, latency);
+        recordError();
+        trace(intendedStart, requestType != null ? requestType : traceOperation, error.getStatus(), latency);
+        if (liveMetrics != null) {
+            final String operation = requestType != null ? requestType : liveOperation;
+            final String seriesKey = operation + ' ' + error.getStatus();
+            RequestSeries series = liveFailureSeries.get(seriesKey);
+            if (series == null) {
+                series = liveMetrics.series(operation, error.getStatus(), liveThreadGroup);
+                liveFailureSeries.put(seriesKey, series);
+            }
+            series.record(latency);
+        }
+        if (runClock == null || runClock.isSteadyState(intendedStart)) {
+            errors.record(requestType, error, latency);
+        }
+        if (recordPhases) {
+            RequestPhaseTimer.current().reset();
+        }
+        return latency;
+    }
+
+    /**
+     * Set the key of the next request for the trace. The previous request is written to the trace first.
+     *
+     * @param key object key, may be null
+     */
+    protected void traceKey(String key) {
+        traceRequest(key, requestEvent);
+        requestEvent = null;
+    }
+
+    /**
+     * Set key and flight recorder event of the next request for the trace, see {@link #traceKey(String)}. Operations
+     * with several requests in flight take the event after {@link #awaitNextRequest()}.
+     *
+     * @param key   object key, may be null
+     * @param event event begun by {@link #awaitNextRequest()}, see {@link #takeRequestEvent()}
+     */
+    protected void traceRequest(String key, RequestEvent event) {
+        if (traceBuffer != null || recordEvents) {
+            commitTrace();
+            traceKey = key;
+            traceEvent = event;
+        }
+    }
+
+    /**
+     * @return flight recorder event begun by the last {@link #awaitNextRequest()}, null if events are not recorded
+     */
+    protected RequestEvent takeRequestEvent() {
+        final RequestEvent event = requestEvent;
+        requestEvent = null;
+        return event;
+    }
+
+    private void trace(long intendedStart, String requestType, String status, long latency) {
+        if (traceBuffer != null || recordEvents) {
+            if (tracePending) {
+                commitTrace();
+            }
+            tracePending = true;
+            traceStart = intendedStart;
+            traceRequestType = requestType;
+            traceStatus = status;
+            traceBytes = 0;
+            traceLatency = latency;
+            if (traceEvent != null) {
+                traceEvent.end();
+            }
+        }
+    }
+
+    /**
+     * Write the last recorded request to the trace and commit its flight recorder event. Requests are written with a
+     * delay, so the bytes counted after the latency are included: when the next request begins (see
+     * {@link #traceKey(String)}) or the result is taken.
+     */
+    protected void commitTrace() {
+        if (tracePending) {
+            if (traceBuffer != null) {
+                traceBuffer.add(traceStart, traceRequestType, traceStatus, traceKey, traceBytes, traceLatency);
+            }
+            if (traceEvent != null) {
+                traceEvent.commit(traceRequestType, traceKey, traceBytes, traceStatus, traceLatency);
+            }
+            tracePending = false;
+            traceKey = null;
+            traceEvent = null;
+        }
+    }
+
+    /**
+     * Count a failed request (for the interval reporter).
+     */
+    protected void recordError() {
+        if (intervalRecorder != null) {
+            intervalRecorder.recordError();
+        }
+    }
+
+    /**
+     * Log the progress every 1000 requests.
+     *
+     * @param log logger of the operation
+     * @param i   number of requests issued so far
+     * @param n   number of requests to issue (if not duration-based)
+     */
+    protected void logProgress(Logger log, int i, int n) {
+        if (i > 0 && i % 1000 == 0) {
+            if (runClock == null) {
+                log.info("Progress: {} of {}", i, n);
+            } else {
+                log.info("Progress: {}", i);
+            }
+        }
     }
 
 }
@@ -4,7 +4,7 @@ import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.model.ObjectListing;
 import com.amazonaws.services.s3.model.S3ObjectSummary;
 import de.jeha.s3pt.OperationResult;
-import org.apache.commons.lang3.time.StopWatch;
+import de.jeha.s3pt.utils.WorkerExecutors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.util.concurrent.*;
@@ -22,6 +22,7 @@ public class ClearBucket extends AbstractOperation {
     private final String bucket;
     private final int n;
     private final int threads;
+    private final boolean useVirtualThreads;
 
     public class DeleteObject extends AbstractOperation {
         private final AmazonS3 s3client;
@@ -37,24 +38,26 @@ public class ClearBucket extends AbstractOperation {
         }
 
         public OperationResult call() throws Exception {
-            StopWatch stopWatch = new StopWatch();
-            stopWatch.start();
+            final long start = System.nanoTime();
 
             s3client.deleteObject(bucket, key);
 
-            stopWatch.stop();
-
-            LOG.debug("Time = {} ms", stopWatch.getTime());
-            operationResult.getStats().addValue(stopWatch.getTime());
+            final long latency = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+            LOG.debug("Time = {} µs", latency);
+            // the result is shared by all delete tasks
+            synchronized (operationResult) {
+                operationResult.getHistogram().recordValue(latency);
+            }
             return operationResult;
         }
     }
 
-    public ClearBucket(AmazonS3 s3Client, String bucket, int n, int threads) {
+    public ClearBucket(AmazonS3 s3Client, String bucket, int n, int threads, boolean useVirtualThreads) {
         this.s3Client = s3Client;
         this.bucket = bucket;
         this.n = n;
         this.threads = threads;
+        this.useVirtualThreads = useVirtualThreads;
     }
 
     @Override
@@ -73,15 +76,12 @@ public class ClearBucket extends AbstractOperation {
             for (S3ObjectSummary objectSummary : objectListing.getObjectSummaries()) {
                 LOG.debug("Delete object: {}, #deleted {}", objectSummary.getKey(), deleted);
 
-                StopWatch stopWatch = new StopWatch();
-                stopWatch.start();
+                final long start = System.nanoTime();
 
                 s3Client.deleteObject(bucket, objectSummary.getKey());
 
-                stopWatch.stop();
-
-                LOG.debug("Time = {} ms", stopWatch.getTime());
-                getStats().addValue(stopWatch.getTime());
+                final long latency = recordLatency(start);
+                LOG.debug("Time = {} µs", latency);
 
                 deleted++;
                 if (deleted >= n) {
@@ -95,12 +95,12 @@ public class ClearBucket extends AbstractOperation {
 
         LOG.info("Object deleted: {}", deleted);
 
-        return new OperationResult(getStats());
+        return getResult();
     }
 
     public OperationResult callParallel() throws Exception {
-        OperationResult oResult = new OperationResult(getStats());
-        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        OperationResult oResult = getResult();
+        ExecutorService executorService = WorkerExecutors.create(threads, useVirtualThreads);
 
         List<Callable<OperationResult>> operations = new ArrayList<>();
 
@@ -142,7 +142,7 @@ public class ClearBucket extends AbstractOperation {
         }
 
         executorService.shutdown();
-        return new OperationResult(getStats());
+        return getResult();
 
     }
 }
@@ -2,7 +2,6 @@ package de.jeha.s3pt.operations;
 
 import com.amazonaws.services.s3.AmazonS3;
 import de.jeha.s3pt.OperationResult;
-import org.apache.commons.lang3.time.StopWatch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -25,16 +24,13 @@ public class CreateBucket extends AbstractOperation {
     public OperationResult call() throws Exception {
         LOG.info("Create bucket");
 
-        StopWatch stopWatch = new StopWatch();
-        stopWatch.start();
+        final long start = System.nanoTime();
 
         s3Client.createBucket(bucket);
 
-        stopWatch.stop();
+        final long latency = recordLatency(start);
+        LOG.debug("Time = {} µs", latency);
 
-        LOG.debug("Time = {} ms", stopWatch.getTime());
-        getStats().addValue(stopWatch.getTime());
-
-        return new OperationResult(getStats());
+        return getResult();
     }
 }
@@ -5,12 +5,12 @@ import com.amazonaws.services.s3.model.ObjectListing;
 import com.amazonaws.services.s3.model.S3ObjectSummary;
 import de.jeha.s3pt.OperationResult;
 import org.apache.commons.io.FileUtils;
-import org.apache.commons.lang3.time.StopWatch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author jenshadlich@googlemail.com
@@ -36,8 +36,7 @@ public class CreateKeyFile extends AbstractOperation {
         LOG.info("Create key file: n={}", n);
         LOG.info("Start collecting object keys");
 
-        StopWatch stopWatch = new StopWatch();
-        stopWatch.start();
+        final long start = System.nanoTime();
 
         int objectsRead = 0;
 
@@ -68,12 +67,11 @@ public class CreateKeyFile extends AbstractOperation {
 
         } while (truncated && objectsRead < n);
 
-        stopWatch.stop();
-        getStats().addValue(stopWatch.getTime());
+        final long latency = recordLatency(start);
 
-        LOG.info("Time = {} ms", stopWatch.getTime());
+        LOG.info("Time = {} ms", TimeUnit.MICROSECONDS.toMillis(latency));
 
-        return new OperationResult(getStats());
+        return getResult();
     }
 
 }
@@ -0,0 +1,177 @@
+package de.jeha.s3pt.operations;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import de.jeha.s3pt.OperationResult;
+import de.jeha.s3pt.metrics.RequestError;
+import de.jeha.s3pt.operations.data.ObjectKeys;
+import de.jeha.s3pt.operations.data.S3ObjectKeysDataProvider;
+import de.jeha.s3pt.operations.data.SingletonFileObjectKeysDataProvider;
+import de.jeha.s3pt.operations.size.SizeDistribution;
+import de.jeha.s3pt.utils.PayloadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Issues a weighted mix of GET, HEAD, PUT, DELETE and LIST requests. GET and HEAD read random existing objects, DELETE
+ * removes objects uploaded by the same thread before (or uploads one if there is none yet), so reads never hit deleted
+ * objects. A thread remembers its last {@link #MAX_UPLOADED_KEYS} uploaded keys; older objects are not deleted.
+ *
+ * @author jenshadlich@googlemail.com
+ */
+public class MixedWorkload extends AbstractOperation {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MixedWorkload.class);
+
+    /**
+     * Maximum number of uploaded keys a thread remembers for its DELETE requests.
+     */
+    public static final int MAX_UPLOADED_KEYS = 10_000;
+
+    private final AmazonS3 s3Client;
+    private final String bucket;
+    private final int n;
+    private final SizeDistribution sizes;
+    private final PayloadPool payload;
+    private final String keyFileName;
+    private final OperationMix mix;
+    private final byte[] buffer;
+    private final int maxUploadedKeys;
+
+    private long deletesAsPuts = 0;
+
+    public MixedWorkload(AmazonS3 s3Client, String bucket, int n, SizeDistribution sizes,
+                         PayloadPool payload, String keyFileName, OperationMix mix, boolean fullBody) {
+        this(s3Client, bucket, n, sizes, payload, keyFileName, mix, fullBody, MAX_UPLOADED_KEYS);
+    }
+
+    /**
+     * @param maxUploadedKeys maximum number of uploaded keys remembered for DELETE requests
+     */
+    MixedWorkload(AmazonS3 s3Client, String bucket, int n, SizeDistribution sizes, PayloadPool payload,
+                  String keyFileName, OperationMix mix, boolean fullBody, int maxUploadedKeys) {
+        this.s3Client = s3Client;
+        this.bucket = bucket;
+        this.n = n;
+        this.sizes = sizes;
+        this.payload = payload;
+        this.keyFileName = keyFileName;
+        this.mix = mix;
+        this.buffer = fullBody ? RandomRead.createBuffer() : null;
+        this.maxUploadedKeys = maxUploadedKeys;
+    }
+
+    @Override
+    public OperationResult call() {
+        LOG.info("Mixed: n={}, size={}, mix={}", n, sizes, mix);
+
+        ObjectKeys objectKeys = null;
+        if (mix.contains(OperationMix.RequestType.GET) || mix.contains(OperationMix.RequestType.HEAD)) {
+            if (keyFileName == null) {
+                objectKeys = new S3ObjectKeysDataProvider(s3Client, bucket).get();
+            } else {
+                objectKeys = new SingletonFileObjectKeysDataProvider(keyFileName).get();
+            }
+        }
+
+        final Random random = ThreadLocalRandom.current();
+        final UploadedKeys uploadedKeys = new UploadedKeys(maxUploadedKeys);
+        final PutObjectRequestFactory requests =
+                new PutObjectRequestFactory(payload, getObjectContent(), getChecksum());
+
+        for (int i = 0; hasNextRequest(i, n); i++) {
+            OperationMix.RequestType requestType = mix.next(random);
+            if (requestType == OperationMix.RequestType.DELETE && uploadedKeys.isEmpty()) {
+                LOG.debug("No uploaded object left to delete, issue PUT instead of DELETE");
+                requestType = OperationMix.RequestType.PUT;
+                deletesAsPuts++;
+            }
+
+            final String key;
+            switch (requestType) {
+                case GET:
+                case HEAD:
+                    key = objectKeys.getRandom();
+                    break;
+                case PUT:
+                    key = UUID.randomUUID().toString();
+                    break;
+                case DELETE:
+                    key = uploadedKeys.poll();
+                    break;
+                default:
+                    key = null;
+            }
+            LOG.debug("{} object: {}", requestType, key);
+
+            final int size = (requestType == OperationMix.RequestType.PUT) ? sizes.next(random) : 0;
+            final PutObjectRequest putObjectRequest = (requestType == OperationMix.RequestType.PUT)
+                    ? requests.create(bucket, key, size, random)
+                    : null;
+
+            long bytesUploaded = 0;
+            long bytesDownloaded = 0;
+
+            final long intendedStart = awaitNextRequest();
+            traceKey(key);
+
+            try {
+                switch (requestType) {
+                    case GET:
+                        bytesDownloaded = RandomRead.read(s3Client, bucket, key, buffer, getVerifier(),
+                                getChecksum());
+                        break;
+                    case HEAD:
+                        RandomReadMetadata.readMetadata(s3Client, bucket, key);
+                        break;
+                    case PUT:
+                        s3Client.putObject(putObjectRequest);
+                        uploadedKeys.add(key);
+                        bytesUploaded = size;
+                        break;
+                    case DELETE:
+                        s3Client.deleteObject(bucket, key);
+                        break;
+                    case LIST:
+                        s3Client.listObjects(new ListObjectsRequest().withBucketName(bucket).withMaxKeys(1000));
+                        break;
+                }
+
+                final long latency = recordLatency(intendedStart, requestType.name());
+                recordBytes(intendedStart, bytesUploaded, bytesDownloaded);
+                if (requestType == OperationMix.RequestType.PUT && !sizes.isFixed()) {
+                    recordSize(intendedStart, size, latency);
+                }
+                LOG.debug("Time = {} µs", latency);
+            } catch (AmazonClientException e) {
+                recordFailure(intendedStart, requestType.name(), RequestError.of(e));
+            }
+
+            logProgress(LOG, i, n);
+        }
+
+        if (deletesAsPuts > 0) {
+            LOG.warn("{} DELETE requests were issued as PUT, no uploaded object was left to delete", deletesAsPuts);
+        }
+        if (uploadedKeys.getDropped() > 0) {
+            LOG.info("{} uploaded objects were not remembered for DELETE requests (limit = {})",
+                    uploadedKeys.getDropped(), maxUploadedKeys);
+        }
+
+        return getResult();
+    }
+
+    /**
+     * @return number of DELETE requests which were issued as PUT because no uploaded object was left to delete
+     */
+    public long getDeletesAsPuts() {
+        return deletesAsPuts;
+    }
+
+}
@@ -0,0 +1,98 @@
+package de.jeha.s3pt.operations;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Weighted mix of request types, e.g. "GET=70,HEAD=15,PUT=10,DELETE=5".
+ *
+ * @author jenshadlich@googlemail.com
+ */
+public class OperationMix {
+
+    public enum RequestType {
+        GET,
+        HEAD,
+        PUT,
+        DELETE,
+        LIST
+    }
+
+    private final Map<RequestType, Integer> weights;
+    private final RequestType[] requestTypes;
+    private final int[] cumulativeWeights;
+    private final int totalWeight;
+
+    private OperationMix(Map<RequestType, Integer> weights) {
+        this.weights = weights;
+        this.requestTypes = new RequestType[weights.size()];
+        this.cumulativeWeights = new int[weights.size()];
+
+        int i = 0;
+        int sum = 0;
+        for (Map.Entry<RequestType, Integer> entry : weights.entrySet()) {
+            sum += entry.getValue();
+            requestTypes[i] = entry.getKey();
+            cumulativeWeights[i] = sum;
+            i++;
+        }
+        this.totalWeight = sum;
+    }
+
+    /**
+     * @param mix comma separated list of request type and weight, e.g. "GET=70,HEAD=15,PUT=10,DELETE=5"
+     * @return operation mix
+     * @throws IllegalArgumentException if the mix cannot be parsed
+     */
+    public static OperationMix parse(String mix) {
+        Map<RequestType, Integer> weights = new EnumMap<>(RequestType.class);
+
+        for (String part : StringUtils.split(mix, ",")) {
+            String[] typeAndWeight = StringUtils.split(part.trim(), "=", 2);
+            if (typeAndWeight.length != 2) {
+                throw new IllegalArgumentException("Invalid mix entry '" + part + "', expected <type>=<weight>");
+            }
+            final RequestType requestType = RequestType.valueOf(typeAndWeight[0].trim().toUpperCase());
+            final int weight = Integer.parseInt(typeAndWeight[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Weight of " + requestType + " must not be negative");
+            }
+            if (weight > 0) {
+                weights.put(requestType, weight);
+            }
+        }
+
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("Mix must contain at least one request type with a weight > 0");
+        }
+
+        return new OperationMix(weights);
+    }
+
+    /**
+     * @param random random number generator
+     * @return randomly chosen request type, according to the weights
+     */
+    public RequestType next(Random random) {
+        final int r = random.nextInt(totalWeight);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (r < cumulativeWeights[i]) {
+                return requestTypes[i];
+            }
+        }
+        throw new IllegalStateException("unreachable");
+    }
+
+    public boolean contains(RequestType requestType) {
+        return weights.containsKey(requestType);
+    }
+
+    @Override
+    public String toString() {
+        return weights.toString();
+    }
+
+}
@@ -0,0 +1,88 @@
+package de.jeha.s3pt.operations;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import de.jeha.s3pt.utils.Checksum;
+import de.jeha.s3pt.utils.ObjectContent;
+import de.jeha.s3pt.utils.PayloadInputStream;
+import de.jeha.s3pt.utils.PayloadPool;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+/**
+ * Creates the upload requests of a thread: the data is taken from the payload pool (or is the verifiable content of
+ * the key, see {@link ObjectContent}) and the checksum of the given mode is computed before the request is sent, see
+ * {@link Checksum}. Not thread-safe, each thread needs its own factory.
+ *
+ * @author jenshadlich@googlemail.com
+ */
+class PutObjectRequestFactory {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final PayloadPool payload;
+    private final PayloadInputStream data;
+    private final ObjectContent content;
+    private final Checksum checksum;
+    private final byte[] buffer;
+
+    /**
+     * @param payload  pool of the upload data
+     * @param content  contents of the objects or null if arbitrary data is uploaded
+     * @param checksum checksum mode
+     */
+    PutObjectRequestFactory(PayloadPool payload, ObjectContent content, Checksum checksum) {
+        this.payload = payload;
+        this.data = payload.newStream();
+        this.content = content;
+        this.checksum = checksum;
+        this.buffer = checksum.header() != null || (checksum == Checksum.MD5 && content != null)
+                ? new byte[BUFFER_SIZE]
+                : null;
+    }
+
+    /**
+     * @param bucket name of bucket
+     * @param key    object key
+     * @param size   object size
+     * @param random random number generator
+     * @return request to upload an object of the given size
+     */
+    PutObjectRequest create(String bucket, String key, int size, Random random) {
+        final InputStream body;
+        final int variant = checksum == Checksum.MD5 && content == null ? random.nextInt(PayloadPool.VARIANTS) : -1;
+        if (content != null) {
+            body = content.newStream(key, size);
+        } else if (variant >= 0) {
+            body = data.next(size, variant);
+        } else {
+            body = data.next(size, random);
+        }
+
+        PutObjectRequest request = Upload.createPutObjectRequest(bucket, key, size, body);
+        if (variant >= 0) {
+            request.getMetadata().setContentMD5(payload.contentMd5(size, variant));
+        } else if (checksum == Checksum.MD5) {
+            request.getMetadata().setContentMD5(compute(content.newStream(key, size)));
+        } else if (checksum.header() != null) {
+            request.getMetadata().setHeader(checksum.header(), compute(body));
+            try {
+                body.reset();
+            } catch (IOException e) {
+                throw new AmazonClientException("Unable to reset upload data of key: " + key, e);
+            }
+        }
+        return request;
+    }
+
+    private String compute(InputStream in) {
+        try {
+            return checksum.compute(in, buffer);
+        } catch (IOException e) {
+            throw new AmazonClientException("Unable to compute " + checksum + " of upload data", e);
+        }
+    }
+
+}
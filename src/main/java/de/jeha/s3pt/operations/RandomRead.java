@@ -1,16 +1,23 @@
 package de.jeha.s3pt.operations;
 
+import com.amazonaws.AmazonClientException;
 import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GetObjectRequest;
 import com.amazonaws.services.s3.model.S3Object;
 import de.jeha.s3pt.OperationResult;
+import de.jeha.s3pt.metrics.RequestError;
 import de.jeha.s3pt.operations.data.ObjectKeys;
 import de.jeha.s3pt.operations.data.S3ObjectKeysDataProvider;
 import de.jeha.s3pt.operations.data.SingletonFileObjectKeysDataProvider;
-import org.apache.commons.lang3.time.StopWatch;
+import de.jeha.s3pt.utils.Checksum;
+import de.jeha.s3pt.utils.CorruptPayloadException;
+import de.jeha.s3pt.utils.PayloadVerifier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.checksums.SdkChecksum;
 
 import java.io.IOException;
+import java.io.InputStream;
 
 /**
  * @author jenshadlich@googlemail.com
@@ -18,22 +25,33 @@ import java.io.IOException;
 public class RandomRead extends AbstractOperation {
 
     private static final Logger LOG = LoggerFactory.getLogger(RandomRead.class);
+    private static final int BUFFER_SIZE = 64 * 1024;
 
     private final AmazonS3 s3Client;
     private final String bucket;
     private final int n;
     private final String keyFileName;
-
-    public RandomRead(AmazonS3 s3Client, String bucket, int n, String keyFileName) {
+    private final byte[] buffer;
+
+    /**
+     * @param s3Client    S3 client
+     * @param bucket      name of bucket
+     * @param n           number of operations
+     * @param keyFileName name of file with object keys
+     * @param fullBody    read the complete response body of each object (required to verify the objects, see
+     *                    {@link #setObjectContent(de.jeha.s3pt.utils.ObjectContent)})
+     */
+    public RandomRead(AmazonS3 s3Client, String bucket, int n, String keyFileName, boolean fullBody) {
         this.s3Client = s3Client;
         this.bucket = bucket;
         this.n = n;
         this.keyFileName = keyFileName;
+        this.buffer = fullBody ? createBuffer() : null;
     }
 
     @Override
     public OperationResult call() {
-        LOG.info("Random read: n={}", n);
+        LOG.info("Random read: n={}, fullBody={}, verify={}", n, buffer != null, getVerifier() != null);
 
         final ObjectKeys objectKeys;
         if (keyFileName == null) {
@@ -41,33 +59,103 @@ public class RandomRead extends AbstractOperation {
         } else {
             objectKeys = new SingletonFileObjectKeysDataProvider(keyFileName).get();
         }
-        StopWatch stopWatch = new StopWatch();
 
-        for (int i = 0; i < n; i++) {
+        for (int i = 0; hasNextRequest(i, n); i++) {
             final String randomKey = objectKeys.getRandom();
             LOG.debug("Read object: {}", randomKey);
 
-            stopWatch.reset();
-            stopWatch.start();
+            final long intendedStart = awaitNextRequest();
+            traceKey(randomKey);
 
-            S3Object object = s3Client.getObject(bucket, randomKey);
             try {
-                object.close();
-            } catch (IOException e) {
-                LOG.warn("An exception occurred while trying to close object with key: {}", randomKey);
+                final long bytesRead = read(s3Client, bucket, randomKey, buffer, getVerifier(), getChecksum());
+
+                final long latency = recordLatency(intendedStart);
+                recordBytes(intendedStart, 0, bytesRead);
+                LOG.debug("Time = {} µs", latency);
+            } catch (AmazonClientException e) {
+                recordFailure(intendedStart, RequestError.of(e));
             }
 
-            stopWatch.stop();
+            logProgress(LOG, i, n);
+        }
+
+        return getResult();
+    }
 
-            LOG.debug("Time = {} ms", stopWatch.getTime());
-            getStats().addValue(stopWatch.getTime());
+    /**
+     * @return buffer to read response bodies into, see
+     * {@link #read(AmazonS3, String, String, byte[], PayloadVerifier, Checksum)}
+     */
+    static byte[] createBuffer() {
+        return new byte[BUFFER_SIZE];
+    }
 
-            if (i > 0 && i % 1000 == 0) {
-                LOG.info("Progress: {} of {}", i, n);
+    /**
+     * Read an object.
+     *
+     * @param s3Client S3 client
+     * @param bucket   name of bucket
+     * @param key      object key
+     * @param buffer   buffer the response body is read into (and overwritten, so it can be reused for all requests) or
+     *                 null if the response body should not be consumed
+     * @param verifier verifier of the response body (requires a buffer) or null if the body should not be verified
+     * @param checksum checksum mode; with CRC32C and SHA256 the checksum of the object is requested and the response
+     *                 body is validated against it (requires a buffer)
+     * @return number of bytes of the response body read
+     * @throws CorruptPayloadException if the response body fails the verification or its checksum does not match
+     */
+    static long read(AmazonS3 s3Client, String bucket, String key, byte[] buffer, PayloadVerifier verifier,
+                     Checksum checksum) {
+        GetObjectRequest getObjectRequest = new GetObjectRequest(bucket, key);
+        if (checksum.header() != null) {
+            getObjectRequest.putCustomRequestHeader(Checksum.CHECKSUM_MODE_HEADER, "ENABLED");
+        }
+        S3Object object = s3Client.getObject(getObjectRequest);
+        long bytesRead = 0;
+        try {
+            if (buffer != null) {
+                if (verifier != null) {
+                    verifier.start(key);
+                }
+                final String expectedChecksum = checksum.header() != null
+                        ? (String) object.getObjectMetadata().getRawMetadataValue(checksum.header())
+                        : null;
+                // checksums of multipart uploads are checksums of the part checksums, e.g. "...==-3"
+                final SdkChecksum actualChecksum = expectedChecksum != null && !expectedChecksum.contains("-")
+                        ? checksum.newChecksum()
+                        : null;
+                try {
+                    InputStream in = object.getObjectContent();
+                    int read;
+                    while ((read = in.read(buffer)) != -1) {
+                        if (verifier != null) {
+                            verifier.update(buffer, 0, read);
+                        }
+                        if (actualChecksum != null) {
+                            actualChecksum.update(buffer, 0, read);
+                        }
+                        bytesRead += read;
+                    }
+                } catch (IOException e) {
+                    throw new AmazonClientException("Unable to read object with key: " + key, e);
+                }
+                if (verifier != null) {
+                    verifier.finish(object.getObjectMetadata().getContentLength());
+                }
+                if (actualChecksum != null && !expectedChecksum.equals(Checksum.encode(actualChecksum))) {
+                    throw new CorruptPayloadException(CorruptPayloadException.CHECKSUM_MISMATCH,
+                            "Unexpected " + checksum + " of object with key: " + key);
+                }
+            }
+        } finally {
+            try {
+                object.close();
+            } catch (IOException e) {
+                LOG.warn("An exception occurred while trying to close object with key: {}", key);
             }
         }
-
-        return new OperationResult(getStats());
+        return bytesRead;
     }
 
 }
@@ -1,12 +1,13 @@
 package de.jeha.s3pt.operations;
 
+import com.amazonaws.AmazonClientException;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.model.ObjectMetadata;
 import de.jeha.s3pt.OperationResult;
+import de.jeha.s3pt.metrics.RequestError;
 import de.jeha.s3pt.operations.data.ObjectKeys;
 import de.jeha.s3pt.operations.data.S3ObjectKeysDataProvider;
 import de.jeha.s3pt.operations.data.SingletonFileObjectKeysDataProvider;
-import org.apache.commons.lang3.time.StopWatch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,29 +41,38 @@ public class RandomReadMetadata extends AbstractOperation {
             objectKeys = new SingletonFileObjectKeysDataProvider(keyFileName).get();
         }
 
-        StopWatch stopWatch = new StopWatch();
-
-        for (int i = 0; i < n; i++) {
+        for (int i = 0; hasNextRequest(i, n); i++) {
             final String randomKey = objectKeys.getRandom();
             LOG.debug("Read object: {}", randomKey);
 
-            stopWatch.reset();
-            stopWatch.start();
-
-            ObjectMetadata objectMetadata = s3Client.getObjectMetadata(bucket, randomKey);
-            LOG.debug("Object version: {}", objectMetadata.getVersionId());
-
-            stopWatch.stop();
+            final long intendedStart = awaitNextRequest();
+            traceKey(randomKey);
 
-            LOG.debug("Time = {} ms", stopWatch.getTime());
-            getStats().addValue(stopWatch.getTime());
+            try {
+                readMetadata(s3Client, bucket, randomKey);
 
-            if (i > 0 && i % 1000 == 0) {
-                LOG.info("Progress: {} of {}", i, n);
+                final long latency = recordLatency(intendedStart);
+                LOG.debug("Time = {} µs", latency);
+            } catch (AmazonClientException e) {
+                recordFailure(intendedStart, RequestError.of(e));
             }
+
+            logProgress(LOG, i, n);
         }
 
-        return new OperationResult(getStats());
+        return getResult();
+    }
+
+    /**
+     * Read the metadata of an object.
+     *
+     * @param s3Client S3 client
+     * @param bucket   name of bucket
+     * @param key      object key
+     */
+    static void readMetadata(AmazonS3 s3Client, String bucket, String key) {
+        ObjectMetadata objectMetadata = s3Client.getObjectMetadata(bucket, key);
+        LOG.debug("Object version: {}", objectMetadata.getVersionId());
     }
 
 }
@@ -1,17 +1,23 @@
 package de.jeha.s3pt.operations;
 
+import com.amazonaws.AmazonClientException;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.PutObjectRequest;
 import de.jeha.s3pt.OperationResult;
+import de.jeha.s3pt.metrics.RequestError;
+import de.jeha.s3pt.operations.size.SizeDistribution;
 import de.jeha.s3pt.operations.util.RandomDataGenerator;
-import de.jeha.s3pt.utils.RandomGeneratedInputStream;
-import org.apache.commons.lang3.time.StopWatch;
+import de.jeha.s3pt.utils.ObjectContent;
+import de.jeha.s3pt.utils.PayloadPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Random;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * @author jenshadlich@googlemail.com
@@ -23,45 +29,67 @@ public class Upload extends AbstractOperation {
     private final AmazonS3 s3Client;
     private final String bucket;
     private final int n;
-    private final int size;
+    private final SizeDistribution sizes;
+    private final PayloadPool payload;
 
-    public Upload(AmazonS3 s3Client, String bucket, int n, int size) {
+    public Upload(AmazonS3 s3Client, String bucket, int n, SizeDistribution sizes, PayloadPool payload) {
         this.s3Client = s3Client;
         this.bucket = bucket;
         this.n = n;
-        this.size = size;
+        this.sizes = sizes;
+        this.payload = payload;
     }
 
     @Override
     public OperationResult call() {
-        LOG.info("Upload: n={}, size={} byte", n, size);
+        final ObjectContent content = getObjectContent();
+        LOG.info("Upload: n={}, size={}, data={}", n, sizes, content != null ? content : payload);
 
-        for (int i = 0; i < n; i++) {
+        final Random random = ThreadLocalRandom.current();
+        final PutObjectRequestFactory requests = new PutObjectRequestFactory(payload, content, getChecksum());
+
+        for (int i = 0; hasNextRequest(i, n); i++) {
             //final byte data[] = RandomDataGenerator.generate(size);
             final String key = UUID.randomUUID().toString();
-            LOG.debug("Uploading object: {}", key);
-
-            final ObjectMetadata objectMetadata = new ObjectMetadata();
-            objectMetadata.setContentLength(size);
-
-            PutObjectRequest putObjectRequest =
-                    new PutObjectRequest(bucket, key, new RandomGeneratedInputStream(size, 4096), objectMetadata);
-
-            StopWatch stopWatch = new StopWatch();
-            stopWatch.start();
+            final int size = sizes.next(random);
+            LOG.debug("Uploading object: {}, size = {} byte", key, size);
 
-            s3Client.putObject(putObjectRequest);
+            PutObjectRequest putObjectRequest = requests.create(bucket, key, size, random);
 
-            stopWatch.stop();
+            final long intendedStart = awaitNextRequest();
+            traceKey(key);
 
-            LOG.debug("Time = {} ms", stopWatch.getTime());
-            getStats().addValue(stopWatch.getTime());
+            try {
+                s3Client.putObject(putObjectRequest);
 
-            if (i > 0 && i % 1000 == 0) {
-                LOG.info("Progress: {} of {}", i, n);
+                final long latency = recordLatency(intendedStart);
+                recordBytes(intendedStart, size, 0);
+                if (!sizes.isFixed()) {
+                    recordSize(intendedStart, size, latency);
+                }
+                LOG.debug("Time = {} µs", latency);
+            } catch (AmazonClientException e) {
+                recordFailure(intendedStart, RequestError.of(e));
             }
+
+            logProgress(LOG, i, n);
         }
 
-        return new OperationResult(getStats());
+        return getResult();
+    }
+
+    /**
+     * @param bucket name of bucket
+     * @param key    object key
+     * @param size   object size
+     * @param data   data of the object
+     * @return request to upload an object with the given data
+     */
+    static PutObjectRequest createPutObjectRequest(String bucket, String key, int size, InputStream data) {
+        final ObjectMetadata objectMetadata = new ObjectMetadata();
+        objectMetadata.setContentLength(size);
+
+        return new PutObjectRequest(bucket, key, data, objectMetadata);
     }
+
 }
@@ -0,0 +1,73 @@
+package de.jeha.s3pt.operations;
+
+/**
+ * Ring of the keys a thread uploaded, oldest first. The ring has a fixed capacity: if it is full, adding a key drops
+ * the oldest one, so a run with more PUT than DELETE requests does not grow the heap. Dropped objects stay in the
+ * bucket.
+ * <p>
+ * Not thread-safe, each thread keeps its own ring.
+ *
+ * @author jenshadlich@googlemail.com
+ */
+class UploadedKeys {
+
+    private final String[] keys;
+    // index of the oldest key
+    private int head = 0;
+    private int size = 0;
+    private long dropped = 0;
+
+    /**
+     * @param capacity maximum number of keys
+     */
+    UploadedKeys(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be greater than zero");
+        }
+        this.keys = new String[capacity];
+    }
+
+    /**
+     * Add a key, drop the oldest one if the ring is full.
+     *
+     * @param key object key
+     */
+    void add(String key) {
+        if (size == keys.length) {
+            poll();
+            dropped++;
+        }
+        keys[(head + size) % keys.length] = key;
+        size++;
+    }
+
+    /**
+     * @return oldest key (which is removed) or null if the ring is empty
+     */
+    String poll() {
+        if (size == 0) {
+            return null;
+        }
+        final String key = keys[head];
+        keys[head] = null;
+        head = (head + 1) % keys.length;
+        size--;
+        return key;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return number of keys dropped because the ring was full
+     */
+    long getDropped() {
+        return dropped;
+    }
+
+}
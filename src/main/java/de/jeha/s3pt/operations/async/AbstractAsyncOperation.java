@@ -0,0 +1,134 @@
+package de.jeha.s3pt.operations.async;
+
+import de.jeha.s3pt.OperationResult;
+import de.jeha.s3pt.jfr.RequestEvent;
+import de.jeha.s3pt.metrics.RequestError;
+import de.jeha.s3pt.operations.AbstractOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Base class of operations which are executed by the non-blocking S3 client. A single thread issues the requests
+ * without waiting for the responses; the number of requests in flight is limited by a window which is shared by all
+ * operations of a test. Failed requests are recorded, only unexpected exceptions end the operation.
+ *
+ * @author jenshadlich@googlemail.com
+ */
+public abstract class AbstractAsyncOperation extends AbstractOperation {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AbstractAsyncOperation.class);
+
+    private final int n;
+    private final Semaphore inFlight;
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    /**
+     * @param n        number of requests to issue (if not duration-based)
+     * @param inFlight window of requests in flight
+     */
+    protected AbstractAsyncOperation(int n, Semaphore inFlight) {
+        this.n = n;
+        this.inFlight = inFlight;
+    }
+
+    /**
+     * Prepare the operation before the first request is issued, e.g. collect object keys.
+     */
+    protected void setUp() {
+    }
+
+    /**
+     * @return object key of the next request
+     */
+    protected abstract String nextKey();
+
+    /**
+     * Issue the next request.
+     *
+     * @param key object key of the request, see {@link #nextKey()}
+     * @return future which is completed with the response
+     */
+    protected abstract CompletableFuture<?> execute(String key);
+
+    /**
+     * Count the bytes transferred by a successful request, see {@link #recordBytes(long, long, long)}.
+     *
+     * @param intendedStart intended start time of the request
+     * @param latency       latency of the request in µs
+     * @param response      response the future returned by {@link #execute(String)} was completed with
+     */
+    protected void recordResponse(long intendedStart, long latency, Object response) {
+    }
+
+    @Override
+    public OperationResult call() throws Exception {
+        setUp();
+
+        final Phaser outstanding = new Phaser(1);
+
+        for (int i = 0; hasNextRequest(i, n) && failure.get() == null; i++) {
+            final String key = nextKey();
+            final long intendedStart;
+            final RequestEvent event;
+            if (isOpenLoop()) {
+                // the request is due on the timetable, waiting for a free slot of the window is part of its latency
+                intendedStart = awaitNextRequest();
+                event = takeRequestEvent();
+                inFlight.acquire();
+            } else {
+                // the request is due as soon as a slot of the window is free
+                inFlight.acquire();
+                intendedStart = awaitNextRequest();
+                event = takeRequestEvent();
+            }
+
+            outstanding.register();
+            execute(key).whenComplete((response, t) -> {
+                // completions arrive on the event loop threads of the client; the end time is taken before the lock,
+                // so waiting for it is not part of the latency
+                final long endNanos = System.nanoTime();
+                final RequestError error = t != null ? RequestError.of(t) : null;
+                if (error != null) {
+                    synchronized (this) {
+                        traceRequest(key, event);
+                        recordFailureUntil(intendedStart, error, endNanos);
+                        commitTrace();
+                    }
+                } else if (t != null) {
+                    // not a failed request, e.g. a bug
+                    recordError();
+                    failure.compareAndSet(null, t);
+                } else {
+                    synchronized (this) {
+                        traceRequest(key, event);
+                        final long latency = recordLatencyUntil(intendedStart, endNanos);
+                        recordResponse(intendedStart, latency, response);
+                        commitTrace();
+                    }
+                }
+                inFlight.release();
+                outstanding.arriveAndDeregister();
+            });
+
+            logProgress(LOG, i, n);
+        }
+
+        outstanding.arriveAndAwaitAdvance();
+
+        final Throwable t = failure.get();
+        if (t != null) {
+            throw t instanceof Exception ? (Exception) t : new CompletionException(t);
+        }
+
+        synchronized (this) {
+            return getResult();
+        }
+    }
+
+}
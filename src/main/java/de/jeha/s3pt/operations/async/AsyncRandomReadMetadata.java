@@ -0,0 +1,76 @@
+package de.jeha.s3pt.operations.async;
+
+import com.amazonaws.services.s3.AmazonS3;
+import de.jeha.s3pt.operations.data.ObjectKeys;
+import de.jeha.s3pt.operations.data.S3ObjectKeysDataProvider;
+import de.jeha.s3pt.operations.data.SingletonFileObjectKeysDataProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+
+/**
+ * @author jenshadlich@googlemail.com
+ */
+public class AsyncRandomReadMetadata extends AbstractAsyncOperation {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncRandomReadMetadata.class);
+
+    private final AmazonS3 s3Client;
+    private final S3AsyncClient s3AsyncClient;
+    private final String bucket;
+    private final int n;
+    private final String keyFileName;
+
+    private ObjectKeys objectKeys;
+
+    /**
+     * @param s3Client      S3 client, only used to collect the object keys
+     * @param s3AsyncClient S3 client for the requests
+     * @param bucket        name of bucket
+     * @param n             number of operations
+     * @param keyFileName   name of file with object keys
+     * @param inFlight      window of requests in flight
+     */
+    public AsyncRandomReadMetadata(AmazonS3 s3Client, S3AsyncClient s3AsyncClient, String bucket, int n,
+                                   String keyFileName, Semaphore inFlight) {
+        super(n, inFlight);
+        this.s3Client = s3Client;
+        this.s3AsyncClient = s3AsyncClient;
+        this.bucket = bucket;
+        this.n = n;
+        this.keyFileName = keyFileName;
+    }
+
+    @Override
+    protected void setUp() {
+        LOG.info("Random read metadata (async): n={}", n);
+
+        if (keyFileName == null) {
+            objectKeys = new S3ObjectKeysDataProvider(s3Client, bucket).get();
+        } else {
+            objectKeys = new SingletonFileObjectKeysDataProvider(keyFileName).get();
+        }
+    }
+
+    @Override
+    protected String nextKey() {
+        return objectKeys.getRandom();
+    }
+
+    @Override
+    protected CompletableFuture<?> execute(String randomKey) {
+        LOG.debug("Read object: {}", randomKey);
+
+        HeadObjectRequest headObjectRequest = HeadObjectRequest.builder()
+                .bucket(bucket)
+                .key(randomKey)
+                .build();
+
+        return s3AsyncClient.headObject(headObjectRequest);
+    }
+
+}
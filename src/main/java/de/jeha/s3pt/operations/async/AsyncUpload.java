@@ -0,0 +1,107 @@
+package de.jeha.s3pt.operations.async;
+
+import de.jeha.s3pt.operations.size.SizeDistribution;
+import de.jeha.s3pt.utils.Checksum;
+import de.jeha.s3pt.utils.ObjectContent;
+import de.jeha.s3pt.utils.PayloadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * @author jenshadlich@googlemail.com
+ */
+public class AsyncUpload extends AbstractAsyncOperation {
+
+    private final static Logger LOG = LoggerFactory.getLogger(AsyncUpload.class);
+
+    private final S3AsyncClient s3Client;
+    private final String bucket;
+    private final int n;
+    private final SizeDistribution sizes;
+    private final PayloadPool payload;
+
+    public AsyncUpload(S3AsyncClient s3Client, String bucket, int n, SizeDistribution sizes, PayloadPool payload,
+                       Semaphore inFlight) {
+        super(n, inFlight);
+        this.s3Client = s3Client;
+        this.bucket = bucket;
+        this.n = n;
+        this.sizes = sizes;
+        this.payload = payload;
+    }
+
+    @Override
+    protected void setUp() {
+        final ObjectContent content = getObjectContent();
+        LOG.info("Upload (async): n={}, size={}, data={}", n, sizes, content != null ? content : payload);
+    }
+
+    @Override
+    protected String nextKey() {
+        return UUID.randomUUID().toString();
+    }
+
+    @Override
+    protected CompletableFuture<?> execute(String key) {
+        // requests are issued by a single thread
+        final Random random = ThreadLocalRandom.current();
+        final int size = sizes.next(random);
+        LOG.debug("Uploading object: {}, size = {} byte", key, size);
+
+        // the pool is never modified, so the body does not need a copy of the slice; verifiable contents depend on the
+        // key, so they are generated per request
+        final ObjectContent content = getObjectContent();
+        final Checksum checksum = getChecksum();
+        final int variant = checksum == Checksum.MD5 && content == null ? random.nextInt(PayloadPool.VARIANTS) : -1;
+        final ByteBuffer body;
+        if (content != null) {
+            body = content.newBuffer(key, size);
+        } else if (variant >= 0) {
+            body = payload.slice(size, variant);
+        } else {
+            body = payload.slice(size, random);
+        }
+
+        PutObjectRequest.Builder putObjectRequest = PutObjectRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .contentLength((long) size);
+        switch (checksum) {
+            case MD5:
+                putObjectRequest.contentMD5(variant >= 0 ? payload.contentMd5(size, variant) : checksum.compute(body));
+                break;
+            case CRC32C:
+                putObjectRequest.checksumCRC32C(checksum.compute(body));
+                break;
+            case SHA256:
+                putObjectRequest.checksumSHA256(checksum.compute(body));
+                break;
+            default:
+                break;
+        }
+
+        // the future is completed with the size
+        return s3Client.putObject(putObjectRequest.build(), AsyncRequestBody.fromRemainingByteBufferUnsafe(body))
+                .thenApply(response -> size);
+    }
+
+    @Override
+    protected void recordResponse(long intendedStart, long latency, Object response) {
+        final int size = (Integer) response;
+        recordBytes(intendedStart, size, 0);
+        if (!sizes.isFixed()) {
+            recordSize(intendedStart, size, latency);
+        }
+    }
+
+}
@@ -0,0 +1,47 @@
+package de.jeha.s3pt.operations.async;
+
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.core.async.SdkPublisher;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Response transformer that consumes the response body without keeping it, so the connection can be reused.
+ *
+ * @author jenshadlich@googlemail.com
+ */
+class DiscardingResponseTransformer<T> implements AsyncResponseTransformer<T, T> {
+
+    private volatile CompletableFuture<T> future;
+    private volatile T response;
+
+    @Override
+    public CompletableFuture<T> prepare() {
+        future = new CompletableFuture<>();
+        return future;
+    }
+
+    @Override
+    public void onResponse(T response) {
+        this.response = response;
+    }
+
+    @Override
+    public void onStream(SdkPublisher<ByteBuffer> publisher) {
+        publisher.subscribe(buffer -> {
+        }).whenComplete((ignored, t) -> {
+            if (t != null) {
+                future.completeExceptionally(t);
+            } else {
+                future.complete(response);
+            }
+        });
+    }
+
+    @Override
+    public void exceptionOccurred(Throwable error) {
+        future.completeExceptionally(error);
+    }
+
+}
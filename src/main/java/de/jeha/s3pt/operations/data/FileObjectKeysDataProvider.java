@@ -40,7 +40,7 @@ class FileObjectKeysDataProvider implements DataProvider<ObjectKeys> {
         stopWatch.stop();
 
         LOG.info("Time = {} ms", stopWatch.getTime());
-        LOG.info("Object keys: {}", objectKeys.size());
+        LOG.info("Object keys: {} ({} MB)", objectKeys.size(), objectKeys.memorySize() >> 20);
 
         return objectKeys;
     }
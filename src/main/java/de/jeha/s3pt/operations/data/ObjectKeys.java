@@ -1,37 +1,107 @@
 package de.jeha.s3pt.operations.data;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Random;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
+ * Dense store of object keys, e.g. of key files with millions of keys. The keys are packed as UTF-8 into large byte
+ * arrays (chunks) and indexed by their offsets, so a key takes its UTF-8 bytes plus 8 bytes of index instead of a map
+ * entry, a boxed index and a String. Strings are only created by {@link #get(int)} and {@link #getRandom()}.
+ * <p>
+ * Keys are added by a single thread; once all keys are added, the keys can be read by any number of threads.
+ *
  * @author jenshadlich@googlemail.com
  */
 public class ObjectKeys {
 
-    private final static Random GENERATOR = new Random();
+    private static final int DEFAULT_CHUNK_SIZE = 16 << 20;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int INITIAL_CHUNK_SIZE = 64 * 1024;
 
-    private final Map<Integer, String> objectKeys = new HashMap<>();
+    private final int chunkSize;
+
+    // global offset of each key: chunk * chunkSize + position in the chunk; a key never spans two chunks
+    private long[] offsets = new long[INITIAL_CAPACITY];
+    private byte[][] chunks = new byte[0][];
+    // number of bytes used in each chunk
+    private int[] chunkEnds = new int[0];
+    private int size = 0;
+
+    public ObjectKeys() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param chunkSize size of the byte arrays the keys are packed into
+     */
+    ObjectKeys(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
 
     public void add(String key) {
-        int sizeBefore = objectKeys.size(); // 0-based
-        objectKeys.put(sizeBefore, key);
+        final byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        int chunk = chunks.length - 1;
+        if (chunk < 0 || chunkEnds[chunk] + bytes.length >= chunkSize) {
+            // the rest of the last chunk stays unused; keys longer than a chunk get a chunk of their own
+            chunk++;
+            chunks = Arrays.copyOf(chunks, chunk + 1);
+            chunks[chunk] = new byte[bytes.length >= chunkSize
+                    ? bytes.length
+                    : Math.min(chunkSize, Math.max(INITIAL_CHUNK_SIZE, bytes.length))];
+            chunkEnds = Arrays.copyOf(chunkEnds, chunk + 1);
+        } else if (chunkEnds[chunk] + bytes.length > chunks[chunk].length) {
+            // chunks grow up to their full size, so a few keys do not take a whole chunk
+            chunks[chunk] = Arrays.copyOf(chunks[chunk],
+                    (int) Math.min(chunkSize, Math.max(2L * chunks[chunk].length, chunkEnds[chunk] + bytes.length)));
+        }
+        if (size == offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length + (offsets.length >> 1));
+        }
+        final int position = chunkEnds[chunk];
+        System.arraycopy(bytes, 0, chunks[chunk], position, bytes.length);
+        offsets[size++] = (long) chunk * chunkSize + position;
+        chunkEnds[chunk] = position + bytes.length;
     }
 
     public int size() {
-        return objectKeys.size();
+        return size;
     }
 
-    public String get(Integer index) {
-        return objectKeys.get(index);
+    /**
+     * @param index index of the key, in the order the keys were added
+     * @return key or null if there is no key with the given index
+     */
+    public String get(int index) {
+        if (index < 0 || index >= size) {
+            return null;
+        }
+        final int chunk = (int) (offsets[index] / chunkSize);
+        final int start = (int) (offsets[index] % chunkSize);
+        // the key ends where the next key of the same chunk starts, or at the end of the used part of the chunk
+        final int end = (index + 1 < size && offsets[index + 1] / chunkSize == chunk)
+                ? (int) (offsets[index + 1] % chunkSize)
+                : chunkEnds[chunk];
+        return new String(chunks[chunk], start, end - start, StandardCharsets.UTF_8);
     }
 
     public String getRandom() {
-        if (objectKeys.size() == 0) {
+        if (size == 0) {
             return null;
         } else {
-            return objectKeys.get(GENERATOR.nextInt(objectKeys.size()));
+            return get(ThreadLocalRandom.current().nextInt(size));
+        }
+    }
+
+    /**
+     * @return approximate number of bytes used by the keys and the index
+     */
+    long memorySize() {
+        long bytes = (long) offsets.length * Long.BYTES;
+        for (byte[] chunk : chunks) {
+            bytes += chunk.length;
         }
+        return bytes;
     }
 
 }
@@ -0,0 +1,20 @@
+package de.jeha.s3pt.operations.schedule;
+
+/**
+ * Closed-loop schedule: the next request is due as soon as the previous one has returned.
+ *
+ * @author jenshadlich@googlemail.com
+ */
+public class ClosedLoopSchedule implements RequestSchedule {
+
+    @Override
+    public long awaitNext() {
+        return System.nanoTime();
+    }
+
+    @Override
+    public boolean isOpenLoop() {
+        return false;
+    }
+
+}
@@ -0,0 +1,65 @@
+package de.jeha.s3pt.operations.schedule;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop schedule: requests are issued on a fixed timetable which is shared by all workers. Each call claims the
+ * next free slot of the timetable, so a stalled worker does not delay the slots of the others and a stalled backend
+ * does not lower the offered load.
+ * <p>
+ * The returned intended start time is the slot time, not the time the worker actually got to it. Latencies measured
+ * from it include the time a request had to wait for a free worker (coordinated omission correction).
+ *
+ * @author jenshadlich@googlemail.com
+ */
+public class FixedRateSchedule implements RequestSchedule {
+
+    private static final long NOT_STARTED = Long.MIN_VALUE;
+
+    private final double intervalNanos;
+    private final AtomicLong startNanos = new AtomicLong(NOT_STARTED);
+    private final AtomicLong nextSlot = new AtomicLong();
+
+    /**
+     * @param rate target rate in operations per second (over all workers)
+     */
+    public FixedRateSchedule(double rate) {
+        if (rate <= 0) {
+            throw new IllegalArgumentException("Rate must be greater than zero");
+        }
+        this.intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+    }
+
+    @Override
+    public long awaitNext() {
+        final long intendedStart = startNanos() + (long) (nextSlot.getAndIncrement() * intervalNanos);
+
+        long remaining;
+        while ((remaining = intendedStart - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+
+        return intendedStart;
+    }
+
+    @Override
+    public boolean isOpenLoop() {
+        return true;
+    }
+
+    /**
+     * The timetable starts with the first request, so set-up work of the workers (e.g. collecting object keys) does
+     * not show up as a backlog.
+     */
+    private long startNanos() {
+        long start = startNanos.get();
+        if (start == NOT_STARTED) {
+            startNanos.compareAndSet(NOT_STARTED, System.nanoTime());
+            start = startNanos.get();
+        }
+        return start;
+    }
+
+}
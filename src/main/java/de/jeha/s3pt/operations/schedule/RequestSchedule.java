@@ -0,0 +1,23 @@
+package de.jeha.s3pt.operations.schedule;
+
+/**
+ * Decides when the next request of an operation is due.
+ *
+ * @author jenshadlich@googlemail.com
+ */
+public interface RequestSchedule {
+
+    /**
+     * Block until the next request is due.
+     *
+     * @return intended start time of the request (as given by {@link System#nanoTime()})
+     */
+    long awaitNext();
+
+    /**
+     * @return true if requests are due on a timetable (open-loop), false if they are due as soon as the previous one
+     * has returned (closed-loop)
+     */
+    boolean isOpenLoop();
+
+}
@@ -0,0 +1,98 @@
+package de.jeha.s3pt.operations.schedule;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Clock shared by all workers of a duration-based run. A run consists of three consecutive phases:
+ * <ul>
+ *     <li>warm-up: requests are issued but not recorded (JIT, connection pool, caches)</li>
+ *     <li>steady state: requests are issued and recorded</li>
+ *     <li>cool-down: requests are issued but not recorded, so the ragged end of the run does not distort the
+ *     results</li>
+ * </ul>
+ * A request belongs to the phase its intended start time falls into.
+ *
+ * @author jenshadlich@googlemail.com
+ */
+public class RunClock {
+
+    private final long warmupNanos;
+    private final long durationNanos;
+    private final long cooldownNanos;
+
+    private volatile long startNanos;
+    private volatile boolean started = false;
+
+    /**
+     * @param warmup   length of the warm-up phase
+     * @param duration length of the steady state phase
+     * @param cooldown length of the cool-down phase
+     * @param unit     time unit of the given lengths
+     */
+    public RunClock(long warmup, long duration, long cooldown, TimeUnit unit) {
+        if (duration <= 0) {
+            throw new IllegalArgumentException("Duration must be greater than zero");
+        }
+        if (warmup < 0 || cooldown < 0) {
+            throw new IllegalArgumentException("Warm-up and cool-down must not be negative");
+        }
+        this.warmupNanos = unit.toNanos(warmup);
+        this.durationNanos = unit.toNanos(duration);
+        this.cooldownNanos = unit.toNanos(cooldown);
+    }
+
+    /**
+     * Start the run, i.e. the warm-up phase.
+     */
+    public void start() {
+        startNanos = System.nanoTime();
+        started = true;
+    }
+
+    /**
+     * @param nanoTime point in time (as given by {@link System#nanoTime()})
+     * @return true if the run has not ended at the given point in time
+     */
+    public boolean isRunning(long nanoTime) {
+        checkStarted();
+        return nanoTime - startNanos < warmupNanos + durationNanos + cooldownNanos;
+    }
+
+    /**
+     * @param nanoTime point in time (as given by {@link System#nanoTime()})
+     * @return true if the given point in time belongs to the steady state phase
+     */
+    public boolean isSteadyState(long nanoTime) {
+        checkStarted();
+        final long elapsed = nanoTime - startNanos;
+        return elapsed >= warmupNanos && elapsed < warmupNanos + durationNanos;
+    }
+
+    /**
+     * @return length of the warm-up phase in ns
+     */
+    public long getWarmupNanos() {
+        return warmupNanos;
+    }
+
+    /**
+     * @return length of the steady state phase in ns
+     */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /**
+     * @return length of the cool-down phase in ns
+     */
+    public long getCooldownNanos() {
+        return cooldownNanos;
+    }
+
+    private void checkStarted() {
+        if (!started) {
+            throw new IllegalStateException("Run clock has not been started");
+        }
+    }
+
+}
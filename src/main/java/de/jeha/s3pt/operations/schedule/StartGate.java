@@ -0,0 +1,61 @@
+package de.jeha.s3pt.operations.schedule;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Gate the workers of a run pass right before their first request. The gate opens when all workers have arrived,
+ * i.e. finished their set-up (e.g. loading the object keys): the last worker runs the open action (e.g. starting the
+ * {@link RunClock}) before the others are released, so set-up does not eat into warm-up and steady state.
+ *
+ * @author jenshadlich@googlemail.com
+ */
+public class StartGate {
+
+    private final AtomicInteger pending;
+    private final Runnable onOpen;
+    private final CountDownLatch open = new CountDownLatch(1);
+
+    /**
+     * @param parties number of workers which have to arrive
+     * @param onOpen  action run by the last worker to arrive, before the gate opens
+     */
+    public StartGate(int parties, Runnable onOpen) {
+        if (parties <= 0) {
+            throw new IllegalArgumentException("Parties must be greater than zero");
+        }
+        this.pending = new AtomicInteger(parties);
+        this.onOpen = onOpen;
+    }
+
+    /**
+     * Arrive at the gate without waiting for it to open, e.g. if the set-up of a worker failed.
+     */
+    public void arrive() {
+        if (pending.decrementAndGet() == 0) {
+            try {
+                onOpen.run();
+            } finally {
+                open.countDown();
+            }
+        }
+    }
+
+    /**
+     * Arrive at the gate and wait until all workers have arrived.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void arriveAndAwait() throws InterruptedException {
+        arrive();
+        open.await();
+    }
+
+    /**
+     * @return true if all workers have arrived
+     */
+    public boolean isOpen() {
+        return open.getCount() == 0;
+    }
+
+}
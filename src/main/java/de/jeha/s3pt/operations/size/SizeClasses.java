@@ -0,0 +1,42 @@
+package de.jeha.s3pt.operations.size;
+
+import java.util.Comparator;
+
+/**
+ * Log-scaled object size classes (factor 16) to break down the results of a workload with mixed object sizes.
+ *
+ * @author jenshadlich@googlemail.com
+ */
+public class SizeClasses {
+
+    private static final int[] UPPER_BOUNDS = {4 << 10, 64 << 10, 1 << 20, 16 << 20, 256 << 20};
+    private static final String[] NAMES = {"0-4K", "4K-64K", "64K-1M", "1M-16M", "16M-256M", "256M+"};
+
+    /**
+     * Orders size class names from small to large objects; unknown names go last.
+     */
+    public static final Comparator<String> ORDER = Comparator.comparingInt(SizeClasses::indexOf);
+
+    /**
+     * @param size object size in bytes
+     * @return name of the size class, e.g. "4K-64K"
+     */
+    public static String of(long size) {
+        for (int i = 0; i < UPPER_BOUNDS.length; i++) {
+            if (size < UPPER_BOUNDS[i]) {
+                return NAMES[i];
+            }
+        }
+        return NAMES[NAMES.length - 1];
+    }
+
+    private static int indexOf(String name) {
+        for (int i = 0; i < NAMES.length; i++) {
+            if (NAMES[i].equals(name)) {
+                return i;
+            }
+        }
+        return NAMES.length;
+    }
+
+}
@@ -0,0 +1,259 @@
+package de.jeha.s3pt.operations.size;
+
+import de.jeha.s3pt.args4j.IntFromByteUnitOptionHandler;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Distribution of the object sizes of a write workload. Supported specifications:
+ * <ul>
+ * <li>"uniform:1K-200M": uniformly distributed between min and max</li>
+ * <li>"lognormal:median=64K,sigma=1.5,max=200M": log-normal with the given median and shape, limited to min (default
+ * 0) and max (default 1024M)</li>
+ * <li>"buckets:1K-16K=60,1M=30,64M-200M=10": weighted buckets, each one a single size or a range (uniformly
+ * distributed)</li>
+ * <li>"file:sizes.csv": empirical histogram, one bucket "size,count" or "min-max,count" per line</li>
+ * </ul>
+ *
+ * @author jenshadlich@googlemail.com
+ */
+public abstract class SizeDistribution {
+
+    static final int DEFAULT_LOGNORMAL_MAX = 1024 << 20;
+
+    /**
+     * @param size object size in bytes
+     * @return distribution of a single size
+     */
+    public static SizeDistribution fixed(int size) {
+        return new Buckets(new int[]{size}, new int[]{size}, new double[]{1});
+    }
+
+    /**
+     * @param spec specification of the distribution, see {@link SizeDistribution}
+     * @return size distribution
+     * @throws IllegalArgumentException if the specification cannot be parsed or the file cannot be read
+     */
+    public static SizeDistribution parse(String spec) {
+        String[] typeAndArguments = StringUtils.split(spec, ":", 2);
+        if (typeAndArguments.length != 2) {
+            throw new IllegalArgumentException("Invalid size distribution '" + spec + "', expected <type>:<arguments>");
+        }
+        final String arguments = typeAndArguments[1].trim();
+        switch (typeAndArguments[0].trim().toLowerCase()) {
+            case "uniform":
+                return buckets(Arrays.asList(arguments + "=1"), "=");
+            case "lognormal":
+                return logNormal(arguments);
+            case "buckets":
+                return buckets(Arrays.asList(StringUtils.split(arguments, ",")), "=");
+            case "file":
+                return buckets(readLines(arguments), ",");
+            default:
+                throw new IllegalArgumentException("Unknown size distribution '" + typeAndArguments[0] + "'");
+        }
+    }
+
+    /**
+     * @param random random number generator
+     * @return randomly chosen object size in bytes
+     */
+    public abstract int next(Random random);
+
+    /**
+     * @return largest possible object size in bytes
+     */
+    public abstract int max();
+
+    /**
+     * @return true if all objects have the same size
+     */
+    public abstract boolean isFixed();
+
+    private static SizeDistribution logNormal(String arguments) {
+        Map<String, String> parameters = new HashMap<>();
+        for (String part : StringUtils.split(arguments, ",")) {
+            String[] nameAndValue = StringUtils.split(part.trim(), "=", 2);
+            if (nameAndValue.length != 2) {
+                throw new IllegalArgumentException("Invalid parameter '" + part + "', expected <name>=<value>");
+            }
+            parameters.put(nameAndValue[0].trim().toLowerCase(), nameAndValue[1].trim());
+        }
+        if (!parameters.containsKey("median") || !parameters.containsKey("sigma")) {
+            throw new IllegalArgumentException("Log-normal size distribution requires median and sigma");
+        }
+        final int median = IntFromByteUnitOptionHandler.parseBytes(parameters.get("median"));
+        final double sigma = Double.parseDouble(parameters.get("sigma"));
+        final int min = parameters.containsKey("min") ? IntFromByteUnitOptionHandler.parseBytes(parameters.get("min")) : 0;
+        final int max = parameters.containsKey("max")
+                ? IntFromByteUnitOptionHandler.parseBytes(parameters.get("max"))
+                : DEFAULT_LOGNORMAL_MAX;
+        if (median <= 0 || sigma < 0 || min > max) {
+            throw new IllegalArgumentException("Log-normal size distribution requires median > 0, sigma >= 0 and "
+                    + "min <= max");
+        }
+        return new LogNormal(Math.log(median), sigma, min, max);
+    }
+
+    private static SizeDistribution buckets(List<String> entries, String weightSeparator) {
+        List<int[]> ranges = new ArrayList<>();
+        List<Double> weights = new ArrayList<>();
+        for (String entry : entries) {
+            final String trimmed = entry.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            String[] sizeAndWeight = StringUtils.split(trimmed, weightSeparator, 2);
+            if (sizeAndWeight.length != 2) {
+                throw new IllegalArgumentException("Invalid bucket '" + trimmed + "', expected <size>" + weightSeparator
+                        + "<weight> or <min>-<max>" + weightSeparator + "<weight>");
+            }
+            String[] minAndMax = StringUtils.split(sizeAndWeight[0].trim(), "-", 2);
+            final int min = IntFromByteUnitOptionHandler.parseBytes(minAndMax[0].trim());
+            final int max = minAndMax.length == 2 ? IntFromByteUnitOptionHandler.parseBytes(minAndMax[1].trim()) : min;
+            final double weight = Double.parseDouble(sizeAndWeight[1].trim());
+            if (min > max || weight < 0) {
+                throw new IllegalArgumentException("Invalid bucket '" + trimmed + "', min must not exceed max and "
+                        + "weight must not be negative");
+            }
+            if (weight > 0) {
+                ranges.add(new int[]{min, max});
+                weights.add(weight);
+            }
+        }
+        if (ranges.isEmpty()) {
+            throw new IllegalArgumentException("Size distribution must contain at least one bucket with a weight > 0");
+        }
+
+        int[] mins = new int[ranges.size()];
+        int[] maxs = new int[ranges.size()];
+        double[] cumulativeWeights = new double[ranges.size()];
+        double sum = 0;
+        for (int i = 0; i < ranges.size(); i++) {
+            mins[i] = ranges.get(i)[0];
+            maxs[i] = ranges.get(i)[1];
+            sum += weights.get(i);
+            cumulativeWeights[i] = sum;
+        }
+        return new Buckets(mins, maxs, cumulativeWeights);
+    }
+
+    private static List<String> readLines(String fileName) {
+        try {
+            return Files.readAllLines(Paths.get(fileName), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Unable to read size distribution from " + fileName, e);
+        }
+    }
+
+    /**
+     * Weighted buckets; a bucket is a single size or a uniformly distributed range.
+     */
+    static class Buckets extends SizeDistribution {
+
+        private final int[] mins;
+        private final int[] maxs;
+        private final double[] cumulativeWeights;
+        private final int max;
+
+        Buckets(int[] mins, int[] maxs, double[] cumulativeWeights) {
+            this.mins = mins;
+            this.maxs = maxs;
+            this.cumulativeWeights = cumulativeWeights;
+            this.max = Arrays.stream(maxs).max().orElse(0);
+        }
+
+        @Override
+        public int next(Random random) {
+            int i = 0;
+            if (cumulativeWeights.length > 1) {
+                final double r = random.nextDouble() * cumulativeWeights[cumulativeWeights.length - 1];
+                i = Arrays.binarySearch(cumulativeWeights, r);
+                // not found: insertion point, i.e. the first bucket with a cumulative weight > r
+                i = i < 0 ? -i - 1 : i + 1;
+                i = Math.min(i, cumulativeWeights.length - 1);
+            }
+            final int range = maxs[i] - mins[i];
+            return range == 0 ? mins[i] : mins[i] + (int) (random.nextDouble() * (range + 1L));
+        }
+
+        @Override
+        public int max() {
+            return max;
+        }
+
+        @Override
+        public boolean isFixed() {
+            return cumulativeWeights.length == 1 && mins[0] == maxs[0];
+        }
+
+        @Override
+        public String toString() {
+            if (isFixed()) {
+                return mins[0] + " byte";
+            }
+            StringBuilder sb = new StringBuilder("buckets[");
+            double previous = 0;
+            for (int i = 0; i < mins.length; i++) {
+                sb.append(i > 0 ? ", " : "").append(mins[i]);
+                if (maxs[i] != mins[i]) {
+                    sb.append('-').append(maxs[i]);
+                }
+                sb.append('=').append(cumulativeWeights[i] - previous);
+                previous = cumulativeWeights[i];
+            }
+            return sb.append(']').toString();
+        }
+    }
+
+    /**
+     * Log-normal distribution, limited to a range.
+     */
+    static class LogNormal extends SizeDistribution {
+
+        private final double mu;
+        private final double sigma;
+        private final int min;
+        private final int max;
+
+        LogNormal(double mu, double sigma, int min, int max) {
+            this.mu = mu;
+            this.sigma = sigma;
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        public int next(Random random) {
+            final double size = Math.exp(mu + sigma * random.nextGaussian());
+            return (int) Math.max(min, Math.min(max, Math.round(size)));
+        }
+
+        @Override
+        public int max() {
+            return max;
+        }
+
+        @Override
+        public boolean isFixed() {
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return "lognormal[median=" + Math.round(Math.exp(mu)) + ", sigma=" + sigma + ", min=" + min + ", max="
+                    + max + "]";
+        }
+    }
+
+}
@@ -1,17 +1,15 @@
 package de.jeha.s3pt.operations.util;
 
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * @author jenshadlich@googlemail.com
  */
 public class RandomDataGenerator {
 
-    private final static Random GENERATOR = new Random();
-
     public static byte[] generate(int size) {
         final byte data[] = new byte[size];
-        GENERATOR.nextBytes(data);
+        ThreadLocalRandom.current().nextBytes(data);
         return data;
     }
 
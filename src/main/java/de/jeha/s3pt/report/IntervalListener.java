@@ -0,0 +1,22 @@
+package de.jeha.s3pt.report;
+
+/**
+ * Receives the reports of an {@link IntervalReporter}, e.g. to stream them to a time series database. Called by the
+ * thread of the reporter, so implementations must not block.
+ *
+ * @author jenshadlich@googlemail.com
+ */
+public interface IntervalListener {
+
+    /**
+     * @param timestamp end of the interval (epoch ms)
+     * @param ops       throughput in operations/s
+     * @param errors    number of failed requests
+     * @param p50       p50 latency in ms
+     * @param p90       p90 latency in ms
+     * @param p99       p99 latency in ms
+     * @param max       max latency in ms
+     */
+    void onInterval(long timestamp, double ops, long errors, double p50, double p90, double p99, double max);
+
+}
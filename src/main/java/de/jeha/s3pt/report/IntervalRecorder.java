@@ -0,0 +1,47 @@
+package de.jeha.s3pt.report;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records the latencies and errors of a single worker per reporting interval. Recording is thread-safe and does not
+ * block, so the reporter can swap intervals while the worker keeps recording.
+ *
+ * @author jenshadlich@googlemail.com
+ */
+public class IntervalRecorder {
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final Recorder recorder = new Recorder(SIGNIFICANT_DIGITS);
+    private final LongAdder errors = new LongAdder();
+
+    /**
+     * @param latency latency of a request in µs
+     */
+    public void recordLatency(long latency) {
+        recorder.recordValue(latency);
+    }
+
+    public void recordError() {
+        errors.increment();
+    }
+
+    /**
+     * @param recycle histogram returned by the previous call (may be null)
+     * @return latencies recorded since the previous call
+     */
+    Histogram getIntervalHistogram(Histogram recycle) {
+        return recorder.getIntervalHistogram(recycle);
+    }
+
+    /**
+     * @return number of errors recorded since the previous call
+     */
+    long getIntervalErrors() {
+        return errors.sumThenReset();
+    }
+
+}
@@ -0,0 +1,164 @@
+package de.jeha.s3pt.report;
+
+import de.jeha.s3pt.utils.LatencyHistograms;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reports throughput, errors and latency percentiles of all workers every interval while a test is running, to the
+ * log and optionally to a CSV file and a listener. Throughput is computed from the wall clock time of the interval.
+ *
+ * @author jenshadlich@googlemail.com
+ */
+public class IntervalReporter implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(IntervalReporter.class);
+    private static final String CSV_HEADER = "time,ops,errors,p50,p90,p99,max";
+
+    /**
+     * Minimum length of the last interval (as a fraction of the interval) to be reported.
+     */
+    static final double MIN_LAST_INTERVAL = 0.5;
+
+    private final List<IntervalRecorder> recorders;
+    private final int intervalSeconds;
+    private final String csvFileName;
+    private final IntervalListener listener;
+    private final List<Histogram> recycledHistograms = new ArrayList<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "interval-reporter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Writer csvWriter;
+    private long startNanos;
+    private long intervalStartNanos;
+
+    /**
+     * @param recorders       recorders of all workers
+     * @param intervalSeconds length of the reporting interval in seconds
+     * @param csvFileName     name of the CSV file the intervals are appended to, null if not set
+     * @param listener        listener which receives the intervals, null if not set
+     */
+    public IntervalReporter(List<IntervalRecorder> recorders, int intervalSeconds, String csvFileName,
+                            IntervalListener listener) {
+        this.recorders = recorders;
+        this.intervalSeconds = intervalSeconds;
+        this.csvFileName = csvFileName;
+        this.listener = listener;
+        for (int i = 0; i < recorders.size(); i++) {
+            recycledHistograms.add(null);
+        }
+    }
+
+    /**
+     * Start reporting.
+     *
+     * @throws IOException if the CSV file cannot be opened
+     */
+    public void start() throws IOException {
+        if (csvFileName != null) {
+            File csvFile = new File(csvFileName);
+            boolean writeHeader = !csvFile.exists() || csvFile.length() == 0;
+            csvWriter = new BufferedWriter(
+                    new OutputStreamWriter(new FileOutputStream(csvFile, true), StandardCharsets.UTF_8));
+            if (writeHeader) {
+                csvWriter.write(CSV_HEADER);
+                csvWriter.write(System.lineSeparator());
+            }
+        }
+        startNanos = System.nanoTime();
+        intervalStartNanos = startNanos;
+        scheduler.scheduleAtFixedRate(() -> report(false), intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stop reporting; the last (possibly shorter) interval is reported as well, unless nothing was recorded in it or
+     * it is shorter than {@link #MIN_LAST_INTERVAL} of an interval, so the run does not end with a spurious interval
+     * (e.g. of the time it took the workers to return after the last scheduled report).
+     */
+    @Override
+    public void close() throws IOException {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(intervalSeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        report(true);
+        if (csvWriter != null) {
+            csvWriter.close();
+        }
+    }
+
+    /**
+     * @param last true if this is the last interval, which is skipped if it is empty or too short
+     */
+    private synchronized void report(boolean last) {
+        final long now = System.nanoTime();
+        final double elapsedSeconds = (now - intervalStartNanos) / 1_000_000_000.0;
+        intervalStartNanos = now;
+
+        Histogram interval = LatencyHistograms.create();
+        long errors = 0;
+        for (int i = 0; i < recorders.size(); i++) {
+            Histogram histogram = recorders.get(i).getIntervalHistogram(recycledHistograms.get(i));
+            recycledHistograms.set(i, histogram);
+            interval.add(histogram);
+            errors += recorders.get(i).getIntervalErrors();
+        }
+
+        if (last && ((interval.getTotalCount() == 0 && errors == 0)
+                || elapsedSeconds < MIN_LAST_INTERVAL * intervalSeconds)) {
+            LOG.debug("Skip last interval: {} s, {} operations, {} errors",
+                    elapsedSeconds, interval.getTotalCount(), errors);
+            return;
+        }
+
+        final double time = (now - startNanos) / 1_000_000_000.0;
+        final double ops = elapsedSeconds > 0 ? interval.getTotalCount() / elapsedSeconds : 0;
+        final double p50 = toMillis(interval.getValueAtPercentile(50));
+        final double p90 = toMillis(interval.getValueAtPercentile(90));
+        final double p99 = toMillis(interval.getValueAtPercentile(99));
+        final double max = toMillis(interval.getMaxValue());
+
+        LOG.info("Interval: t = {} s, throughput = {} operations/s, errors = {}, p50 = {} ms, p90 = {} ms, p99 = {} ms, max = {} ms",
+                (int) time, (int) ops, errors, p50, p90, p99, max);
+
+        if (csvWriter != null) {
+            try {
+                csvWriter.write(String.format(Locale.ENGLISH, "%.3f,%.3f,%d,%.3f,%.3f,%.3f,%.3f%n",
+                        time, ops, errors, p50, p90, p99, max));
+                csvWriter.flush();
+            } catch (IOException e) {
+                LOG.warn("Unable to write interval to {}", csvFileName, e);
+            }
+        }
+
+        if (listener != null) {
+            listener.onInterval(System.currentTimeMillis(), ops, errors, p50, p90, p99, max);
+        }
+    }
+
+    private static double toMillis(long micros) {
+        return micros / 1_000.0;
+    }
+
+}
@@ -0,0 +1,160 @@
+package de.jeha.s3pt.report;
+
+import com.google.gson.Gson;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Posts data points to KairosDB in the background. Points are put into a bounded queue and never block the caller: if
+ * the queue is full (e.g. KairosDB is slow or down), points are dropped. A single thread sends the points in batches
+ * over one keep-alive connection.
+ *
+ * @author jenshadlich@googlemail.com
+ */
+public class KairosdbExporter implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(KairosdbExporter.class);
+    private static final long CLOSE_TIMEOUT_MILLIS = 10_000;
+    private static final int TIMEOUT_MILLIS = 5_000;
+    private static final long POLL_MILLIS = 200;
+
+    private final String postUrl;
+    private final int batchSize;
+    private final BlockingQueue<KairosdbPoint> queue;
+    private final LongAdder dropped = new LongAdder();
+    private final Gson gson = new Gson();
+    private final CloseableHttpClient httpClient = HttpClients.custom()
+            .setDefaultRequestConfig(RequestConfig.custom()
+                    .setConnectTimeout(TIMEOUT_MILLIS)
+                    .setSocketTimeout(TIMEOUT_MILLIS)
+                    .build())
+            .build();
+    private final Thread sender;
+
+    private volatile boolean closed = false;
+
+    /**
+     * @param kairosdbUrl url of KairosDB
+     * @param capacity    maximum number of points waiting to be sent
+     * @param batchSize   maximum number of points per request
+     */
+    public KairosdbExporter(String kairosdbUrl, int capacity, int batchSize) {
+        this.postUrl = kairosdbUrl + "/api/v1/datapoints";
+        this.batchSize = batchSize;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.sender = new Thread(this::send, "kairosdb-exporter");
+        this.sender.setDaemon(true);
+        this.sender.start();
+    }
+
+    /**
+     * Queue a point without blocking.
+     *
+     * @param point data point
+     * @return false if the point was dropped, because the queue is full or the exporter is closed
+     */
+    public boolean offer(KairosdbPoint point) {
+        if (closed || !queue.offer(point)) {
+            dropped.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @param tags tags of the interval points, e.g. of the current step of a ramp
+     * @return listener which queues the intervals as points
+     */
+    public IntervalListener intervalListener(Map<String, String> tags) {
+        return (timestamp, ops, errors, p50, p90, p99, max) -> {
+            offer(new KairosdbPoint("core.engineering.s3.interval.ops", timestamp, ops, tags));
+            offer(new KairosdbPoint("core.engineering.s3.interval.errors", timestamp, errors, tags));
+            offer(new KairosdbPoint("core.engineering.s3.interval.p50", timestamp, p50, tags));
+            offer(new KairosdbPoint("core.engineering.s3.interval.p90", timestamp, p90, tags));
+            offer(new KairosdbPoint("core.engineering.s3.interval.p99", timestamp, p99, tags));
+            offer(new KairosdbPoint("core.engineering.s3.interval.max", timestamp, max, tags));
+        };
+    }
+
+    /**
+     * @return number of points dropped so far
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Send the points which are still queued (waiting at most 10 seconds) and release the connection.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        try {
+            sender.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        httpClient.close();
+
+        final long droppedPoints = dropped.sum() + queue.size();
+        if (droppedPoints > 0) {
+            LOG.warn("{} points could not be sent to KairosDB", droppedPoints);
+        }
+    }
+
+    private void send() {
+        final List<KairosdbPoint> batch = new ArrayList<>(batchSize);
+        while (!closed || !queue.isEmpty()) {
+            // the sender is not interrupted on close, an interrupt would abort sending the remaining points
+            final KairosdbPoint point;
+            try {
+                point = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (point == null) {
+                continue;
+            }
+            batch.add(point);
+            queue.drainTo(batch, batchSize - batch.size());
+            post(batch);
+            batch.clear();
+        }
+    }
+
+    private void post(List<KairosdbPoint> batch) {
+        HttpPost post = new HttpPost(postUrl);
+        post.setEntity(new StringEntity(gson.toJson(batch), ContentType.APPLICATION_JSON));
+        try (CloseableHttpResponse response = httpClient.execute(post)) {
+            // consume the response, so the connection can be reused
+            EntityUtils.consume(response.getEntity());
+            final int status = response.getStatusLine().getStatusCode();
+            if (status / 100 != 2) {
+                LOG.warn("KairosDB rejected {} points: HTTP {}", batch.size(), status);
+                dropped.add(batch.size());
+            }
+        } catch (IOException e) {
+            LOG.warn("Unable to send {} points to KairosDB: {}", batch.size(), e.toString());
+            dropped.add(batch.size());
+        }
+    }
+
+}
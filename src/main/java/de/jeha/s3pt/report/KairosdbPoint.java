@@ -1,8 +1,13 @@
-package de.jeha.s3pt;
+package de.jeha.s3pt.report;
 
 import java.util.Map;
 
-class KairosdbPoint {
+/**
+ * Data point as posted to the REST API of KairosDB.
+ *
+ * @author jenshadlich@googlemail.com
+ */
+public class KairosdbPoint {
     String name;
     long timestamp;
     double value;
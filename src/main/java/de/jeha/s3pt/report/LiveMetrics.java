@@ -0,0 +1,101 @@
+package de.jeha.s3pt.report;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Live metrics of all requests of a test run (including warm-up and cool-down), exposed in the Prometheus text format
+ * by {@link MetricsEndpoint}. All values are counters which only increase, also over several runs of a saturation
+ * search; the runs can be told apart by the thread group.
+ *
+ * @author jenshadlich@googlemail.com
+ */
+public class LiveMetrics {
+
+    private final ConcurrentMap<String, RequestSeries> series = new ConcurrentSkipListMap<>();
+    private final LongAdder bytesUploaded = new LongAdder();
+    private final LongAdder bytesDownloaded = new LongAdder();
+    private final LongSupplier retries;
+
+    /**
+     * @param retries total number of retries of the S3 clients
+     */
+    public LiveMetrics(LongSupplier retries) {
+        this.retries = retries;
+    }
+
+    /**
+     * Get the series of the given labels, it is created if necessary. Operations look up their series once and keep
+     * them, so the request path does not need to look them up.
+     *
+     * @param operation   operation or request type, e.g. RANDOM_READ or GET
+     * @param status      "ok" or the status of a failed request, see {@link de.jeha.s3pt.metrics.RequestError}
+     * @param threadGroup number of threads of the run, e.g. "T8"
+     * @return series
+     */
+    public RequestSeries series(String operation, String status, String threadGroup) {
+        return series.computeIfAbsent(operation + '\n' + status + '\n' + threadGroup,
+                k -> new RequestSeries(operation, status, threadGroup));
+    }
+
+    /**
+     * @param uploaded   bytes sent in a request body
+     * @param downloaded bytes received in a response body
+     */
+    public void recordBytes(long uploaded, long downloaded) {
+        if (uploaded > 0) {
+            bytesUploaded.add(uploaded);
+        }
+        if (downloaded > 0) {
+            bytesDownloaded.add(downloaded);
+        }
+    }
+
+    /**
+     * Write all metrics in the Prometheus text format (version 0.0.4).
+     *
+     * @param writer writer
+     * @throws IOException if writing fails
+     */
+    void writeTo(Writer writer) throws IOException {
+        writer.write("# HELP s3pt_request_duration_seconds Latency of the requests, measured from the intended start time.\n");
+        writer.write("# TYPE s3pt_request_duration_seconds histogram\n");
+        for (RequestSeries s : series.values()) {
+            final String labels = "operation=\"" + escape(s.getOperation())
+                    + "\",status=\"" + escape(s.getStatus())
+                    + "\",thread_group=\"" + escape(s.getThreadGroup()) + "\"";
+            final long[] counts = s.getCounts();
+            long cumulative = 0;
+            for (int i = 0; i < counts.length; i++) {
+                cumulative += counts[i];
+                final String le = i < RequestSeries.BUCKETS.length ? seconds(RequestSeries.BUCKETS[i]) : "+Inf";
+                writer.write("s3pt_request_duration_seconds_bucket{" + labels + ",le=\"" + le + "\"} " + cumulative + "\n");
+            }
+            writer.write("s3pt_request_duration_seconds_sum{" + labels + "} " + seconds(s.getSumMicros()) + "\n");
+            writer.write("s3pt_request_duration_seconds_count{" + labels + "} " + cumulative + "\n");
+        }
+
+        writer.write("# HELP s3pt_bytes_total Bytes transferred in request and response bodies.\n");
+        writer.write("# TYPE s3pt_bytes_total counter\n");
+        writer.write("s3pt_bytes_total{direction=\"upload\"} " + bytesUploaded.sum() + "\n");
+        writer.write("s3pt_bytes_total{direction=\"download\"} " + bytesDownloaded.sum() + "\n");
+
+        writer.write("# HELP s3pt_retries_total Retries of the S3 clients.\n");
+        writer.write("# TYPE s3pt_retries_total counter\n");
+        writer.write("s3pt_retries_total " + retries.getAsLong() + "\n");
+    }
+
+    private static String seconds(long micros) {
+        return BigDecimal.valueOf(micros, 6).stripTrailingZeros().toPlainString();
+    }
+
+    private static String escape(String labelValue) {
+        return labelValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+}
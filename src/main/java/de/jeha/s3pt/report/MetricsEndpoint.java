@@ -0,0 +1,84 @@
+package de.jeha.s3pt.report;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Embedded HTTP endpoint which exposes the {@link LiveMetrics} at /metrics to be scraped by Prometheus. Scrapes are
+ * served by a single thread of their own; they only read the counters of the metrics.
+ *
+ * @author jenshadlich@googlemail.com
+ */
+public class MetricsEndpoint implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MetricsEndpoint.class);
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final LiveMetrics metrics;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "metrics-endpoint");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * @param metrics metrics to expose
+     * @param port    port to listen on, 0 for any free port
+     * @throws IOException if the port cannot be bound
+     */
+    public MetricsEndpoint(LiveMetrics metrics, int port) throws IOException {
+        this.metrics = metrics;
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        this.server.createContext("/metrics", this::scrape);
+        this.server.setExecutor(executor);
+    }
+
+    public void start() {
+        server.start();
+        LOG.info("Metrics endpoint: http://localhost:{}/metrics", getPort());
+    }
+
+    /**
+     * @return port the endpoint listens on
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void scrape(HttpExchange exchange) throws IOException {
+        try {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            try (Writer writer = new OutputStreamWriter(body, StandardCharsets.UTF_8)) {
+                metrics.writeTo(writer);
+            }
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.size());
+            try (OutputStream out = exchange.getResponseBody()) {
+                body.writeTo(out);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+}
@@ -0,0 +1,80 @@
+package de.jeha.s3pt.report;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live latency histogram of the requests with the same labels (operation, status and thread group), with fixed
+ * buckets as exposed by {@link MetricsEndpoint}. Recording only increments counters: it does not block and does not
+ * allocate, so it can be done on the request path while the endpoint is scraped.
+ *
+ * @author jenshadlich@googlemail.com
+ */
+public class RequestSeries {
+
+    /**
+     * Upper bounds of the buckets in µs, from 100 µs (e.g. cached reads of small objects on a local network) to 10 s.
+     */
+    static final long[] BUCKETS = {
+            100, 250, 500, 1_000, 2_500, 5_000, 10_000, 25_000, 50_000, 100_000, 250_000, 500_000,
+            1_000_000, 2_500_000, 5_000_000, 10_000_000
+    };
+
+    private final String operation;
+    private final String status;
+    private final String threadGroup;
+    // the last counter is the +Inf bucket
+    private final LongAdder[] counts = new LongAdder[BUCKETS.length + 1];
+    private final LongAdder sumMicros = new LongAdder();
+
+    RequestSeries(String operation, String status, String threadGroup) {
+        this.operation = operation;
+        this.status = status;
+        this.threadGroup = threadGroup;
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * @param latency latency of a request in µs
+     */
+    public void record(long latency) {
+        int i = 0;
+        while (i < BUCKETS.length && latency > BUCKETS[i]) {
+            i++;
+        }
+        counts[i].increment();
+        sumMicros.add(latency);
+    }
+
+    String getOperation() {
+        return operation;
+    }
+
+    String getStatus() {
+        return status;
+    }
+
+    String getThreadGroup() {
+        return threadGroup;
+    }
+
+    /**
+     * @return number of requests per bucket (not cumulative), the last one is the +Inf bucket
+     */
+    long[] getCounts() {
+        long[] snapshot = new long[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            snapshot[i] = counts[i].sum();
+        }
+        return snapshot;
+    }
+
+    /**
+     * @return sum of the latencies in µs
+     */
+    long getSumMicros() {
+        return sumMicros.sum();
+    }
+
+}
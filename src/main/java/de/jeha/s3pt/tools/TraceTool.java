@@ -0,0 +1,127 @@
+package de.jeha.s3pt.tools;
+
+import de.jeha.s3pt.trace.TraceReader;
+import de.jeha.s3pt.trace.TraceRecord;
+import de.jeha.s3pt.utils.LatencyHistograms;
+import org.HdrHistogram.Histogram;
+import org.kohsuke.args4j.Argument;
+import org.kohsuke.args4j.CmdLineException;
+import org.kohsuke.args4j.CmdLineParser;
+import org.kohsuke.args4j.Option;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Turns a trace file written with --traceFileName into CSV (one line per request) or into latency histograms per
+ * operation and status.
+ *
+ * @author jenshadlich@googlemail.com
+ */
+public class TraceTool {
+
+    enum Format {
+        CSV, HISTOGRAM
+    }
+
+    @Option(name = "--format", usage = "output format: CSV (one line per request) or HISTOGRAM (latency percentiles per operation and status)")
+    private Format format = Format.CSV;
+
+    @Option(name = "--output", usage = "name of the output file; standard output if not set")
+    private String output = null;
+
+    @Argument(metaVar = "TRACE_FILE", usage = "name of the trace file", required = true)
+    private String traceFileName;
+
+    public static void main(String... args) throws IOException {
+        Locale.setDefault(Locale.ENGLISH);
+
+        TraceTool tool = new TraceTool();
+        CmdLineParser parser = new CmdLineParser(tool);
+        try {
+            parser.parseArgument(args);
+        } catch (CmdLineException e) {
+            System.err.println(e.getMessage());
+            System.err.println("java -cp s3pt.jar " + TraceTool.class.getName() + " [options...] TRACE_FILE");
+            parser.printUsage(System.err);
+            System.err.println();
+            return;
+        }
+
+        try (PrintWriter out = tool.output != null
+                ? new PrintWriter(new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(tool.output), StandardCharsets.UTF_8)))
+                : new PrintWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))) {
+            tool.convert(out);
+        }
+    }
+
+    void convert(PrintWriter out) throws IOException {
+        try (TraceReader reader = new TraceReader(traceFileName)) {
+            if (format == Format.CSV) {
+                writeCsv(reader, out);
+            } else {
+                writeHistograms(reader, out);
+            }
+        }
+    }
+
+    static void writeCsv(TraceReader reader, PrintWriter out) throws IOException {
+        out.println("start_epoch_us,thread,operation,status,key,bytes,latency_us");
+        TraceRecord record = new TraceRecord();
+        while (reader.next(record)) {
+            out.print(record.getStartEpochMicros());
+            out.print(',');
+            out.print(record.getThread());
+            out.print(',');
+            out.print(record.getOperation());
+            out.print(',');
+            out.print(record.getStatus());
+            out.print(',');
+            out.print(csvValue(record.getKey()));
+            out.print(',');
+            out.print(record.getBytes());
+            out.print(',');
+            out.println(record.getLatency());
+        }
+    }
+
+    static void writeHistograms(TraceReader reader, PrintWriter out) throws IOException {
+        Map<String, Histogram> histograms = new TreeMap<>();
+        TraceRecord record = new TraceRecord();
+        while (reader.next(record)) {
+            histograms.computeIfAbsent(record.getOperation() + " " + record.getStatus(),
+                    k -> LatencyHistograms.create())
+                    .recordValue(record.getLatency());
+        }
+
+        out.println(String.format("%-24s %10s %10s %10s %10s %10s %10s",
+                "operation status", "count", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            Histogram h = entry.getValue();
+            out.println(String.format("%-24s %10d %10.3f %10.3f %10.3f %10.3f %10.3f",
+                    entry.getKey(),
+                    h.getTotalCount(),
+                    h.getValueAtPercentile(50) / 1000.0,
+                    h.getValueAtPercentile(90) / 1000.0,
+                    h.getValueAtPercentile(99) / 1000.0,
+                    h.getValueAtPercentile(99.9) / 1000.0,
+                    h.getMaxValue() / 1000.0));
+        }
+    }
+
+    private static String csvValue(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+}
@@ -0,0 +1,110 @@
+package de.jeha.s3pt.trace;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Preallocated ring buffer of the requests of a single worker. The worker is the only producer and the
+ * {@link TraceWriter} the only consumer, so adding a request neither blocks nor allocates: it writes a few array
+ * elements and publishes them with an ordered store. If the writer cannot keep up, requests are dropped (and counted).
+ *
+ * @author jenshadlich@googlemail.com
+ */
+public class TraceBuffer {
+
+    private final int thread;
+    private final int mask;
+    private final long[] startNanos;
+    private final long[] latencies;
+    private final long[] bytes;
+    private final String[] operations;
+    private final String[] statuses;
+    private final String[] keys;
+
+    // next slot to be written by the producer and next slot to be read by the consumer
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * @param thread   number of the worker
+     * @param capacity number of requests, must be a power of 2
+     */
+    TraceBuffer(int thread, int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of 2: " + capacity);
+        }
+        this.thread = thread;
+        this.mask = capacity - 1;
+        this.startNanos = new long[capacity];
+        this.latencies = new long[capacity];
+        this.bytes = new long[capacity];
+        this.operations = new String[capacity];
+        this.statuses = new String[capacity];
+        this.keys = new String[capacity];
+    }
+
+    /**
+     * Add a request; called by the worker only.
+     *
+     * @param startNanos intended start time of the request (as given by {@link System#nanoTime()})
+     * @param operation  operation or request type, e.g. GET
+     * @param status     "ok" or the status of a failed request
+     * @param key        object key, may be null
+     * @param bytes      bytes transferred in the request and response body
+     * @param latency    latency in µs
+     * @return false if the buffer is full and the request was dropped
+     */
+    public boolean add(long startNanos, String operation, String status, String key, long bytes, long latency) {
+        final long t = tail.get();
+        if (t - head.get() > mask) {
+            dropped.lazySet(dropped.get() + 1);
+            return false;
+        }
+        final int i = (int) t & mask;
+        this.startNanos[i] = startNanos;
+        this.latencies[i] = latency;
+        this.bytes[i] = bytes;
+        this.operations[i] = operation;
+        this.statuses[i] = status;
+        this.keys[i] = key;
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    /**
+     * Pass all published requests to the consumer and release their slots; called by the writer only.
+     *
+     * @param consumer consumer of the requests
+     * @return number of requests consumed
+     * @throws IOException if the consumer fails
+     */
+    int drainTo(Consumer consumer) throws IOException {
+        final long h = head.get();
+        final long t = tail.get();
+        for (long s = h; s < t; s++) {
+            final int i = (int) s & mask;
+            consumer.accept(thread, startNanos[i], operations[i], statuses[i], keys[i], bytes[i], latencies[i]);
+            // do not keep the keys alive
+            keys[i] = null;
+        }
+        head.lazySet(t);
+        return (int) (t - h);
+    }
+
+    /**
+     * @return number of requests dropped because the buffer was full
+     */
+    long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Consumer of the requests of a buffer.
+     */
+    interface Consumer {
+        void accept(int thread, long startNanos, String operation, String status, String key, long bytes,
+                    long latency) throws IOException;
+    }
+
+}
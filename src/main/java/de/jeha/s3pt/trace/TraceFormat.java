@@ -0,0 +1,62 @@
+package de.jeha.s3pt.trace;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.EOFException;
+import java.io.IOException;
+
+/**
+ * Format of a trace file. The file is GZIP compressed and starts with a header: the magic number, the format version
+ * and the time the trace started (epoch µs). Entries follow, each one starts with its type:
+ * <ul>
+ * <li>{@link #NAME}: id and text of an operation or status, which is referenced by id in the following requests</li>
+ * <li>{@link #REQUEST}: thread, start time (difference to the previous request in µs), operation id, status id, key,
+ * bytes transferred and latency in µs</li>
+ * </ul>
+ * Numbers are written as variable-length integers, so the typical request takes about 10 bytes plus its key before
+ * compression.
+ *
+ * @author jenshadlich@googlemail.com
+ */
+public final class TraceFormat {
+
+    public static final int MAGIC = 0x53335054; // "S3PT"
+    public static final int VERSION = 1;
+
+    public static final int NAME = 1;
+    public static final int REQUEST = 2;
+
+    private TraceFormat() {
+    }
+
+    static void writeVarLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    static long readVarLong(DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final byte b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new EOFException("Malformed variable-length integer");
+    }
+
+    static void writeSignedVarLong(DataOutput out, long value) throws IOException {
+        // zig-zag encoding, so small negative numbers stay small
+        writeVarLong(out, (value << 1) ^ (value >> 63));
+    }
+
+    static long readSignedVarLong(DataInput in) throws IOException {
+        final long value = readVarLong(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+}
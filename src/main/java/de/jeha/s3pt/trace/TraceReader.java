@@ -0,0 +1,100 @@
+package de.jeha.s3pt.trace;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads a trace file written by {@link TraceWriter}, see {@link TraceFormat}.
+ *
+ * @author jenshadlich@googlemail.com
+ */
+public class TraceReader implements Closeable {
+
+    private final DataInputStream in;
+    private final long startEpochMicros;
+    private final List<String> names = new ArrayList<>();
+
+    private long previousStartMicros;
+
+    public TraceReader(String fileName) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(new FileInputStream(fileName), 64 * 1024), 64 * 1024));
+        final int magic = in.readInt();
+        if (magic != TraceFormat.MAGIC) {
+            in.close();
+            throw new IOException("Not a trace file: " + fileName);
+        }
+        final int version = in.readUnsignedShort();
+        if (version != TraceFormat.VERSION) {
+            in.close();
+            throw new IOException("Unsupported trace version: " + version);
+        }
+        this.startEpochMicros = in.readLong();
+        this.previousStartMicros = startEpochMicros;
+    }
+
+    /**
+     * @return time the trace started (epoch µs)
+     */
+    public long getStartEpochMicros() {
+        return startEpochMicros;
+    }
+
+    /**
+     * Read the next request.
+     *
+     * @param record record to be filled (to avoid an allocation per request)
+     * @return false at the end of the file
+     * @throws IOException if the file cannot be read or is malformed
+     */
+    public boolean next(TraceRecord record) throws IOException {
+        while (true) {
+            final int type = in.read();
+            if (type < 0) {
+                return false;
+            }
+            switch (type) {
+                case TraceFormat.NAME:
+                    final int id = (int) TraceFormat.readVarLong(in);
+                    final String name = in.readUTF();
+                    if (id != names.size()) {
+                        throw new IOException("Unexpected name id: " + id);
+                    }
+                    names.add(name);
+                    break;
+                case TraceFormat.REQUEST:
+                    record.thread = (int) TraceFormat.readVarLong(in);
+                    record.startEpochMicros = previousStartMicros + TraceFormat.readSignedVarLong(in);
+                    record.operation = name((int) TraceFormat.readVarLong(in));
+                    record.status = name((int) TraceFormat.readVarLong(in));
+                    record.key = in.readUTF();
+                    record.bytes = TraceFormat.readVarLong(in);
+                    record.latency = TraceFormat.readVarLong(in);
+                    previousStartMicros = record.startEpochMicros;
+                    return true;
+                default:
+                    throw new IOException("Unexpected entry type: " + type);
+            }
+        }
+    }
+
+    private String name(int id) throws IOException {
+        if (id >= names.size()) {
+            throw new EOFException("Unknown name id: " + id);
+        }
+        return names.get(id);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+}
@@ -0,0 +1,55 @@
+package de.jeha.s3pt.trace;
+
+/**
+ * A request read from a trace file. The record is reused by {@link TraceReader#next(TraceRecord)}.
+ *
+ * @author jenshadlich@googlemail.com
+ */
+public class TraceRecord {
+
+    int thread;
+    long startEpochMicros;
+    String operation;
+    String status;
+    String key;
+    long bytes;
+    long latency;
+
+    public int getThread() {
+        return thread;
+    }
+
+    /**
+     * @return intended start time of the request (epoch µs)
+     */
+    public long getStartEpochMicros() {
+        return startEpochMicros;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    /**
+     * @return object key, empty if not known
+     */
+    public String getKey() {
+        return key;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return latency in µs
+     */
+    public long getLatency() {
+        return latency;
+    }
+
+}
@@ -0,0 +1,154 @@
+package de.jeha.s3pt.trace;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes the requests of all workers to a trace file, see {@link TraceFormat}. Each worker adds its requests to a
+ * {@link TraceBuffer} of its own; a background thread drains the buffers every 100 ms, so compression and I/O are not
+ * done on the request path.
+ *
+ * @author jenshadlich@googlemail.com
+ */
+public class TraceWriter implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TraceWriter.class);
+    private static final int TOTAL_CAPACITY = 1 << 20;
+    private static final int MIN_CAPACITY = 1 << 8;
+    private static final int MAX_CAPACITY = 1 << 16;
+    private static final long FLUSH_MILLIS = 100;
+
+    private final String fileName;
+    private final DataOutputStream out;
+    private final long startEpochMicros;
+    private final long startNanos;
+    private final List<TraceBuffer> buffers = new CopyOnWriteArrayList<>();
+    private final Map<String, Integer> nameIds = new HashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "trace-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private long previousStartMicros;
+    private long requests = 0;
+
+    /**
+     * @param fileName name of the trace file, an existing file is overwritten
+     * @throws IOException if the file cannot be created
+     */
+    public TraceWriter(String fileName) throws IOException {
+        this.fileName = fileName;
+        this.out = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(new FileOutputStream(fileName), 64 * 1024), 64 * 1024));
+        this.startEpochMicros = System.currentTimeMillis() * 1_000;
+        this.startNanos = System.nanoTime();
+        this.previousStartMicros = startEpochMicros;
+
+        out.writeInt(TraceFormat.MAGIC);
+        out.writeShort(TraceFormat.VERSION);
+        out.writeLong(startEpochMicros);
+    }
+
+    /**
+     * Create a buffer for each worker of a run. The capacity of the buffers is limited, so many workers (e.g. virtual
+     * threads) do not need more memory than a few.
+     *
+     * @param workers number of workers
+     * @return buffers, one per worker
+     */
+    public List<TraceBuffer> createBuffers(int workers) {
+        final int capacity = Math.max(MIN_CAPACITY,
+                Math.min(MAX_CAPACITY, Integer.highestOneBit(TOTAL_CAPACITY / Math.max(workers, 1))));
+        List<TraceBuffer> created = new ArrayList<>();
+        for (int i = 0; i < workers; i++) {
+            TraceBuffer buffer = new TraceBuffer(buffers.size(), capacity);
+            buffers.add(buffer);
+            created.add(buffer);
+        }
+        return created;
+    }
+
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::flush, FLUSH_MILLIS, FLUSH_MILLIS, TimeUnit.MILLISECONDS);
+        LOG.info("Trace: {}", fileName);
+    }
+
+    /**
+     * Write the remaining requests and close the file.
+     */
+    @Override
+    public void close() throws IOException {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        out.close();
+
+        final long dropped = buffers.stream().mapToLong(TraceBuffer::getDropped).sum();
+        if (dropped > 0) {
+            LOG.warn("Trace: {} requests written, {} requests dropped (trace writer could not keep up)",
+                    requests, dropped);
+        } else {
+            LOG.info("Trace: {} requests written", requests);
+        }
+    }
+
+    private synchronized void flush() {
+        try {
+            for (TraceBuffer buffer : buffers) {
+                requests += buffer.drainTo(this::write);
+            }
+        } catch (IOException e) {
+            LOG.warn("Unable to write trace to {}", fileName, e);
+        }
+    }
+
+    private void write(int thread, long requestStartNanos, String operation, String status, String key, long bytes,
+                       long latency) throws IOException {
+        final int operationId = nameId(operation);
+        final int statusId = nameId(status);
+        final long startMicros = startEpochMicros + (requestStartNanos - startNanos) / 1_000;
+
+        out.writeByte(TraceFormat.REQUEST);
+        TraceFormat.writeVarLong(out, thread);
+        TraceFormat.writeSignedVarLong(out, startMicros - previousStartMicros);
+        TraceFormat.writeVarLong(out, operationId);
+        TraceFormat.writeVarLong(out, statusId);
+        out.writeUTF(key != null ? key : "");
+        TraceFormat.writeVarLong(out, bytes);
+        TraceFormat.writeVarLong(out, latency);
+        previousStartMicros = startMicros;
+    }
+
+    private int nameId(String name) throws IOException {
+        Integer id = nameIds.get(name);
+        if (id == null) {
+            id = nameIds.size();
+            nameIds.put(name, id);
+            out.writeByte(TraceFormat.NAME);
+            TraceFormat.writeVarLong(out, id);
+            out.writeUTF(name);
+        }
+        return id;
+    }
+
+}
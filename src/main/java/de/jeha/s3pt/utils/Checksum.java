@@ -0,0 +1,111 @@
+package de.jeha.s3pt.utils;
+
+import software.amazon.awssdk.core.checksums.Algorithm;
+import software.amazon.awssdk.core.checksums.Md5Checksum;
+import software.amazon.awssdk.core.checksums.SdkChecksum;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+/**
+ * Integrity checksum of uploads and downloads. Checksums of uploads are computed before the request is sent, so they
+ * are not part of the latency (but of the client CPU time); the storage system validates them on receipt. Downloads
+ * are validated while the response body is read.
+ *
+ * @author jenshadlich@googlemail.com
+ */
+public enum Checksum {
+
+    /**
+     * Defaults of the S3 clients: the blocking S3 client computes the MD5 digest of uploads while sending them and
+     * validates complete downloads against the ETag, the non-blocking S3 client sends no checksums.
+     */
+    SDK(null),
+    /**
+     * No checksums at all.
+     */
+    NONE(null),
+    /**
+     * Content-MD5 of uploads, precomputed from cached payloads, see {@link PayloadPool#contentMd5(int, int)}; the
+     * blocking S3 client validates complete downloads against the ETag.
+     */
+    MD5(null),
+    /**
+     * CRC32C of uploads (header x-amz-checksum-crc32c); downloads are validated if the response has a checksum.
+     */
+    CRC32C("x-amz-checksum-crc32c"),
+    /**
+     * SHA-256 of uploads (header x-amz-checksum-sha256); downloads are validated if the response has a checksum.
+     */
+    SHA256("x-amz-checksum-sha256");
+
+    /**
+     * Header of requests which ask for the checksum of the object in the response.
+     */
+    public static final String CHECKSUM_MODE_HEADER = "x-amz-checksum-mode";
+
+    private final String header;
+
+    Checksum(String header) {
+        this.header = header;
+    }
+
+    /**
+     * @return header of the checksum (of requests and responses), null for MD5 and modes without own checksum
+     */
+    public String header() {
+        return header;
+    }
+
+    /**
+     * @return new checksum calculator; only for MD5, CRC32C and SHA256
+     */
+    public SdkChecksum newChecksum() {
+        switch (this) {
+            case MD5:
+                return new Md5Checksum();
+            case CRC32C:
+                return SdkChecksum.forAlgorithm(Algorithm.CRC32C);
+            case SHA256:
+                return SdkChecksum.forAlgorithm(Algorithm.SHA256);
+            default:
+                throw new UnsupportedOperationException("No checksum calculator for " + this);
+        }
+    }
+
+    /**
+     * @param in     stream to compute the checksum of, read until its end
+     * @param buffer buffer to read the stream into
+     * @return base64 encoded checksum of the stream
+     * @throws IOException if the stream cannot be read
+     */
+    public String compute(InputStream in, byte[] buffer) throws IOException {
+        final SdkChecksum checksum = newChecksum();
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            checksum.update(buffer, 0, read);
+        }
+        return encode(checksum);
+    }
+
+    /**
+     * @param data buffer to compute the checksum of (its remaining bytes, the buffer itself is not modified)
+     * @return base64 encoded checksum of the buffer
+     */
+    public String compute(ByteBuffer data) {
+        final SdkChecksum checksum = newChecksum();
+        checksum.update(data.duplicate());
+        return encode(checksum);
+    }
+
+    /**
+     * @param checksum checksum calculator
+     * @return base64 encoded checksum, as sent in the headers
+     */
+    public static String encode(SdkChecksum checksum) {
+        return Base64.getEncoder().encodeToString(checksum.getChecksumBytes());
+    }
+
+}
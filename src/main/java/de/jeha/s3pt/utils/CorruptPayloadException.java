@@ -0,0 +1,39 @@
+package de.jeha.s3pt.utils;
+
+import com.amazonaws.AmazonClientException;
+
+/**
+ * Thrown if the response body of a request does not have the expected content (see {@link PayloadVerifier}) or
+ * checksum (see {@link Checksum}). Like other failures of the client it fails the request; it is counted with the
+ * status "corrupt".
+ *
+ * @author jenshadlich@googlemail.com
+ */
+public class CorruptPayloadException extends AmazonClientException {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String CONTENT_MISMATCH = "ContentMismatch";
+    public static final String LENGTH_MISMATCH = "LengthMismatch";
+    public static final String CHECKSUM_MISMATCH = "ChecksumMismatch";
+
+    private final String code;
+
+    /**
+     * @param code    kind of corruption, {@link #CONTENT_MISMATCH}, {@link #LENGTH_MISMATCH} or
+     *                {@link #CHECKSUM_MISMATCH}
+     * @param message details, e.g. the position of the first unexpected byte
+     */
+    public CorruptPayloadException(String code, String message) {
+        super(message);
+        this.code = code;
+    }
+
+    /**
+     * @return kind of corruption, {@link #CONTENT_MISMATCH}, {@link #LENGTH_MISMATCH} or {@link #CHECKSUM_MISMATCH}
+     */
+    public String getCode() {
+        return code;
+    }
+
+}
@@ -0,0 +1,67 @@
+package de.jeha.s3pt.utils;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramIterationValue;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+
+/**
+ * Helpers for the latency histograms. Histograms use a fixed number of log-scaled buckets, independent of the number
+ * of recorded values, and can be merged without loss.
+ *
+ * @author jenshadlich@googlemail.com
+ */
+public class LatencyHistograms {
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    /**
+     * @return empty histogram which grows with the highest recorded value
+     */
+    public static Histogram create() {
+        return new Histogram(SIGNIFICANT_DIGITS);
+    }
+
+    /**
+     * @param histogram histogram
+     * @return geometric mean of the recorded values; 0 if a recorded value is 0 or nothing was recorded
+     */
+    public static double geometricMean(Histogram histogram) {
+        if (histogram.getTotalCount() == 0 || histogram.getCountAtValue(0) > 0) {
+            return 0.0;
+        }
+        double sumOfLogs = 0.0;
+        for (HistogramIterationValue value : histogram.recordedValues()) {
+            sumOfLogs += value.getCountAtValueIteratedTo()
+                    * Math.log(histogram.medianEquivalentValue(value.getValueIteratedTo()));
+        }
+        return Math.exp(sumOfLogs / histogram.getTotalCount());
+    }
+
+    /**
+     * @param histogram histogram
+     * @return compressed binary representation
+     */
+    public static byte[] encode(Histogram histogram) {
+        ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        return Arrays.copyOf(buffer.array(), length);
+    }
+
+    /**
+     * @param bytes compressed binary representation, see {@link #encode(Histogram)}
+     * @return histogram
+     */
+    public static Histogram decode(byte[] bytes) {
+        try {
+            Histogram histogram = Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(bytes), 0);
+            histogram.setAutoResize(true);
+            return histogram;
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Invalid histogram", e);
+        }
+    }
+
+}
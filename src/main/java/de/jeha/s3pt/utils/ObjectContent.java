@@ -0,0 +1,81 @@
+package de.jeha.s3pt.utils;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Verifiable object contents: the content of an object is generated by a {@link PayloadGenerator} from a seed derived
+ * from a run seed and the object key. Any reader which knows the run seed (and uses the same generator settings) can
+ * verify an object in a streaming way, without keeping hashes of the uploaded objects, see {@link PayloadVerifier}.
+ *
+ * @author jenshadlich@googlemail.com
+ */
+public class ObjectContent {
+
+    private final PayloadGenerator generator;
+    private final long seed;
+
+    /**
+     * @param generator generator of the content, e.g. with a compression ratio
+     * @param seed      seed of the run, readers need the same seed as the writer
+     */
+    public ObjectContent(PayloadGenerator generator, long seed) {
+        this.generator = generator;
+        this.seed = seed;
+    }
+
+    /**
+     * @param key object key
+     * @return seed of the content of the object
+     */
+    public long seedOf(String key) {
+        // FNV-1a of the UTF-8 bytes of the key, mixed with the seed of the run
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash = (hash ^ (b & 0xFF)) * 0x100000001b3L;
+        }
+        return PayloadGenerator.mix(seed ^ hash);
+    }
+
+    /**
+     * @param key  object key
+     * @param size size of the object in bytes
+     * @return stream of the content of the object
+     */
+    public InputStream newStream(String key, long size) {
+        return new RandomGeneratedInputStream(size, generator, seedOf(key));
+    }
+
+    /**
+     * @param key  object key
+     * @param size size of the object in bytes
+     * @return buffer with the content of the object (on the heap, one per call)
+     */
+    public ByteBuffer newBuffer(String key, int size) {
+        final byte[] data = new byte[size];
+        generator.fill(seedOf(key), 0, data, 0, size);
+        return ByteBuffer.wrap(data);
+    }
+
+    /**
+     * @return new verifier of response bodies; not thread-safe, each thread needs its own verifier
+     */
+    public PayloadVerifier newVerifier() {
+        return new PayloadVerifier(this);
+    }
+
+    PayloadGenerator getGenerator() {
+        return generator;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    @Override
+    public String toString() {
+        return generator + ", seed " + seed;
+    }
+
+}
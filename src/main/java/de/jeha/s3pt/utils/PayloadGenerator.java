@@ -0,0 +1,202 @@
+package de.jeha.s3pt.utils;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Generates the payload of uploads with a target compression ratio and a target ratio of duplicate blocks, e.g. to
+ * test compression and deduplication of the storage system. The payload is split into blocks (aligned to the object
+ * offset):
+ * <ul>
+ * <li>a block starts with random bytes (1 / compression ratio of the block), the rest is zero, so each block compresses
+ * by the given ratio</li>
+ * <li>a share of the blocks (the dedup ratio) is taken from a small set of blocks which are the same in all objects;
+ * all other blocks are unique, their first 16 bytes are the seed of the stream and the number of the block</li>
+ * </ul>
+ * Random bytes are copied from a block of random data which is generated once per process, so generating the payload
+ * costs about as much as copying it. The payload is a function of the seed and the position, i.e. a stream can be
+ * read again from any position (e.g. to retry a request). The random data is the same in every process, so the payload
+ * of a stream can also be generated again by another process, e.g. to verify an object, see {@link ObjectContent}.
+ *
+ * @author jenshadlich@googlemail.com
+ */
+public class PayloadGenerator {
+
+    public static final int DEFAULT_BLOCK_SIZE = 4096;
+
+    /**
+     * Incompressible payload without duplicate blocks.
+     */
+    public static final PayloadGenerator RANDOM = new PayloadGenerator(1, 0, DEFAULT_BLOCK_SIZE);
+
+    /**
+     * Size of the shared block of random data, a power of 2.
+     */
+    static final int RANDOM_SIZE = 1 << 20;
+
+    private static final int RANDOM_MASK = RANDOM_SIZE - 1;
+    private static final long RANDOM_DATA_SEED = 0x5333505453333250L;
+    private static final byte[] RANDOM_DATA = createRandomData();
+    private static final int DUPLICATE_BLOCKS = 16;
+    private static final int STAMP_SIZE = 16;
+
+    private final double compressionRatio;
+    private final double dedupRatio;
+    private final int blockSize;
+    private final int randomBytes;
+    private final boolean random;
+
+    /**
+     * @param compressionRatio target compression ratio, at least 1 (incompressible)
+     * @param dedupRatio       share of duplicate blocks, between 0 (all blocks unique) and 1
+     * @param blockSize        size of the blocks in bytes
+     */
+    public PayloadGenerator(double compressionRatio, double dedupRatio, int blockSize) {
+        if (compressionRatio < 1 || dedupRatio < 0 || dedupRatio > 1 || blockSize < 1) {
+            throw new IllegalArgumentException("Compression ratio must be at least 1, dedup ratio between 0 and 1 and "
+                    + "block size at least 1 byte");
+        }
+        this.compressionRatio = compressionRatio;
+        this.dedupRatio = dedupRatio;
+        this.blockSize = blockSize;
+        this.randomBytes = (int) Math.max(1, Math.round(blockSize / compressionRatio));
+        this.random = compressionRatio == 1 && dedupRatio == 0;
+    }
+
+    /**
+     * Fill the given array with the payload of a stream.
+     *
+     * @param seed     seed of the stream, e.g. a random number per object
+     * @param position position in the stream of the first byte to generate
+     * @param data     array to fill
+     * @param offset   offset in the array
+     * @param length   number of bytes to generate
+     */
+    public void fill(long seed, long position, byte[] data, int offset, int length) {
+        if (random) {
+            // the stream is a slice of the random data, starting at an offset given by the seed
+            copyRandom(seed + position, data, offset, length);
+            return;
+        }
+        while (length > 0) {
+            final long block = position / blockSize;
+            final int inBlock = (int) (position - block * blockSize);
+            final int chunk = Math.min(length, blockSize - inBlock);
+            fillBlock(seed, block, inBlock, data, offset, chunk);
+            position += chunk;
+            offset += chunk;
+            length -= chunk;
+        }
+    }
+
+    /**
+     * @return true if the payload is random, i.e. neither compressible nor with duplicate blocks
+     */
+    public boolean isRandom() {
+        return random;
+    }
+
+    /**
+     * @param seed  seed of the stream
+     * @param block number of the block in the stream
+     * @return true if the block is one of the duplicate blocks
+     */
+    public boolean isDuplicate(long seed, long block) {
+        return isDuplicate(hash(seed, block));
+    }
+
+    /**
+     * Write the stamp which makes a block unique: the first 16 bytes of the block (at most its random bytes) are the
+     * seed of the stream and the number of the block.
+     *
+     * @param seed   seed of the stream
+     * @param block  number of the block in the stream
+     * @param from   offset in the block of the first byte given in the array
+     * @param to     offset in the block after the last byte given in the array
+     * @param data   array with the bytes of the block from the given offset
+     * @param offset offset in the array
+     */
+    public void stamp(long seed, long block, int from, int to, byte[] data, int offset) {
+        final int stampTo = Math.min(Math.min(to, randomBytes), STAMP_SIZE);
+        for (int i = from; i < stampTo; i++) {
+            final long value = i < 8 ? seed : block;
+            data[offset + i - from] = (byte) (value >>> ((i & 7) << 3));
+        }
+    }
+
+    private void fillBlock(long seed, long block, int from, byte[] data, int offset, int length) {
+        final long hash = hash(seed, block);
+        final boolean duplicate = isDuplicate(hash);
+        // duplicate blocks are taken from the same few positions of the random data
+        final long source = duplicate
+                ? Long.remainderUnsigned(hash, DUPLICATE_BLOCKS) * blockSize
+                : hash;
+        final int to = from + length;
+
+        final int randomTo = Math.min(to, randomBytes);
+        if (from < randomTo) {
+            copyRandom(source + from, data, offset, randomTo - from);
+        }
+        if (!duplicate) {
+            stamp(seed, block, from, to, data, offset);
+        }
+        final int zeroFrom = Math.max(from, randomBytes);
+        if (zeroFrom < to) {
+            Arrays.fill(data, offset + zeroFrom - from, offset + length, (byte) 0);
+        }
+    }
+
+    private boolean isDuplicate(long hash) {
+        return dedupRatio > 0 && (hash >>> 11) * 0x1.0p-53 < dedupRatio;
+    }
+
+    private static long hash(long seed, long block) {
+        return mix(seed ^ mix(block));
+    }
+
+    private static void copyRandom(long source, byte[] data, int offset, int length) {
+        while (length > 0) {
+            final int position = (int) (source & RANDOM_MASK);
+            final int chunk = Math.min(length, RANDOM_SIZE - position);
+            System.arraycopy(RANDOM_DATA, position, data, offset, chunk);
+            source += chunk;
+            offset += chunk;
+            length -= chunk;
+        }
+    }
+
+    /**
+     * Finalizer of SplitMix64.
+     */
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static byte[] createRandomData() {
+        final byte[] data = new byte[RANDOM_SIZE];
+        new Random(RANDOM_DATA_SEED).nextBytes(data);
+        return data;
+    }
+
+    public double getCompressionRatio() {
+        return compressionRatio;
+    }
+
+    public double getDedupRatio() {
+        return dedupRatio;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    @Override
+    public String toString() {
+        return random
+                ? "random"
+                : "compression ratio " + compressionRatio + ", dedup ratio " + dedupRatio + ", block size " + blockSize;
+    }
+
+}
@@ -0,0 +1,143 @@
+package de.jeha.s3pt.utils;
+
+import java.io.InputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+/**
+ * Input stream of upload data which is read from a {@link PayloadPool}. A thread reuses the stream for all of its
+ * requests, see {@link #next(long, Random)}; closing the stream (e.g. by the S3 client) has no effect.
+ * <p>
+ * Mark and reset are supported at any position (e.g. to retry a request).
+ *
+ * @author jenshadlich@googlemail.com
+ */
+public class PayloadInputStream extends InputStream {
+
+    private final PayloadPool pool;
+    private final ByteBuffer data;
+    private final int capacity;
+    private final byte[] single = new byte[1];
+
+    private long size;
+    private long seed;
+    private long start;
+    private long index;
+    private long mark;
+    private boolean stamped;
+
+    PayloadInputStream(PayloadPool pool, ByteBuffer data) {
+        this.pool = pool;
+        this.data = data;
+        this.capacity = data.capacity();
+    }
+
+    /**
+     * Start the data of the next request at a random offset of the pool.
+     *
+     * @param size   size of the data in bytes
+     * @param random random number generator
+     * @return this stream
+     */
+    public PayloadInputStream next(long size, Random random) {
+        this.size = size;
+        this.seed = random.nextLong();
+        this.start = pool.randomOffset(random, capacity);
+        this.index = 0;
+        this.mark = 0;
+        this.stamped = true;
+        return this;
+    }
+
+    /**
+     * Start the data of the next request at the offset of a fixed payload of the pool, e.g. to send a cached
+     * Content-MD5, see {@link PayloadPool#contentMd5(int, int)}. Unlike random payloads, the blocks are not stamped.
+     *
+     * @param size    size of the data in bytes
+     * @param variant number of the fixed payload of the size, less than {@link PayloadPool#VARIANTS}
+     * @return this stream
+     */
+    public PayloadInputStream next(long size, int variant) {
+        this.size = size;
+        this.start = pool.variantOffset(size, variant);
+        this.index = 0;
+        this.mark = 0;
+        this.stamped = false;
+        return this;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public void mark(int limit) {
+        this.mark = index;
+    }
+
+    @Override
+    public void reset() {
+        this.index = mark;
+    }
+
+    @Override
+    public int read() {
+        if (index >= size) {
+            return -1;
+        }
+        single[0] = data.get((int) ((start + index) % capacity));
+        if (stamped) {
+            pool.stamp(seed, start, index, single, 0, 1);
+        }
+        index++;
+        return single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) {
+        if (offset < 0 || length < 0 || length > bytes.length - offset) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (length == 0) {
+            return 0;
+        }
+        if (index >= size) {
+            return -1;
+        }
+
+        final int bytesToRead = (int) Math.min(length, size - index);
+        int read = 0;
+        while (read < bytesToRead) {
+            final int position = (int) ((start + index + read) % capacity);
+            final int chunk = Math.min(bytesToRead - read, capacity - position);
+            ((Buffer) data).position(position);
+            data.get(bytes, offset + read, chunk);
+            read += chunk;
+        }
+        if (stamped) {
+            pool.stamp(seed, start, index, bytes, offset, bytesToRead);
+        }
+        index += bytesToRead;
+        return bytesToRead;
+    }
+
+    @Override
+    public long skip(long bytesToSkip) {
+        final long skipped = Math.max(0, Math.min(bytesToSkip, size - index));
+        index += skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return (int) Math.min(Math.max(size - index, 0), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public void close() {
+        // reused for the next request
+    }
+
+}
@@ -0,0 +1,200 @@
+package de.jeha.s3pt.utils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Process-wide pool of upload data: a direct (off-heap) buffer which is filled once by a {@link PayloadGenerator}.
+ * Uploads read the data from a random offset of the pool through read-only views, so the upload path neither
+ * generates nor allocates data per request:
+ * <ul>
+ * <li>blocking uploads stream the data by a {@link PayloadInputStream}, which each thread reuses for all of its
+ * requests; objects larger than the pool wrap around at its end</li>
+ * <li>non-blocking uploads send a read-only slice of the pool (see {@link #slice(int, Random)})</li>
+ * </ul>
+ * If the generator has compressible or duplicate blocks, offsets are aligned to its blocks and the unique blocks of a
+ * stream are stamped with the seed of the stream, see {@link PayloadGenerator#stamp}.
+ * <p>
+ * For uploads with a precomputed Content-MD5 the pool also serves a few fixed payloads per object size (variants),
+ * whose digests are cached, see {@link #contentMd5(int, int)}.
+ *
+ * @author jenshadlich@googlemail.com
+ */
+public class PayloadPool {
+
+    public static final int DEFAULT_CAPACITY = 32 << 20;
+
+    /**
+     * Number of fixed payloads per object size, see {@link #contentMd5(int, int)}.
+     */
+    public static final int VARIANTS = 16;
+
+    private static final int FILL_CHUNK_SIZE = 1 << 20;
+    private static final int MAX_CACHED_DIGESTS = 64 * 1024;
+    private static final int DIGEST_BUFFER_SIZE = 64 * 1024;
+
+    private final PayloadGenerator generator;
+    private final ByteBuffer data;
+    private final int capacity;
+    private final int alignment;
+    private final long seed;
+    private final ConcurrentMap<Long, String> md5Digests = new ConcurrentHashMap<>();
+
+    /**
+     * @param generator   generator of the data
+     * @param minCapacity minimum size of the pool in bytes, e.g. the largest object of a slice
+     */
+    public PayloadPool(PayloadGenerator generator, int minCapacity) {
+        this(generator, minCapacity, ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * @param generator   generator of the data
+     * @param minCapacity minimum size of the pool in bytes, e.g. the largest object of a slice
+     * @param seed        seed of the data, e.g. for reproducible tests
+     */
+    PayloadPool(PayloadGenerator generator, int minCapacity, long seed) {
+        this.generator = generator;
+        this.alignment = generator.isRandom() ? 1 : generator.getBlockSize();
+        // a whole number of blocks, so a stream which wraps around stays aligned
+        final long blocks = (Math.max(minCapacity, DEFAULT_CAPACITY) + alignment - 1) / alignment;
+        this.capacity = (int) Math.min(blocks * alignment, Integer.MAX_VALUE / alignment * alignment);
+        this.seed = seed;
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(capacity);
+        byte[] chunk = new byte[Math.min(FILL_CHUNK_SIZE, capacity)];
+        for (int position = 0; position < capacity; position += chunk.length) {
+            final int length = Math.min(chunk.length, capacity - position);
+            generator.fill(seed, position, chunk, 0, length);
+            buffer.put(chunk, 0, length);
+        }
+        ((Buffer) buffer).clear();
+        this.data = buffer.asReadOnlyBuffer();
+    }
+
+    /**
+     * @return new stream of this pool; not thread-safe, each thread needs its own stream
+     */
+    public PayloadInputStream newStream() {
+        return new PayloadInputStream(this, data.duplicate());
+    }
+
+    /**
+     * @param size   size of the slice in bytes, at most the capacity of the pool
+     * @param random random number generator
+     * @return read-only view of the given size at a random offset of the pool
+     */
+    public ByteBuffer slice(int size, Random random) {
+        if (size > capacity) {
+            throw new IllegalArgumentException("Slice of " + size + " bytes exceeds the pool of " + capacity + " bytes");
+        }
+        final int offset = randomOffset(random, capacity - size + 1);
+        ByteBuffer slice = data.duplicate();
+        ((Buffer) slice).position(offset);
+        ((Buffer) slice).limit(offset + size);
+        return slice.slice();
+    }
+
+    /**
+     * @param size    size of the slice in bytes, at most the capacity of the pool
+     * @param variant number of the fixed payload of the size, less than {@link #VARIANTS}
+     * @return read-only view of the given size at the offset of the variant; it has the same data as
+     * {@link PayloadInputStream#next(long, int)}
+     */
+    public ByteBuffer slice(int size, int variant) {
+        if (size > capacity) {
+            throw new IllegalArgumentException("Slice of " + size + " bytes exceeds the pool of " + capacity + " bytes");
+        }
+        final int offset = variantOffset(size, variant);
+        ByteBuffer slice = data.duplicate();
+        ((Buffer) slice).position(offset);
+        ((Buffer) slice).limit(offset + size);
+        return slice.slice();
+    }
+
+    /**
+     * Content-MD5 of a fixed payload, see {@link PayloadInputStream#next(long, int)} and {@link #slice(int, int)}. It
+     * is computed on first use and cached (for a limited number of payloads).
+     *
+     * @param size    size of the payload in bytes
+     * @param variant number of the fixed payload of the size, less than {@link #VARIANTS}
+     * @return base64 encoded MD5 digest of the payload
+     */
+    public String contentMd5(int size, int variant) {
+        final Long key = ((long) size << 8) | variant;
+        String md5 = md5Digests.get(key);
+        if (md5 == null) {
+            try {
+                md5 = Checksum.MD5.compute(newStream().next(size, variant), new byte[DIGEST_BUFFER_SIZE]);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (md5Digests.size() < MAX_CACHED_DIGESTS) {
+                md5Digests.putIfAbsent(key, md5);
+            }
+        }
+        return md5;
+    }
+
+    /**
+     * @param size    size of the payload in bytes
+     * @param variant number of the fixed payload of the size
+     * @return offset of the fixed payload in the pool, aligned to the blocks of the generator
+     */
+    int variantOffset(long size, int variant) {
+        final long slots = Math.max(1, (capacity - size + 1) / alignment);
+        return (int) (slots * variant / VARIANTS) * alignment;
+    }
+
+    /**
+     * @param random random number generator
+     * @param bound  upper bound (exclusive)
+     * @return random offset in the pool, aligned to the blocks of the generator
+     */
+    int randomOffset(Random random, int bound) {
+        return random.nextInt(Math.max(1, bound / alignment)) * alignment;
+    }
+
+    /**
+     * Stamp the unique blocks of a stream which were copied from the pool, see {@link PayloadGenerator#stamp}.
+     *
+     * @param streamSeed seed of the stream
+     * @param start      offset in the pool of the first byte of the stream
+     * @param position   position in the stream of the first byte given in the array
+     * @param bytes      array with the bytes of the stream from the given position
+     * @param offset     offset in the array
+     * @param length     number of bytes given in the array
+     */
+    void stamp(long streamSeed, long start, long position, byte[] bytes, int offset, int length) {
+        if (generator.isRandom()) {
+            return;
+        }
+        final int blockSize = generator.getBlockSize();
+        final long end = position + length;
+        for (long block = position / blockSize; block * blockSize < end; block++) {
+            final long blockStart = block * blockSize;
+            final int from = (int) (Math.max(position, blockStart) - blockStart);
+            final int to = (int) (Math.min(end, blockStart + blockSize) - blockStart);
+            final long poolBlock = ((start + blockStart) % capacity) / blockSize;
+            if (!generator.isDuplicate(seed, poolBlock)) {
+                generator.stamp(streamSeed, block, from, to, bytes, offset + (int) (blockStart + from - position));
+            }
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public String toString() {
+        return generator + " (pool of " + capacity + " bytes)";
+    }
+
+}
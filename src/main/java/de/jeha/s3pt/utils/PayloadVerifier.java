@@ -0,0 +1,94 @@
+package de.jeha.s3pt.utils;
+
+/**
+ * Verifies response bodies against their expected content, see {@link ObjectContent}, while they are read: each chunk
+ * of the body is compared with the same chunk generated from the seed of the object, so nothing is kept per object.
+ * The time spent verifying is measured, so it can be kept apart from the latency of the request.
+ *
+ * @author jenshadlich@googlemail.com
+ */
+public class PayloadVerifier {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final PayloadGenerator generator;
+    private final ObjectContent content;
+    private final byte[] expected = new byte[BUFFER_SIZE];
+
+    private String key;
+    private long seed;
+    private long position;
+    private long mismatch;
+    private long nanos = -1;
+
+    PayloadVerifier(ObjectContent content) {
+        this.generator = content.getGenerator();
+        this.content = content;
+    }
+
+    /**
+     * Start to verify the response body of an object.
+     *
+     * @param key object key
+     */
+    public void start(String key) {
+        final long begin = System.nanoTime();
+        this.key = key;
+        this.seed = content.seedOf(key);
+        this.position = 0;
+        this.mismatch = -1;
+        this.nanos = Math.max(nanos, 0) + System.nanoTime() - begin;
+    }
+
+    /**
+     * Verify the next chunk of the response body.
+     *
+     * @param data   array with the chunk
+     * @param offset offset of the chunk in the array
+     * @param length length of the chunk
+     */
+    public void update(byte[] data, int offset, int length) {
+        final long begin = System.nanoTime();
+        int done = 0;
+        while (mismatch < 0 && done < length) {
+            final int chunk = Math.min(length - done, expected.length);
+            generator.fill(seed, position + done, expected, 0, chunk);
+            for (int i = 0; i < chunk; i++) {
+                if (data[offset + done + i] != expected[i]) {
+                    mismatch = position + done + i;
+                    break;
+                }
+            }
+            done += chunk;
+        }
+        position += length;
+        nanos += System.nanoTime() - begin;
+    }
+
+    /**
+     * Finish the verification of the response body.
+     *
+     * @param size expected size of the body, e.g. the content length of the response
+     * @throws CorruptPayloadException if the body does not have the expected content or size
+     */
+    public void finish(long size) {
+        if (mismatch >= 0) {
+            throw new CorruptPayloadException(CorruptPayloadException.CONTENT_MISMATCH,
+                    "Unexpected content of object with key: " + key + " at byte " + mismatch);
+        }
+        if (position != size) {
+            throw new CorruptPayloadException(CorruptPayloadException.LENGTH_MISMATCH,
+                    "Unexpected length of object with key: " + key + ", " + position + " of " + size + " bytes");
+        }
+    }
+
+    /**
+     * @return time spent verifying since the last call in ns, -1 if nothing was verified
+     */
+    public long takeNanos() {
+        final long taken = nanos;
+        nanos = -1;
+        return taken;
+    }
+
+}
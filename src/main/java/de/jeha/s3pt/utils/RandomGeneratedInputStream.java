@@ -1,87 +1,70 @@
 package de.jeha.s3pt.utils;
 
-import java.util.Random;
-import java.io.*;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-
-/* Input stream that generates random data with three possible configurations:
- * <ul>
- *     <li>Fully random stream created by calling one argument constructor.</li>
- *     <li>Stream that starts with fixed uniform block of bytes followed by fully random data.</li>
- *     <li>Stream that creates fixed blocks and populates each with randomly generated new byte.</li>
- * </ul>
- *
- * The first option is quite universal and may be used for any type of tests. The second option might be
- * useful when testing logic dependent on compressed data size and archived data are transferred via
- * network. However, the second configuration is not efficient in terms of complexity of compression and
- * its speed. In order to remove this bias the third configuration was introduced to provide evenly
- * distributed data that provide steady load for compression and decompression of generated files.
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Input stream of generated data for request bodies, see {@link PayloadGenerator}. By default the data is random and
+ * copied from a block of random bytes which is generated once per process; each stream starts at a random offset of the
+ * block. Reads neither allocate nor generate random numbers, so the stream keeps up with any network bandwidth.
+ * <p>
+ * Mark and reset are supported at any position (e.g. to retry a request).
  *
  * @author Petr Fiala, Jakub Stas
  */
 public class RandomGeneratedInputStream extends InputStream {
 
-    private static final Logger LOG = LoggerFactory.getLogger(RandomGeneratedInputStream.class);
-
-    private final Random generator = new Random();
+    private final PayloadGenerator generator;
 
-    /** Target size of the stream. */
+    /**
+     * Target size of the stream.
+     */
     private final long size;
 
-    private long mark;
-
-    /** Size of the block populated by same byte. */
-    private final long blockSize;
-
-    /** Size of expandable block being populated by same byte. */
-    private long currentBlockSize;
-
-    /** Value of last generated byte. */
-    private int lastUsedByte;
+    /**
+     * Seed of the generated data.
+     */
+    private final long seed;
 
-    /** Internal counter. */
     private long index;
+    private long mark;
     private boolean closed;
-
-    private byte[] buffer;
+    private byte[] single;
 
     /**
      * @param size target size of the stream [byte]
      */
     public RandomGeneratedInputStream(long size) {
-        this(size, 4096);
+        this(size, PayloadGenerator.RANDOM);
     }
 
     /**
-     * @param size target size of the stream [byte]
-     * @param blockSize size of the block populated by same byte [byte]
-     * @param type randomization strategy
+     * @param size      target size of the stream [byte]
+     * @param generator generator of the data, e.g. with a compression ratio
      */
-    public RandomGeneratedInputStream(long size, long blockSize) {
-        super();
+    public RandomGeneratedInputStream(long size, PayloadGenerator generator) {
+        this(size, generator, ThreadLocalRandom.current().nextLong());
+    }
 
-        if (blockSize < 1) {
-            throw new IllegalArgumentException("Block size must be at least one byte!");
+    /**
+     * @param size      target size of the stream [byte]
+     * @param generator generator of the data
+     * @param seed      seed of the data
+     */
+    RandomGeneratedInputStream(long size, PayloadGenerator generator, long seed) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Size must not be negative!");
         }
-
+        this.generator = generator;
         this.size = size;
-        this.index = 0;
-        this.mark = 0;
-        this.blockSize = blockSize;
-        this.buffer = new byte[(int)blockSize];
-        generator.nextBytes(this.buffer);
-
-        this.closed = false;
-        this.currentBlockSize = blockSize;
+        this.seed = seed;
     }
 
     public void rewind() {
         this.index = 0;
     }
 
-
     @Override
     public boolean markSupported() {
         return true;
@@ -89,73 +72,52 @@ public class RandomGeneratedInputStream extends InputStream {
 
     @Override
     public void mark(int limit) {
-        LOG.debug("Marking {}, with {}", this.index, limit);
-        if (this.mark != this.index) {
-            //generator.nextBytes(this.buffer);
-            this.mark = index;
-        }
+        this.mark = index;
     }
 
     @Override
     public void reset() {
-        LOG.debug("Resetting to mark");
         this.index = mark;
     }
 
     @Override
     public int read() throws IOException {
-        LOG.debug("Simple read");
         checkOpen();
-        if (index < size) {
-            index++;
-        } else {
+        if (index >= size) {
             return -1;
         }
-        int result = generator.nextInt() % 256;
-        if (result < 0) {
-            result = -result;
+        if (single == null) {
+            single = new byte[1];
         }
-        LOG.debug("Generated 1 byte");
-        return result;
+        generator.fill(seed, index++, single, 0, 1);
+        return single[0] & 0xFF;
     }
 
     @Override
     public int read(byte[] data, int offset, int length) throws IOException {
-        LOG.debug("Offset read {}, {}, {}", data.length, offset, length);
         checkOpen();
-        int bytesToWrite = (int)Math.min(length, size - index);
-        LOG.debug("Going to write {} bytes, {}/{}", bytesToWrite, index, size);
-        if (bytesToWrite < 1) {
+        if (offset < 0 || length < 0 || length > data.length - offset) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (length == 0) {
+            return 0;
+        }
+        if (index >= size) {
             return -1;
         }
 
-        System.arraycopy(buffer, (int)(index % blockSize), data, offset, length);
+        final int bytesToWrite = (int) Math.min(length, size - index);
+        generator.fill(seed, index, data, offset, bytesToWrite);
         index += bytesToWrite;
-        LOG.debug("Generated {}", bytesToWrite);
         return bytesToWrite;
-
-    }
-
-    @Override
-    public int read(byte[] data) throws IOException {
-        LOG.debug("Read bytes {}", data.length);
-        checkOpen();
-        int len = (int)Math.min(data.length, size - index);
-        if (len > 0) {
-            generator.nextBytes(data);
-            index += len;
-        } else {
-            return -1;
-        }
-        LOG.debug("Generated {}", len);
-        return len;
     }
 
     @Override
     public long skip(long bytesToSkip) throws IOException {
         checkOpen();
-        index += bytesToSkip;
-        return bytesToSkip;
+        final long skipped = Math.max(0, Math.min(bytesToSkip, size - index));
+        index += skipped;
+        return skipped;
     }
 
     @Override
@@ -171,6 +133,7 @@ public class RandomGeneratedInputStream extends InputStream {
 
     @Override
     public int available() {
-        return (int)(size - index);
+        return (int) Math.min(Math.max(size - index, 0), Integer.MAX_VALUE);
     }
+
 }
@@ -0,0 +1,110 @@
+package de.jeha.s3pt.utils;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Factory for the executors which run the workers of a test.
+ *
+ * @author jenshadlich@googlemail.com
+ */
+public class WorkerExecutors {
+
+    private static final Method NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = findNewVirtualThreadPerTaskExecutor();
+
+    /**
+     * @return true if the JVM supports virtual threads (Java 21 or higher)
+     */
+    public static boolean isVirtualThreadsSupported() {
+        return NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR != null;
+    }
+
+    /**
+     * @param threads           maximum number of tasks which run concurrently
+     * @param useVirtualThreads run each task on its own virtual thread; concurrency is limited by a semaphore instead
+     *                          of the size of a thread pool
+     * @return executor
+     */
+    public static ExecutorService create(int threads, boolean useVirtualThreads) {
+        if (!useVirtualThreads) {
+            return Executors.newFixedThreadPool(threads);
+        }
+        if (!isVirtualThreadsSupported()) {
+            throw new IllegalStateException("Virtual threads require Java 21 or higher");
+        }
+        try {
+            ExecutorService virtualThreadPerTaskExecutor =
+                    (ExecutorService) NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR.invoke(null);
+            return new ConcurrencyLimitedExecutor(virtualThreadPerTaskExecutor, threads);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create virtual thread executor", e);
+        }
+    }
+
+    // the project is built for Java 8, so the Java 21 API is looked up at runtime
+    private static Method findNewVirtualThreadPerTaskExecutor() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Runs each task on a thread of the delegate; a task waits for a permit before it starts, so the caller never
+     * blocks.
+     */
+    private static class ConcurrencyLimitedExecutor extends AbstractExecutorService {
+
+        private final ExecutorService delegate;
+        private final Semaphore permits;
+
+        ConcurrencyLimitedExecutor(ExecutorService delegate, int maxConcurrency) {
+            this.delegate = delegate;
+            this.permits = new Semaphore(maxConcurrency);
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            delegate.execute(() -> {
+                permits.acquireUninterruptibly();
+                try {
+                    command.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        }
+
+        @Override
+        public void shutdown() {
+            delegate.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return delegate.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return delegate.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return delegate.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return delegate.awaitTermination(timeout, unit);
+        }
+    }
+
+}
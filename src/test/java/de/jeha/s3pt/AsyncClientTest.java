@@ -0,0 +1,97 @@
+package de.jeha.s3pt;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs uploads with the non-blocking S3 client against a fake S3 endpoint which answers each request after
+ * {@link #RESPONSE_DELAY_MILLIS}, with a window of a single request in flight.
+ *
+ * @author jenshadlich@googlemail.com
+ */
+public class AsyncClientTest {
+
+    private static final long RESPONSE_DELAY_MILLIS = 100;
+
+    private final AtomicInteger uploads = new AtomicInteger();
+
+    private HttpServer s3;
+
+    @Before
+    public void start() throws Exception {
+        s3 = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        s3.createContext("/", exchange -> {
+            byte[] body = IOUtils.toByteArray(exchange.getRequestBody());
+            try {
+                Thread.sleep(RESPONSE_DELAY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            uploads.incrementAndGet();
+            exchange.getResponseHeaders().set("ETag", "\"" + DigestUtils.md5Hex(body) + "\"");
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        s3.start();
+    }
+
+    @After
+    public void stop() {
+        s3.stop(0);
+    }
+
+    @Test
+    public void testClosedLoopExcludesWaitForWindow() {
+        TestResult result = upload(0);
+
+        assertUploaded(result);
+        // the wait for the previous request to leave the window is not part of the latency
+        assertTrue(result.getMax() < 1.8 * RESPONSE_DELAY_MILLIS);
+    }
+
+    @Test
+    public void testOpenLoopIncludesWaitForWindow() {
+        // a request every 50 ms, the backend takes 100 ms: the requests queue for the window
+        TestResult result = upload(20);
+
+        assertUploaded(result);
+        assertTrue(result.getMax() > 2 * RESPONSE_DELAY_MILLIS);
+    }
+
+    private TestResult upload(double rate) {
+        S3PerformanceTest test = new S3PerformanceTest(TestSettings.builder()
+                .accessKey("accessKey")
+                .secretKey("secretKey")
+                .endpointUrl("127.0.0.1:" + s3.getAddress().getPort())
+                .useHttp(true)
+                .usePathStyleAccess(true)
+                .bucketName("bucket")
+                .operation(Operation.UPLOAD)
+                .n(5)
+                .size(1024)
+                .useAsync(true)
+                .maxInFlight(1)
+                .build());
+        try {
+            return test.run(1, rate);
+        } finally {
+            test.close();
+        }
+    }
+
+    private void assertUploaded(TestResult result) {
+        assertNotNull(result);
+        assertEquals(0, result.getErrors().getCount());
+        assertEquals(5, uploads.get());
+    }
+
+}
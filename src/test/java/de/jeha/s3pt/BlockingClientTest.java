@@ -0,0 +1,92 @@
+package de.jeha.s3pt;
+
+import com.sun.net.httpserver.HttpServer;
+import de.jeha.s3pt.utils.WorkerExecutors;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Runs uploads with the blocking S3 client against a fake S3 endpoint, on platform and on virtual threads.
+ *
+ * @author jenshadlich@googlemail.com
+ */
+public class BlockingClientTest {
+
+    private final AtomicInteger uploads = new AtomicInteger();
+
+    private HttpServer s3;
+
+    @Before
+    public void start() throws Exception {
+        s3 = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        s3.createContext("/", exchange -> {
+            byte[] body = IOUtils.toByteArray(exchange.getRequestBody());
+            uploads.incrementAndGet();
+            exchange.getResponseHeaders().set("ETag", "\"" + DigestUtils.md5Hex(body) + "\"");
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        s3.start();
+    }
+
+    @After
+    public void stop() {
+        s3.stop(0);
+    }
+
+    @Test
+    public void testUploadOnPlatformThreads() {
+        TestResult result = upload(false);
+
+        assertUploaded(result);
+    }
+
+    @Test
+    public void testUploadOnVirtualThreads() {
+        Assume.assumeTrue(WorkerExecutors.isVirtualThreadsSupported());
+
+        TestResult result = upload(true);
+
+        assertUploaded(result);
+    }
+
+    private TestResult upload(boolean useVirtualThreads) {
+        S3PerformanceTest test = new S3PerformanceTest(TestSettings.builder()
+                .accessKey("accessKey")
+                .secretKey("secretKey")
+                .endpointUrl("127.0.0.1:" + s3.getAddress().getPort())
+                .useHttp(true)
+                .usePathStyleAccess(true)
+                .signerOverride("S3Signer")
+                .bucketName("bucket")
+                .operation(Operation.UPLOAD)
+                .threads(4)
+                .n(5)
+                .size(1024)
+                .useVirtualThreads(useVirtualThreads)
+                .build());
+        try {
+            return test.run();
+        } finally {
+            test.close();
+        }
+    }
+
+    private void assertUploaded(TestResult result) {
+        assertNotNull(result);
+        assertEquals(0, result.getErrors().getCount());
+        assertEquals(20, uploads.get());
+        assertEquals(20 * 1024, result.getTransfer().getBytesUploaded());
+    }
+
+}
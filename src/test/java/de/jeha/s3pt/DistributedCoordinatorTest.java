@@ -0,0 +1,85 @@
+package de.jeha.s3pt;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.jeha.s3pt.utils.LatencyHistograms;
+import org.HdrHistogram.Histogram;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author jenshadlich@googlemail.com
+ */
+public class DistributedCoordinatorTest {
+
+    @Test
+    public void testMergeComputesPercentilesOverAllWorkers() {
+        // latencies are recorded in µs
+        byte[] fast = histogram(10_000, 90);
+        byte[] slow = histogram(100_000, 10);
+
+        TestResult result = DistributedCoordinator.merge(Arrays.asList(
+                new WorkerReport(900, fast, Collections.singletonMap("GET", fast), Collections.emptyMap(),
+                        Collections.singletonMap("4K-64K", fast), Collections.singletonMap("4K-64K", 9L << 20), 4,
+                        new TransferResult(0, 9 << 20, 0, 9, 0, 2.25), histogram(1_000_000, 10),
+                        new ErrorResult(10, 0.1, 3, Collections.singletonMap("503", 10L),
+                                Collections.singletonMap("SlowDown", 10L), Collections.singletonMap("GET", 10L), null,
+                                1000, 1000, 1000),
+                        new CpuResult(3, 1.5, 1.5 * 1000 / 900), null),
+                new WorkerReport(100, slow, Collections.singletonMap("PUT", slow), Collections.emptyMap(),
+                        Collections.singletonMap("1M-16M", slow), Collections.singletonMap("1M-16M", 1L << 20), 1,
+                        new TransferResult(1 << 20, 0, 1, 0, 1, 0), null, null, new CpuResult(1, 0.5, 5), null)));
+
+        // averaging the p95 of both workers would give 55 ms
+        assertEquals(100, result.getP95(), 0.1);
+        assertEquals(10, result.getP50(), 0.01);
+        assertEquals(1000, result.getOps(), 0.001);
+        assertEquals(900, result.getRequestTypes().get("GET").getOps(), 0.001);
+        assertEquals(100, result.getRequestTypes().get("PUT").getP99(), 0.1);
+        assertEquals(9 << 20, result.getTransfer().getBytesDownloaded());
+        assertEquals(1, result.getTransfer().getUploadMBps(), 0.001);
+        assertEquals(9 / 5.0, result.getTransfer().getDownloadMBpsPerThread(), 0.001);
+        assertEquals(10, result.getErrors().getCount());
+        assertEquals(10 / 110.0, result.getErrors().getRate(), 0.0001);
+        assertEquals(3, result.getErrors().getRetries());
+        assertEquals(Long.valueOf(10), result.getErrors().getByCode().get("SlowDown"));
+        assertEquals(10 / 100.0, result.getErrors().getRateByRequestType().get("GET"), 0.0001);
+        assertEquals(1000, result.getErrors().getP99(), 1);
+        assertEquals(Arrays.asList("4K-64K", "1M-16M"), new ArrayList<>(result.getSizeClasses().keySet()));
+        assertEquals(90, result.getSizeClasses().get("4K-64K").getCount());
+        assertEquals(1, result.getSizeClasses().get("1M-16M").getMbps(), 0.001);
+        assertEquals(4, result.getCpu().getSeconds(), 0.001);
+        assertEquals(2, result.getCpu().getCores(), 0.001);
+        assertEquals(2, result.getCpu().getPerRequest(), 0.001);
+    }
+
+    @Test
+    public void testWorkerReportAsJson() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        WorkerReport report = new WorkerReport(42.5, histogram(3, 5), Collections.emptyMap(), Collections.emptyMap(),
+                Collections.emptyMap(), null, 2,
+                new TransferResult(2048, 0, 0.5, 0, 0.25, 0), null, null, new CpuResult(0.5, 0.25, 5.88), null);
+
+        WorkerReport parsed = mapper.readValue(mapper.writeValueAsString(report), WorkerReport.class);
+
+        assertEquals(42.5, parsed.getOps(), 0.001);
+        assertEquals(5, parsed.toOperationResult().getHistogram().getTotalCount());
+        assertEquals(2, parsed.getThreads());
+        assertEquals(2048, parsed.getTransfer().getBytesUploaded());
+        assertEquals(0.25, parsed.getCpu().getCores(), 0.001);
+        assertNull(parsed.getError());
+        assertEquals("failed", mapper.readValue(
+                mapper.writeValueAsString(WorkerReport.failed("failed")), WorkerReport.class).getError());
+    }
+
+    private static byte[] histogram(long value, long count) {
+        Histogram histogram = LatencyHistograms.create();
+        histogram.recordValueWithCount(value, count);
+        return LatencyHistograms.encode(histogram);
+    }
+
+}
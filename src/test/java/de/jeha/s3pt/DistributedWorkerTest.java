@@ -0,0 +1,144 @@
+package de.jeha.s3pt;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kohsuke.args4j.CmdLineException;
+import org.kohsuke.args4j.CmdLineParser;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs a coordinator and two workers over localhost sockets against a fake S3 endpoint which accepts uploads. The
+ * workers use the non-blocking S3 client.
+ *
+ * @author jenshadlich@googlemail.com
+ */
+public class DistributedWorkerTest {
+
+    private static final String TOKEN = "s3cr3t";
+
+    private final List<String> authorizations = new CopyOnWriteArrayList<>();
+    private final List<DistributedWorker> workers = new ArrayList<>();
+
+    private HttpServer s3;
+
+    @Before
+    public void start() throws Exception {
+        s3 = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        s3.createContext("/", exchange -> {
+            byte[] body = IOUtils.toByteArray(exchange.getRequestBody());
+            authorizations.add(exchange.getRequestHeaders().getFirst("Authorization"));
+            exchange.getResponseHeaders().set("ETag", "\"" + DigestUtils.md5Hex(body) + "\"");
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        s3.start();
+
+        for (int i = 0; i < 2; i++) {
+            DistributedWorker worker = new DistributedWorker("127.0.0.1", 0, TOKEN, "workerKey", "workerSecret");
+            Thread thread = new Thread(worker::run, "worker-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            workers.add(worker);
+        }
+    }
+
+    @After
+    public void stop() throws IOException {
+        for (DistributedWorker worker : workers) {
+            worker.close();
+        }
+        s3.stop(0);
+    }
+
+    @Test
+    public void testDistributedUpload() throws Exception {
+        Main coordinator = new Main(
+                "--workers=" + workerList(), "--workerToken", TOKEN,
+                "--accessKey", "coordinatorKey", "--secretKey=coordinatorSecret",
+                "--endpointUrl", "127.0.0.1:" + s3.getAddress().getPort(), "--http", "--usePathStyleAccess",
+                "--async", "--bucketName", "bucket", "-n", "5", "--size", "1K");
+        coordinator.parse(new CmdLineParser(coordinator));
+
+        List<String> arguments = coordinator.workloadArguments();
+        assertFalse(arguments.stream().anyMatch(argument -> argument.contains("coordinator")));
+        assertFalse(arguments.stream().anyMatch(argument -> argument.startsWith("--workers")));
+        assertFalse(arguments.contains(TOKEN));
+
+        TestResult result = new DistributedCoordinator(Arrays.asList(workerList().split(",")), arguments, TOKEN)
+                .call();
+
+        assertNotNull(result);
+        assertEquals(10, result.getOperationResults().stream()
+                .mapToLong(operationResult -> operationResult.getHistogram().getTotalCount()).sum());
+        assertEquals(10 * 1024, result.getTransfer().getBytesUploaded());
+        assertEquals(10, authorizations.size());
+        // the workers sign with their own credentials
+        assertTrue(authorizations.stream()
+                .allMatch(authorization -> authorization.contains("Credential=workerKey/")));
+    }
+
+    @Test
+    public void testInvalidTokenIsRejected() {
+        TestResult result = new DistributedCoordinator(Arrays.asList(workerList().split(",")),
+                workload("--operation", "UPLOAD"), "guess").call();
+
+        assertNull(result);
+        assertTrue(authorizations.isEmpty());
+    }
+
+    @Test
+    public void testUnsupportedOptionIsRejected() {
+        TestResult result = new DistributedCoordinator(Arrays.asList(workerList().split(",")),
+                workload("--traceFileName", "/tmp/trace"), TOKEN).call();
+
+        assertNull(result);
+        assertTrue(authorizations.isEmpty());
+    }
+
+    @Test
+    public void testUnsupportedOperationIsRejected() {
+        TestResult result = new DistributedCoordinator(Arrays.asList(workerList().split(",")),
+                workload("--operation=DELETE_BUCKET"), TOKEN).call();
+
+        assertNull(result);
+        assertTrue(authorizations.isEmpty());
+    }
+
+    @Test(expected = CmdLineException.class)
+    public void testCoordinatorRejectsUnsupportedOption() throws Exception {
+        Main coordinator = new Main("--workers", workerList(), "--workerToken", TOKEN, "--bucketName", "bucket",
+                "-n", "5", "--keyFileName", "keys.txt");
+        coordinator.parse(new CmdLineParser(coordinator));
+    }
+
+    @Test(expected = CmdLineException.class)
+    public void testCoordinatorRequiresToken() throws Exception {
+        Main coordinator = new Main("--workers", workerList(), "--bucketName", "bucket", "-n", "5");
+        coordinator.parse(new CmdLineParser(coordinator));
+    }
+
+    private List<String> workload(String... options) {
+        List<String> arguments = new ArrayList<>(Arrays.asList(
+                "--endpointUrl", "127.0.0.1:" + s3.getAddress().getPort(), "--http", "--usePathStyleAccess",
+                "--bucketName", "bucket", "-n", "5"));
+        arguments.addAll(Arrays.asList(options));
+        return arguments;
+    }
+
+    private String workerList() {
+        return "127.0.0.1:" + workers.get(0).getPort() + ",127.0.0.1:" + workers.get(1).getPort();
+    }
+
+}
@@ -0,0 +1,90 @@
+package de.jeha.s3pt;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author jenshadlich@googlemail.com
+ */
+public class SaturationSearchTest {
+
+    private final List<Integer> threadsOfSteps = new ArrayList<>();
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    @Test
+    public void testStopOnSloBreach() {
+        // throughput grows, but p99 exceeds the SLO of 50 ms in the third step
+        SaturationResult result = search(SaturationSearch.Dimension.THREADS, 50, 5,
+                step(100, 10), step(200, 20), step(300, 80), step(400, 90));
+
+        assertEquals(3, result.getSteps().size());
+        assertFalse(result.getSteps().get(2).isSloMet());
+        // the step which breached the SLO is not sustainable
+        assertEquals(200, result.getMaxSustainableOps(), 0);
+        assertTrue(closed.get());
+    }
+
+    @Test
+    public void testStopOnThroughputPlateau() {
+        // 4% growth from the second to the third step is below the minimum growth of 5%
+        SaturationResult result = search(SaturationSearch.Dimension.THREADS, 0, 5,
+                step(100, 10), step(200, 10), step(208, 10), step(400, 10));
+
+        assertEquals(3, result.getSteps().size());
+        assertTrue(result.getSteps().get(2).isSloMet());
+        assertEquals(208, result.getMaxSustainableOps(), 0);
+    }
+
+    @Test
+    public void testStopAfterMaxSteps() {
+        SaturationResult result = search(SaturationSearch.Dimension.THREADS, 0, 5,
+                step(100, 10), step(200, 10), step(300, 10), step(400, 10), step(500, 10));
+
+        assertEquals(4, result.getSteps().size());
+        assertEquals(400, result.getMaxSustainableOps(), 0);
+        // start 2, step 2
+        assertEquals(8, result.getSteps().get(3).getThreads());
+        assertEquals(8, SaturationSearch.maxThreads(SaturationSearch.Dimension.THREADS, 1, 2, 2, 4));
+    }
+
+    @Test
+    public void testStopOnFailedStep() {
+        SaturationResult result = search(SaturationSearch.Dimension.RATE, 0, 5, step(100, 10), null);
+
+        assertEquals(1, result.getSteps().size());
+        assertEquals(100, result.getMaxSustainableOps(), 0);
+        assertTrue(closed.get());
+    }
+
+    @Test
+    public void testRateRamp() {
+        SaturationResult result = search(SaturationSearch.Dimension.RATE, 0, 5,
+                step(2, 10), step(4, 10), step(6, 10), step(8, 10));
+
+        // the number of threads stays fixed, the rate is raised
+        assertEquals(Integer.valueOf(3), threadsOfSteps.get(3));
+        assertEquals(8, result.getSteps().get(3).getRate(), 0);
+        assertEquals(3, SaturationSearch.maxThreads(SaturationSearch.Dimension.RATE, 3, 2, 2, 4));
+    }
+
+    /**
+     * Ramp from 2 by 2 in at most 4 steps with 3 threads (if the rate is raised).
+     */
+    private SaturationResult search(SaturationSearch.Dimension dimension, double sloP99, double minGrowth,
+                                    TestResult... results) {
+        return new SaturationSearch((threads, rate) -> {
+            threadsOfSteps.add(threads);
+            return results[threadsOfSteps.size() - 1];
+        }, () -> closed.set(true), dimension, 3, 2, 2, 4, sloP99, minGrowth).call();
+    }
+
+    private static TestResult step(double ops, double p99) {
+        return new TestResult(1, p99, p99 / 2, p99 / 2, p99 / 2, p99, p99, p99, ops);
+    }
+
+}
@@ -0,0 +1,75 @@
+package de.jeha.s3pt;
+
+import org.junit.Test;
+import org.kohsuke.args4j.CmdLineException;
+import org.kohsuke.args4j.CmdLineParser;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author jenshadlich@googlemail.com
+ */
+public class TestSettingsTest {
+
+    @Test
+    public void testDefaultsMatchCommandLine() throws Exception {
+        Main main = new Main("--accessKey", "a", "--secretKey", "b", "--bucketName", "bucket", "-n", "10");
+        main.parse(new CmdLineParser(main));
+
+        TestSettings fromCommandLine = main.settings();
+        TestSettings defaults = TestSettings.builder().build();
+
+        assertEquals(defaults.getEndpointUrl(), fromCommandLine.getEndpointUrl());
+        assertEquals(defaults.getOperation(), fromCommandLine.getOperation());
+        assertEquals(defaults.getThreads(), fromCommandLine.getThreads());
+        assertEquals(defaults.getSize(), fromCommandLine.getSize());
+        assertEquals(defaults.getCompressionRatio(), fromCommandLine.getCompressionRatio(), 0);
+        assertEquals(defaults.getDedupBlockSize(), fromCommandLine.getDedupBlockSize());
+        assertEquals(defaults.getChecksum(), fromCommandLine.getChecksum());
+        assertEquals(defaults.getMix(), fromCommandLine.getMix());
+        assertEquals(defaults.getMaxInFlight(), fromCommandLine.getMaxInFlight());
+        assertEquals(defaults.getRegion(), fromCommandLine.getRegion());
+    }
+
+    @Test
+    public void testCommandLineOptions() throws Exception {
+        Main main = new Main("--accessKey", "a", "--secretKey", "b", "--bucketName", "bucket", "--duration", "60",
+                "-t", "8", "--rate", "500", "--operation", "RANDOM_READ", "--async", "--maxInFlight", "64");
+        main.parse(new CmdLineParser(main));
+
+        TestSettings settings = main.settings();
+
+        assertEquals("bucket", settings.getBucketName());
+        assertEquals(60, settings.getDuration());
+        assertEquals(8, settings.getThreads());
+        assertEquals(500, settings.getRate(), 0);
+        assertEquals(Operation.RANDOM_READ, settings.getOperation());
+        assertTrue(settings.isUseAsync());
+        assertEquals(64, settings.getMaxInFlight());
+    }
+
+    @Test
+    public void testConnectionPoolIsSizedForTheLastRampStep() throws Exception {
+        Main main = new Main("--accessKey", "a", "--secretKey", "b", "--bucketName", "bucket", "--duration", "60",
+                "--operation", "RANDOM_READ", "--ramp", "THREADS", "--rampStart", "10", "--rampStep", "20",
+                "--rampMaxSteps", "5");
+        main.parse(new CmdLineParser(main));
+
+        assertEquals(90, main.settings().getMaxThreads());
+    }
+
+    @Test(expected = CmdLineException.class)
+    public void testInvalidRampDimension() throws Exception {
+        Main main = new Main("--accessKey", "a", "--secretKey", "b", "--bucketName", "bucket", "--duration", "60",
+                "--operation", "RANDOM_READ", "--ramp", "THRAEDS");
+        main.parse(new CmdLineParser(main));
+    }
+
+    @Test(expected = CmdLineException.class)
+    public void testInvalidRampStep() throws Exception {
+        Main main = new Main("--accessKey", "a", "--secretKey", "b", "--bucketName", "bucket", "--duration", "60",
+                "--operation", "RANDOM_READ", "--ramp", "RATE", "--rampStep", "0");
+        main.parse(new CmdLineParser(main));
+    }
+
+}
@@ -0,0 +1,106 @@
+package de.jeha.s3pt;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author jenshadlich@googlemail.com
+ */
+public class TrialResultTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testConfidenceInterval() {
+        TrialResult result = TrialResult.compute(results(new double[]{100, 102, 98, 101, 99}, 10), 0.05);
+
+        TrialResult.Summary ops = result.getMetrics().get("ops");
+        assertEquals(5, result.getTrials());
+        assertEquals(100.0, ops.getMean(), 1e-9);
+        assertEquals(Math.sqrt(2.5), ops.getStddev(), 1e-9);
+        // t(0.975, 4) = 2.7764
+        assertEquals(100 - 2.7764 * Math.sqrt(2.5) / Math.sqrt(5), ops.getCiLow(), 1e-3);
+        assertEquals(100 + 2.7764 * Math.sqrt(2.5) / Math.sqrt(5), ops.getCiHigh(), 1e-3);
+        assertTrue(result.isPassed());
+    }
+
+    @Test
+    public void testNoiseIsNoRegression() {
+        TrialResult baseline = TrialResult.compute(results(new double[]{100, 104, 96, 102, 98}, 10), 0.05);
+        TrialResult current = TrialResult.compute(results(new double[]{99, 103, 95, 101, 97}, 10), 0.05);
+
+        TrialResult compared = current.compareWith(baseline);
+        assertTrue(compared.isPassed());
+        assertFalse(compared.getVerdict().getComparisons().get("ops").isRegression());
+    }
+
+    @Test
+    public void testSignificantRegression() throws Exception {
+        TrialResult baseline = TrialResult.compute(results(new double[]{100, 101, 99, 100, 100}, 10), 0.05);
+        File file = folder.newFile("baseline.json");
+        baseline.writeToFileAsJson(file.getPath());
+
+        TrialResult current = TrialResult.compute(results(new double[]{90, 91, 89, 90, 90}, 10), 0.05);
+        TrialResult compared = current.compareWith(TrialResult.readFromFile(file.getPath()));
+
+        assertFalse(compared.isPassed());
+        assertEquals(1, compared.getVerdict().getRegressions().size());
+        assertEquals("ops", compared.getVerdict().getRegressions().get(0));
+        assertTrue(compared.getVerdict().getComparisons().get("ops").pValue() < 0.001);
+        // equal latencies without variance are no regression
+        assertFalse(compared.getVerdict().getComparisons().get("p99").isRegression());
+    }
+
+    @Test
+    public void testImprovementIsNoRegression() {
+        TrialResult baseline = TrialResult.compute(results(new double[]{100, 101, 99, 100, 100}, 10), 0.05);
+        TrialResult current = TrialResult.compute(results(new double[]{100, 101, 99, 100, 100}, 5), 0.05);
+
+        assertTrue(current.compareWith(baseline).isPassed());
+    }
+
+    @Test
+    public void testHolmCorrection() {
+        Map<String, Double> pValues = new LinkedHashMap<>();
+        pValues.put("a", 0.01);
+        pValues.put("b", 0.04);
+        pValues.put("c", 0.03);
+
+        Map<String, Double> adjusted = TrialResult.holm(pValues);
+        assertEquals(0.03, adjusted.get("a"), 1e-9);
+        assertEquals(0.06, adjusted.get("c"), 1e-9);
+        // monotone: not lower than the adjusted p-value of c
+        assertEquals(0.06, adjusted.get("b"), 1e-9);
+    }
+
+    @Test
+    public void testSmallDifferenceIsNoRegressionAfterCorrection() {
+        // a one-sided p-value of about 0.02 for ops alone, which does not survive the correction over six metrics
+        TrialResult baseline = TrialResult.compute(results(new double[]{100, 102, 98, 101, 99}, 10), 0.05);
+        TrialResult current = TrialResult.compute(results(new double[]{98, 100, 96, 99, 97}, 10), 0.05);
+
+        TrialResult.Comparison ops = current.compareWith(baseline).getVerdict().getComparisons().get("ops");
+        assertTrue(ops.pValue() < 0.05);
+        assertTrue(ops.adjustedPValue() >= 0.05);
+        assertFalse(ops.isRegression());
+    }
+
+    private static List<TestResult> results(double[] ops, double p99) {
+        List<TestResult> results = new ArrayList<>();
+        for (double o : ops) {
+            results.add(new TestResult(1, 2 * p99, p99 / 2, p99 / 2, p99 / 2, p99, p99, p99, o));
+        }
+        return results;
+    }
+
+}
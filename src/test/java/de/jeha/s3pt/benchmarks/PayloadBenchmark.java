@@ -0,0 +1,105 @@
+package de.jeha.s3pt.benchmarks;
+
+import de.jeha.s3pt.utils.PayloadGenerator;
+import de.jeha.s3pt.utils.PayloadInputStream;
+import de.jeha.s3pt.utils.PayloadPool;
+import de.jeha.s3pt.utils.RandomGeneratedInputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the payload of uploads, read in chunks like the S3 client does. Each invocation reads an object of
+ * 64 MB, so the score is given in MB/s (per thread).
+ * <p>
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Dbenchmark=PayloadBenchmark
+ *
+ * @author jenshadlich@googlemail.com
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PayloadBenchmark {
+
+    private static final int MB = 1024 * 1024;
+    private static final int OBJECT_MB = 64;
+    private static final long OBJECT_SIZE = (long) OBJECT_MB * MB;
+
+    @Param({"8192", "131072"})
+    private int chunkSize;
+
+    private byte[] buffer;
+    private Random random;
+    private PayloadGenerator payload;
+    private PayloadInputStream pooled;
+
+    @Setup
+    public void setUp() {
+        buffer = new byte[chunkSize];
+        random = new Random();
+        payload = new PayloadGenerator(2, 0.3, PayloadGenerator.DEFAULT_BLOCK_SIZE);
+        pooled = new PayloadPool(PayloadGenerator.RANDOM, 0).newStream();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OBJECT_MB)
+    public long randomGeneratedInputStream(Blackhole blackhole) throws IOException {
+        return drain(new RandomGeneratedInputStream(OBJECT_SIZE), blackhole);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OBJECT_MB)
+    public long compressibleWithDuplicates(Blackhole blackhole) throws IOException {
+        return drain(new RandomGeneratedInputStream(OBJECT_SIZE, payload), blackhole);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OBJECT_MB)
+    public long payloadPool(Blackhole blackhole) throws IOException {
+        return drain(pooled.next(OBJECT_SIZE, random), blackhole);
+    }
+
+    /**
+     * Baseline: fill each chunk with {@link Random#nextBytes(byte[])}, like the former implementation did.
+     */
+    @Benchmark
+    @OperationsPerInvocation(OBJECT_MB)
+    public long randomNextBytes(Blackhole blackhole) {
+        long bytes = 0;
+        while (bytes < OBJECT_SIZE) {
+            random.nextBytes(buffer);
+            blackhole.consume(buffer);
+            bytes += buffer.length;
+        }
+        return bytes;
+    }
+
+    private long drain(InputStream is, Blackhole blackhole) throws IOException {
+        long bytes = 0;
+        int read;
+        while ((read = is.read(buffer, 0, buffer.length)) > 0) {
+            blackhole.consume(buffer);
+            bytes += read;
+        }
+        return bytes;
+    }
+
+}
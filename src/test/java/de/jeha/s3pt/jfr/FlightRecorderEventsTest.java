@@ -0,0 +1,81 @@
+package de.jeha.s3pt.jfr;
+
+import de.jeha.s3pt.OperationResult;
+import de.jeha.s3pt.operations.AbstractOperation;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * @author jenshadlich@googlemail.com
+ */
+public class FlightRecorderEventsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testEvents() throws Exception {
+        assumeTrue(FlightRecorderEvents.isSupported());
+
+        Path file = folder.newFile("test.jfr").toPath();
+        try (Recording recording = new Recording()) {
+            recording.enable(RequestEvent.class);
+            recording.enable(RunPhaseEvent.class);
+            recording.start();
+
+            RunPhaseRecorder runPhaseRecorder = new RunPhaseRecorder("UPLOAD", 1, 0);
+            runPhaseRecorder.start(null);
+            TwoRequests operation = new TwoRequests();
+            operation.setRecordEvents(true, "UPLOAD");
+            operation.call();
+            runPhaseRecorder.close();
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        List<RecordedEvent> requests = events.stream()
+                .filter(e -> e.getEventType().getName().equals("de.jeha.s3pt.Request"))
+                .collect(Collectors.toList());
+        assertEquals(2, requests.size());
+        assertEquals("UPLOAD", requests.get(0).getString("operation"));
+        assertEquals("key-1", requests.get(0).getString("key"));
+        assertEquals(1024, requests.get(0).getLong("bytes"));
+        assertEquals("ok", requests.get(0).getString("status"));
+        assertEquals("key-2", requests.get(1).getString("key"));
+
+        List<RecordedEvent> phases = events.stream()
+                .filter(e -> e.getEventType().getName().equals("de.jeha.s3pt.RunPhase"))
+                .collect(Collectors.toList());
+        assertEquals(1, phases.size());
+        assertEquals("run", phases.get(0).getString("phase"));
+        assertEquals("UPLOAD", phases.get(0).getString("operation"));
+    }
+
+    private static class TwoRequests extends AbstractOperation {
+
+        @Override
+        public OperationResult call() {
+            for (int i = 1; i <= 2; i++) {
+                final long intendedStart = awaitNextRequest();
+                traceKey("key-" + i);
+                recordLatency(intendedStart);
+                recordBytes(intendedStart, 1024, 0);
+            }
+            return getResult();
+        }
+    }
+
+}
@@ -0,0 +1,68 @@
+package de.jeha.s3pt.metrics;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import de.jeha.s3pt.utils.CorruptPayloadException;
+import org.junit.Test;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.net.SocketTimeoutException;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author jenshadlich@googlemail.com
+ */
+public class RequestErrorTest {
+
+    @Test
+    public void testServiceException() {
+        AmazonServiceException e = new AmazonServiceException("Please reduce your request rate.");
+        e.setStatusCode(503);
+        e.setErrorCode("SlowDown");
+
+        RequestError error = RequestError.of(e);
+
+        assertEquals("503", error.getStatus());
+        assertEquals("SlowDown", error.getCode());
+    }
+
+    @Test
+    public void testClientException() {
+        RequestError error = RequestError.of(
+                new AmazonClientException("Unable to execute HTTP request", new SocketTimeoutException()));
+
+        assertEquals(RequestError.CLIENT, error.getStatus());
+        assertEquals("SocketTimeoutException", error.getCode());
+    }
+
+    @Test
+    public void testCorruptPayload() {
+        RequestError error = RequestError.of(
+                new CorruptPayloadException(CorruptPayloadException.CONTENT_MISMATCH, "Unexpected content"));
+
+        assertEquals(RequestError.CORRUPT, error.getStatus());
+        assertEquals(CorruptPayloadException.CONTENT_MISMATCH, error.getCode());
+    }
+
+    @Test
+    public void testAsyncServiceException() {
+        Throwable t = new CompletionException(S3Exception.builder()
+                .statusCode(500)
+                .awsErrorDetails(AwsErrorDetails.builder().errorCode("InternalError").build())
+                .build());
+
+        RequestError error = RequestError.of(t);
+
+        assertEquals("500", error.getStatus());
+        assertEquals("InternalError", error.getCode());
+    }
+
+    @Test
+    public void testUnexpectedException() {
+        assertNull(RequestError.of(new NullPointerException()));
+    }
+
+}
@@ -0,0 +1,36 @@
+package de.jeha.s3pt.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author jenshadlich@googlemail.com
+ */
+public class RequestPhaseTimerTest {
+
+    @Test
+    public void testTake() {
+        RequestPhaseTimer timer = RequestPhaseTimer.current();
+        timer.reset();
+        long[] micros = new long[RequestPhase.values().length];
+
+        assertFalse(timer.take(System.nanoTime(), micros));
+
+        // two requests, e.g. PUT and GET of UPLOAD_AND_READ
+        timer.dnsResolved(100);
+        assertEquals(100, timer.takeUnassignedDns());
+        timer.add(RequestPhase.TTFB, 1_000);
+        timer.add(RequestPhase.TTFB, 2_000);
+        timer.clientExecuteEnded(1_000_000);
+
+        assertTrue(timer.take(3_000_000, micros));
+        assertEquals(100, micros[RequestPhase.DNS.ordinal()]);
+        assertEquals(3_000, micros[RequestPhase.TTFB.ordinal()]);
+        assertEquals(2_000, micros[RequestPhase.BODY.ordinal()]);
+        assertEquals(0, timer.takeUnassignedDns());
+
+        assertFalse(timer.take(4_000_000, micros));
+    }
+
+}
@@ -0,0 +1,101 @@
+package de.jeha.s3pt.operations;
+
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.Protocol;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.AmazonS3Client;
+import com.amazonaws.services.s3.S3ClientOptions;
+import com.sun.net.httpserver.HttpServer;
+import de.jeha.s3pt.OperationResult;
+import de.jeha.s3pt.operations.size.SizeDistribution;
+import de.jeha.s3pt.utils.PayloadGenerator;
+import de.jeha.s3pt.utils.PayloadPool;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs PUT and DELETE requests against a fake S3 endpoint.
+ *
+ * @author jenshadlich@googlemail.com
+ */
+public class MixedWorkloadTest {
+
+    private final List<String> uploaded = new CopyOnWriteArrayList<>();
+    private final List<String> deleted = new CopyOnWriteArrayList<>();
+
+    private HttpServer s3;
+    private AmazonS3 s3Client;
+
+    @Before
+    public void start() throws Exception {
+        s3 = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        s3.createContext("/", exchange -> {
+            byte[] body = IOUtils.toByteArray(exchange.getRequestBody());
+            final String key = exchange.getRequestURI().getPath().substring("/bucket/".length());
+            if ("DELETE".equals(exchange.getRequestMethod())) {
+                deleted.add(key);
+                exchange.sendResponseHeaders(204, -1);
+            } else {
+                uploaded.add(key);
+                exchange.getResponseHeaders().set("ETag", "\"" + DigestUtils.md5Hex(body) + "\"");
+                exchange.sendResponseHeaders(200, -1);
+            }
+            exchange.close();
+        });
+        s3.start();
+
+        s3Client = new AmazonS3Client(new BasicAWSCredentials("accessKey", "secretKey"),
+                new ClientConfiguration().withProtocol(Protocol.HTTP).withSignerOverride("S3SignerType"));
+        s3Client.setS3ClientOptions(S3ClientOptions.builder().setPathStyleAccess(true).build());
+        s3Client.setEndpoint("127.0.0.1:" + s3.getAddress().getPort());
+    }
+
+    @After
+    public void stop() {
+        s3.stop(0);
+    }
+
+    @Test
+    public void testDeletesUploadedObjects() {
+        MixedWorkload workload = mixedWorkload("PUT=50,DELETE=50", 200, 5);
+
+        OperationResult result = workload.call();
+
+        assertEquals(0, result.getErrors().getCount());
+        assertEquals(200, uploaded.size() + deleted.size());
+        assertFalse(deleted.isEmpty());
+        assertTrue(uploaded.containsAll(deleted));
+        // each object is deleted at most once
+        assertEquals(deleted.size(), new HashSet<>(deleted).size());
+    }
+
+    @Test
+    public void testDeleteWithoutUploadedObjectIsIssuedAsPut() {
+        MixedWorkload workload = mixedWorkload("DELETE=1", 10, 5);
+
+        workload.call();
+
+        // every other DELETE has no uploaded object left to delete
+        assertEquals(5, workload.getDeletesAsPuts());
+        assertEquals(5, uploaded.size());
+        assertEquals(uploaded, deleted);
+    }
+
+    private MixedWorkload mixedWorkload(String mix, int n, int maxUploadedKeys) {
+        return new MixedWorkload(s3Client, "bucket", n, SizeDistribution.fixed(1024),
+                new PayloadPool(PayloadGenerator.RANDOM, 0), null, OperationMix.parse(mix), false,
+                maxUploadedKeys);
+    }
+
+}
@@ -0,0 +1,50 @@
+package de.jeha.s3pt.operations;
+
+import org.junit.Test;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author jenshadlich@googlemail.com
+ */
+public class OperationMixTest {
+
+    @Test
+    public void testWeights() {
+        OperationMix mix = OperationMix.parse("GET=70, HEAD=15, put=10, DELETE=5, LIST=0");
+
+        assertFalse(mix.contains(OperationMix.RequestType.LIST));
+
+        Map<OperationMix.RequestType, Integer> counts = new EnumMap<>(OperationMix.RequestType.class);
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            counts.merge(mix.next(random), 1, Integer::sum);
+        }
+
+        assertEquals(70_000, counts.get(OperationMix.RequestType.GET), 1_000);
+        assertEquals(15_000, counts.get(OperationMix.RequestType.HEAD), 1_000);
+        assertEquals(10_000, counts.get(OperationMix.RequestType.PUT), 1_000);
+        assertEquals(5_000, counts.get(OperationMix.RequestType.DELETE), 1_000);
+        assertNull(counts.get(OperationMix.RequestType.LIST));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownRequestType() {
+        OperationMix.parse("GET=70,POST=30");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingWeight() {
+        OperationMix.parse("GET");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoWeights() {
+        OperationMix.parse("GET=0");
+    }
+
+}
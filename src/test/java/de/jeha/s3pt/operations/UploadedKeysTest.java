@@ -0,0 +1,50 @@
+package de.jeha.s3pt.operations;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author jenshadlich@googlemail.com
+ */
+public class UploadedKeysTest {
+
+    @Test
+    public void testOldestFirst() {
+        UploadedKeys keys = new UploadedKeys(3);
+        assertTrue(keys.isEmpty());
+        assertNull(keys.poll());
+
+        keys.add("a");
+        keys.add("b");
+
+        assertEquals("a", keys.poll());
+        assertEquals("b", keys.poll());
+        assertTrue(keys.isEmpty());
+    }
+
+    @Test
+    public void testDropsOldestIfFull() {
+        UploadedKeys keys = new UploadedKeys(3);
+        for (int i = 0; i < 10; i++) {
+            keys.add("key-" + i);
+        }
+
+        assertEquals(3, keys.size());
+        assertEquals(7, keys.getDropped());
+        assertEquals("key-7", keys.poll());
+        assertEquals("key-8", keys.poll());
+
+        // wraps around the end of the ring
+        keys.add("key-10");
+        assertEquals("key-9", keys.poll());
+        assertEquals("key-10", keys.poll());
+        assertTrue(keys.isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRequiresCapacity() {
+        new UploadedKeys(0);
+    }
+
+}
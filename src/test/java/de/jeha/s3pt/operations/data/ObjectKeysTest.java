@@ -4,6 +4,9 @@ import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
+import java.util.List;
+
 import static org.junit.Assert.*;
 
 /**
@@ -64,4 +67,33 @@ public class ObjectKeysTest {
         assertTrue(three > 10);
     }
 
+    @Test
+    public void testGetAcrossChunks() {
+        // chunks of 16 bytes, so the keys are spread over several chunks; one key is longer than a chunk
+        ObjectKeys objectKeys = new ObjectKeys(16);
+        List<String> keys = Arrays.asList("a", "bb/ccc", "", "d\u00e9j\u00e0-vu", "0123456789abcdef-long", "e", "\u6f22\u5b57", "fff");
+        keys.forEach(objectKeys::add);
+
+        assertEquals(keys.size(), objectKeys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            assertEquals(keys.get(i), objectKeys.get(i));
+        }
+        assertNull(objectKeys.get(-1));
+        assertNull(objectKeys.get(keys.size()));
+    }
+
+    @Test
+    public void testMany() {
+        ObjectKeys objectKeys = new ObjectKeys(1000);
+        for (int i = 0; i < 100_000; i++) {
+            objectKeys.add("key-" + i);
+        }
+
+        assertEquals(100_000, objectKeys.size());
+        assertEquals("key-0", objectKeys.get(0));
+        assertEquals("key-54321", objectKeys.get(54321));
+        assertEquals("key-99999", objectKeys.get(99999));
+        assertTrue(objectKeys.getRandom().startsWith("key-"));
+    }
+
 }
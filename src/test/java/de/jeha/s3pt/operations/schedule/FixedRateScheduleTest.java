@@ -0,0 +1,44 @@
+package de.jeha.s3pt.operations.schedule;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author jenshadlich@googlemail.com
+ */
+public class FixedRateScheduleTest {
+
+    @Test
+    public void testSlotsAreEvenlySpaced() {
+        RequestSchedule schedule = new FixedRateSchedule(1_000);
+
+        long first = schedule.awaitNext();
+        for (int i = 1; i <= 50; i++) {
+            long intendedStart = schedule.awaitNext();
+
+            assertEquals(TimeUnit.MILLISECONDS.toNanos(i), intendedStart - first);
+            assertTrue(System.nanoTime() >= intendedStart);
+        }
+    }
+
+    @Test
+    public void testIntendedStartIsKeptWhenBehindSchedule() throws Exception {
+        RequestSchedule schedule = new FixedRateSchedule(1_000);
+
+        long first = schedule.awaitNext();
+        Thread.sleep(20);
+        long second = schedule.awaitNext();
+
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(1), second - first);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalRate() {
+        new FixedRateSchedule(0);
+    }
+
+}
@@ -0,0 +1,50 @@
+package de.jeha.s3pt.operations.schedule;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author jenshadlich@googlemail.com
+ */
+public class RunClockTest {
+
+    @Test
+    public void testPhases() {
+        RunClock runClock = new RunClock(10, 60, 5, TimeUnit.SECONDS);
+        runClock.start();
+
+        final long now = System.nanoTime();
+
+        assertTrue(runClock.isRunning(now));
+        assertFalse(runClock.isSteadyState(now));
+
+        assertTrue(runClock.isSteadyState(now + TimeUnit.SECONDS.toNanos(11)));
+        assertTrue(runClock.isSteadyState(now + TimeUnit.SECONDS.toNanos(69)));
+
+        assertFalse(runClock.isSteadyState(now + TimeUnit.SECONDS.toNanos(71)));
+        assertTrue(runClock.isRunning(now + TimeUnit.SECONDS.toNanos(71)));
+
+        assertFalse(runClock.isRunning(now + TimeUnit.SECONDS.toNanos(76)));
+    }
+
+    @Test
+    public void testWithoutWarmupAndCooldown() {
+        RunClock runClock = new RunClock(0, 1, 0, TimeUnit.SECONDS);
+        runClock.start();
+
+        final long now = System.nanoTime();
+
+        assertTrue(runClock.isSteadyState(now));
+        assertFalse(runClock.isRunning(now + TimeUnit.SECONDS.toNanos(2)));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testNotStarted() {
+        new RunClock(0, 1, 0, TimeUnit.SECONDS).isRunning(System.nanoTime());
+    }
+
+}
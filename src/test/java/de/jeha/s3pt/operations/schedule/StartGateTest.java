@@ -0,0 +1,73 @@
+package de.jeha.s3pt.operations.schedule;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author jenshadlich@googlemail.com
+ */
+public class StartGateTest {
+
+    @Test
+    public void testOpensWhenAllPartiesArrived() throws Exception {
+        RunClock runClock = new RunClock(0, 1, 0, TimeUnit.SECONDS);
+        AtomicInteger opened = new AtomicInteger();
+        StartGate startGate = new StartGate(3, () -> {
+            opened.incrementAndGet();
+            runClock.start();
+        });
+
+        ExecutorService executorService = Executors.newFixedThreadPool(3);
+        try {
+            List<Future<Boolean>> workers = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                final long setUpMillis = 50L * i;
+                workers.add(executorService.submit(() -> {
+                    Thread.sleep(setUpMillis);
+                    startGate.arriveAndAwait();
+                    // the clock was started before any worker was released
+                    return runClock.isRunning(System.nanoTime());
+                }));
+            }
+            for (Future<Boolean> worker : workers) {
+                assertTrue(worker.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        assertTrue(startGate.isOpen());
+        assertEquals(1, opened.get());
+    }
+
+    @Test
+    public void testStaysClosedUntilLastArrival() {
+        AtomicInteger opened = new AtomicInteger();
+        StartGate startGate = new StartGate(2, opened::incrementAndGet);
+
+        startGate.arrive();
+        assertFalse(startGate.isOpen());
+        assertEquals(0, opened.get());
+
+        // e.g. a worker whose set-up failed
+        startGate.arrive();
+        assertTrue(startGate.isOpen());
+        assertEquals(1, opened.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRequiresParties() {
+        new StartGate(0, () -> {
+        });
+    }
+
+}
@@ -0,0 +1,115 @@
+package de.jeha.s3pt.operations.size;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author jenshadlich@googlemail.com
+ */
+public class SizeDistributionTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testFixed() {
+        SizeDistribution sizes = SizeDistribution.fixed(1024);
+
+        assertTrue(sizes.isFixed());
+        assertEquals(1024, sizes.max());
+        assertEquals(1024, sizes.next(new Random(42)));
+    }
+
+    @Test
+    public void testUniform() {
+        SizeDistribution sizes = SizeDistribution.parse("uniform:1K-2K");
+
+        assertFalse(sizes.isFixed());
+        assertEquals(2048, sizes.max());
+        Random random = new Random(42);
+        long sum = 0;
+        for (int i = 0; i < 10_000; i++) {
+            int size = sizes.next(random);
+            assertTrue(size >= 1024 && size <= 2048);
+            sum += size;
+        }
+        assertEquals(1536, sum / 10_000.0, 10);
+    }
+
+    @Test
+    public void testLogNormal() {
+        SizeDistribution sizes = SizeDistribution.parse("lognormal:median=64K,sigma=1.5,max=1M");
+
+        assertEquals(1 << 20, sizes.max());
+        Random random = new Random(42);
+        int[] values = new int[10_001];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = sizes.next(random);
+            assertTrue(values[i] <= 1 << 20);
+        }
+        Arrays.sort(values);
+        assertEquals(64 * 1024, values[values.length / 2], 4 * 1024);
+    }
+
+    @Test
+    public void testBuckets() {
+        SizeDistribution sizes = SizeDistribution.parse("buckets:1K=60, 4K-8K=30, 1M=10, 2M=0");
+
+        assertEquals(1 << 20, sizes.max());
+        Map<String, Integer> counts = new TreeMap<>(SizeClasses.ORDER);
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            counts.merge(SizeClasses.of(sizes.next(random)), 1, Integer::sum);
+        }
+
+        assertEquals(Arrays.asList("0-4K", "4K-64K", "1M-16M"), Arrays.asList(counts.keySet().toArray()));
+        assertEquals(60_000, counts.get("0-4K"), 1_000);
+        assertEquals(30_000, counts.get("4K-64K"), 1_000);
+        assertEquals(10_000, counts.get("1M-16M"), 1_000);
+    }
+
+    @Test
+    public void testFile() throws Exception {
+        File file = folder.newFile("sizes.csv");
+        Files.write(file.toPath(), Arrays.asList("# size,count", "512,3", "", "64K-128K,1"), StandardCharsets.UTF_8);
+
+        SizeDistribution sizes = SizeDistribution.parse("file:" + file.getPath());
+
+        assertEquals(128 * 1024, sizes.max());
+        Random random = new Random(42);
+        int small = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (sizes.next(random) == 512) {
+                small++;
+            }
+        }
+        assertEquals(7_500, small, 300);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownType() {
+        SizeDistribution.parse("pareto:alpha=1");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingSigma() {
+        SizeDistribution.parse("lognormal:median=64K");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidRange() {
+        SizeDistribution.parse("uniform:2M-1M");
+    }
+
+}
@@ -0,0 +1,88 @@
+package de.jeha.s3pt.report;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author jenshadlich@googlemail.com
+ */
+public class IntervalReporterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final List<Double> intervals = new CopyOnWriteArrayList<>();
+    private final IntervalRecorder recorder = new IntervalRecorder();
+
+    @Test
+    public void testLastIntervalIsReported() throws Exception {
+        File csvFile = new File(folder.getRoot(), "intervals.csv");
+        IntervalReporter reporter = reporter(csvFile.getPath());
+        reporter.start();
+
+        recorder.recordLatency(2_000);
+        recorder.recordLatency(4_000);
+        Thread.sleep(700);
+        reporter.close();
+
+        assertEquals(1, intervals.size());
+        // two requests in about 0.7 s
+        assertEquals(2 / 0.7, intervals.get(0), 1.0);
+        List<String> lines = Files.readAllLines(csvFile.toPath(), StandardCharsets.UTF_8);
+        assertEquals(2, lines.size());
+        assertEquals("time,ops,errors,p50,p90,p99,max", lines.get(0));
+    }
+
+    @Test
+    public void testEmptyLastIntervalIsSkipped() throws Exception {
+        File csvFile = new File(folder.getRoot(), "intervals.csv");
+        IntervalReporter reporter = reporter(csvFile.getPath());
+        reporter.start();
+
+        Thread.sleep(700);
+        reporter.close();
+
+        assertTrue(intervals.isEmpty());
+        // only the header
+        assertEquals(1, Files.readAllLines(csvFile.toPath(), StandardCharsets.UTF_8).size());
+    }
+
+    @Test
+    public void testShortLastIntervalIsSkipped() throws Exception {
+        IntervalReporter reporter = reporter(null);
+        reporter.start();
+
+        recorder.recordLatency(2_000);
+        reporter.close();
+
+        assertTrue(intervals.isEmpty());
+    }
+
+    @Test
+    public void testLastIntervalWithErrorsOnlyIsReported() throws Exception {
+        IntervalReporter reporter = reporter(null);
+        reporter.start();
+
+        recorder.recordError();
+        Thread.sleep(700);
+        reporter.close();
+
+        assertEquals(Collections.singletonList(0.0), intervals);
+    }
+
+    private IntervalReporter reporter(String csvFileName) {
+        return new IntervalReporter(Collections.singletonList(recorder), 1, csvFileName,
+                (timestamp, ops, errors, p50, p90, p99, max) -> intervals.add(ops));
+    }
+
+}
@@ -0,0 +1,112 @@
+package de.jeha.s3pt.report;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author jenshadlich@googlemail.com
+ */
+public class KairosdbExporterTest {
+
+    private final List<JsonArray> batches = new CopyOnWriteArrayList<>();
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private HttpServer server;
+    private volatile boolean blocking = false;
+
+    @Before
+    public void startServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/v1/datapoints", exchange -> {
+            if (blocking) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            String body = IOUtils.toString(exchange.getRequestBody(), StandardCharsets.UTF_8);
+            batches.add(new JsonParser().parse(body).getAsJsonArray());
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @After
+    public void stopServer() {
+        release.countDown();
+        server.stop(0);
+    }
+
+    @Test
+    public void testBatchesOverOneConnection() throws Exception {
+        KairosdbExporter exporter = new KairosdbExporter(url(), 1000, 100);
+        for (int i = 0; i < 250; i++) {
+            assertTrue(exporter.offer(new KairosdbPoint("metric", i, i, Collections.emptyMap())));
+        }
+        exporter.intervalListener(Collections.singletonMap("op", "UPLOAD")).onInterval(1000, 42, 1, 2, 3, 4, 5);
+        exporter.close();
+
+        int points = batches.stream().mapToInt(JsonArray::size).sum();
+        assertEquals(256, points);
+        assertTrue(batches.stream().allMatch(batch -> batch.size() <= 100));
+        assertEquals("keep-alive connection is reused", 1, clientPorts.size());
+        assertEquals(0, exporter.getDropped());
+    }
+
+    @Test
+    public void testOfferDoesNotBlockIfKairosdbIsSlow() throws Exception {
+        blocking = true;
+        KairosdbExporter exporter = new KairosdbExporter(url(), 10, 10);
+
+        long start = System.nanoTime();
+        int accepted = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (exporter.offer(new KairosdbPoint("metric", i, i, Collections.emptyMap()))) {
+                accepted++;
+            }
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue("offer must not wait for KairosDB: " + elapsedMillis + " ms", elapsedMillis < 1000);
+        assertTrue(accepted <= 20);
+        assertEquals(1000 - accepted, exporter.getDropped());
+
+        release.countDown();
+        exporter.close();
+    }
+
+    @Test
+    public void testUnreachableKairosdbDoesNotFail() throws Exception {
+        server.stop(0);
+        KairosdbExporter exporter = new KairosdbExporter(url(), 100, 10);
+        exporter.offer(new KairosdbPoint("metric", 1, 1, Collections.emptyMap()));
+        exporter.close();
+
+        assertEquals(1, exporter.getDropped());
+    }
+
+    private String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+}
@@ -0,0 +1,55 @@
+package de.jeha.s3pt.report;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author jenshadlich@googlemail.com
+ */
+public class MetricsEndpointTest {
+
+    @Test
+    public void testScrape() throws Exception {
+        LiveMetrics metrics = new LiveMetrics(() -> 7);
+        RequestSeries ok = metrics.series("GET", "ok", "T4");
+        ok.record(800);
+        ok.record(3_000);
+        ok.record(20_000_000);
+        metrics.series("GET", "503", "T4").record(40_000);
+        metrics.series("HEAD", "ok", "T4").record(150);
+        metrics.recordBytes(0, 4096);
+
+        String body;
+        try (MetricsEndpoint endpoint = new MetricsEndpoint(metrics, 0)) {
+            endpoint.start();
+            HttpURLConnection connection = (HttpURLConnection)
+                    new URL("http://127.0.0.1:" + endpoint.getPort() + "/metrics").openConnection();
+            assertEquals(200, connection.getResponseCode());
+            assertTrue(connection.getContentType().startsWith("text/plain; version=0.0.4"));
+            body = IOUtils.toString(connection.getInputStream(), StandardCharsets.UTF_8);
+        }
+
+        String labels = "operation=\"GET\",status=\"ok\",thread_group=\"T4\"";
+        assertTrue(body.contains("s3pt_request_duration_seconds_bucket{" + labels + ",le=\"0.0005\"} 0\n"));
+        assertTrue(body.contains("s3pt_request_duration_seconds_bucket{" + labels + ",le=\"0.001\"} 1\n"));
+        assertTrue(body.contains("s3pt_request_duration_seconds_bucket{" + labels + ",le=\"0.005\"} 2\n"));
+        assertTrue(body.contains("s3pt_request_duration_seconds_bucket{" + labels + ",le=\"10\"} 2\n"));
+        assertTrue(body.contains("s3pt_request_duration_seconds_bucket{" + labels + ",le=\"+Inf\"} 3\n"));
+        assertTrue(body.contains("s3pt_request_duration_seconds_sum{" + labels + "} 20.0038\n"));
+        assertTrue(body.contains("s3pt_request_duration_seconds_count{" + labels + "} 3\n"));
+        assertTrue(body.contains(
+                "s3pt_request_duration_seconds_count{operation=\"GET\",status=\"503\",thread_group=\"T4\"} 1\n"));
+        String headLabels = "operation=\"HEAD\",status=\"ok\",thread_group=\"T4\"";
+        assertTrue(body.contains("s3pt_request_duration_seconds_bucket{" + headLabels + ",le=\"0.0001\"} 0\n"));
+        assertTrue(body.contains("s3pt_request_duration_seconds_bucket{" + headLabels + ",le=\"0.00025\"} 1\n"));
+        assertTrue(body.contains("s3pt_bytes_total{direction=\"download\"} 4096\n"));
+        assertTrue(body.contains("s3pt_retries_total 7\n"));
+    }
+
+}
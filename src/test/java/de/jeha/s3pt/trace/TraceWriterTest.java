@@ -0,0 +1,77 @@
+package de.jeha.s3pt.trace;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author jenshadlich@googlemail.com
+ */
+public class TraceWriterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        File file = folder.newFile("trace.bin");
+        final long start = System.nanoTime();
+
+        try (TraceWriter writer = new TraceWriter(file.getPath())) {
+            writer.start();
+            List<TraceBuffer> buffers = writer.createBuffers(2);
+            assertTrue(buffers.get(0).add(start + 5_000_000, "GET", "ok", "key-1", 1024, 800));
+            assertTrue(buffers.get(1).add(start + 2_000_000, "PUT", "503", "key,2", 0, 30_000));
+            assertTrue(buffers.get(0).add(start + 6_000_000, "GET", "ok", null, 2048, 900));
+        }
+
+        try (TraceReader reader = new TraceReader(file.getPath())) {
+            TraceRecord record = new TraceRecord();
+
+            assertTrue(reader.next(record));
+            assertEquals(0, record.getThread());
+            assertEquals("GET", record.getOperation());
+            assertEquals("ok", record.getStatus());
+            assertEquals("key-1", record.getKey());
+            assertEquals(1024, record.getBytes());
+            assertEquals(800, record.getLatency());
+            final long first = record.getStartEpochMicros();
+            assertEquals(reader.getStartEpochMicros(), first, 60_000_000);
+
+            assertTrue(reader.next(record));
+            assertEquals(0, record.getThread());
+            assertEquals("", record.getKey());
+            assertEquals(1_000, record.getStartEpochMicros() - first);
+
+            assertTrue(reader.next(record));
+            assertEquals(1, record.getThread());
+            assertEquals("PUT", record.getOperation());
+            assertEquals("503", record.getStatus());
+            assertEquals("key,2", record.getKey());
+            assertEquals(30_000, record.getLatency());
+            assertEquals(-3_000, record.getStartEpochMicros() - first);
+
+            assertFalse(reader.next(record));
+        }
+    }
+
+    @Test
+    public void testFullBufferDrops() throws Exception {
+        TraceBuffer buffer = new TraceBuffer(0, 4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.add(i, "GET", "ok", "key", 0, 1));
+        }
+        assertFalse(buffer.add(4, "GET", "ok", "key", 0, 1));
+        assertEquals(1, buffer.getDropped());
+
+        assertEquals(4, buffer.drainTo((thread, startNanos, operation, status, key, bytes, latency) -> {
+        }));
+        assertTrue(buffer.add(5, "GET", "ok", "key", 0, 1));
+    }
+
+}
@@ -0,0 +1,48 @@
+package de.jeha.s3pt.utils;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * @author jenshadlich@googlemail.com
+ */
+public class ChecksumTest {
+
+    private static final byte[] DATA = "123456789".getBytes(StandardCharsets.US_ASCII);
+
+    @Test
+    public void testCrc32c() throws Exception {
+        // check value of CRC-32C is 0xE3069283
+        assertEquals("4waSgw==", Checksum.CRC32C.compute(ByteBuffer.wrap(DATA)));
+        assertEquals("4waSgw==", Checksum.CRC32C.compute(new ByteArrayInputStream(DATA), new byte[4]));
+    }
+
+    @Test
+    public void testMd5AndSha256() throws Exception {
+        assertEquals("JfnnlDI7RTiF9RgfG2JNCw==", Checksum.MD5.compute(ByteBuffer.wrap(DATA)));
+        assertEquals("FeKw08M4keuw8e9gnsQZQgwg4yDOlMZfvIwzEkSOsiU=",
+                Checksum.SHA256.compute(new ByteArrayInputStream(DATA), new byte[4]));
+    }
+
+    @Test
+    public void testComputeDoesNotModifyBuffer() {
+        ByteBuffer data = ByteBuffer.wrap(DATA);
+        Checksum.SHA256.compute(data);
+
+        assertEquals(DATA.length, data.remaining());
+    }
+
+    @Test
+    public void testHeaders() {
+        assertEquals("x-amz-checksum-crc32c", Checksum.CRC32C.header());
+        assertEquals("x-amz-checksum-sha256", Checksum.SHA256.header());
+        assertNull(Checksum.MD5.header());
+    }
+
+}
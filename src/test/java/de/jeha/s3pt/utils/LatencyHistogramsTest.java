@@ -0,0 +1,44 @@
+package de.jeha.s3pt.utils;
+
+import org.HdrHistogram.Histogram;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author jenshadlich@googlemail.com
+ */
+public class LatencyHistogramsTest {
+
+    @Test
+    public void testEncodeAndDecode() {
+        Histogram histogram = LatencyHistograms.create();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.recordValue(i);
+        }
+
+        Histogram decoded = LatencyHistograms.decode(LatencyHistograms.encode(histogram));
+
+        assertEquals(histogram, decoded);
+        assertEquals(990, decoded.getValueAtPercentile(99));
+
+        // decoded histograms grow like new ones
+        decoded.recordValue(3_600_000);
+        assertEquals(1001, decoded.getTotalCount());
+    }
+
+    @Test
+    public void testGeometricMean() {
+        Histogram histogram = LatencyHistograms.create();
+        histogram.recordValue(1);
+        histogram.recordValue(100);
+
+        assertEquals(10.0, LatencyHistograms.geometricMean(histogram), 0.001);
+
+        histogram.recordValue(0);
+
+        assertEquals(0.0, LatencyHistograms.geometricMean(histogram), 0.001);
+        assertEquals(0.0, LatencyHistograms.geometricMean(LatencyHistograms.create()), 0.001);
+    }
+
+}
@@ -0,0 +1,83 @@
+package de.jeha.s3pt.utils;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.Deflater;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author jenshadlich@googlemail.com
+ */
+public class PayloadGeneratorTest {
+
+    private static final int SIZE = 4 << 20;
+
+    @Test
+    public void testRandomIsIncompressible() {
+        assertEquals(1, compressionRatio(generate(PayloadGenerator.RANDOM, 42)), 0.01);
+    }
+
+    @Test
+    public void testCompressionRatio() {
+        assertEquals(2, compressionRatio(generate(new PayloadGenerator(2, 0, 4096), 42)), 0.1);
+        assertEquals(4, compressionRatio(generate(new PayloadGenerator(4, 0, 4096), 42)), 0.3);
+    }
+
+    @Test
+    public void testDedupRatio() {
+        final PayloadGenerator generator = new PayloadGenerator(1, 0.3, 4096);
+        Set<ByteBuffer> distinct = new HashSet<>();
+        int blocks = 0;
+        for (long seed = 1; seed <= 2; seed++) {
+            byte[] data = generate(generator, seed);
+            for (int offset = 0; offset < data.length; offset += 4096) {
+                distinct.add(ByteBuffer.wrap(data, offset, 4096));
+                blocks++;
+            }
+        }
+
+        assertEquals(0.3, 1 - (double) distinct.size() / blocks, 0.02);
+    }
+
+    @Test
+    public void testSameDataAtAnyPosition() {
+        final PayloadGenerator generator = new PayloadGenerator(3, 0.5, 1000);
+        byte[] expected = generate(generator, 7);
+
+        byte[] actual = new byte[SIZE];
+        for (int offset = 0; offset < SIZE; offset += 777) {
+            generator.fill(7, offset, actual, offset, Math.min(777, SIZE - offset));
+        }
+
+        assertArrayEquals(expected, actual);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCompressionRatio() {
+        new PayloadGenerator(0.5, 0, 4096);
+    }
+
+    private static byte[] generate(PayloadGenerator generator, long seed) {
+        byte[] data = new byte[SIZE];
+        generator.fill(seed, 0, data, 0, data.length);
+        return data;
+    }
+
+    private static double compressionRatio(byte[] data) {
+        Deflater deflater = new Deflater();
+        deflater.setInput(data);
+        deflater.finish();
+        byte[] buffer = new byte[64 * 1024];
+        long compressed = 0;
+        while (!deflater.finished()) {
+            compressed += deflater.deflate(buffer);
+        }
+        deflater.end();
+        return (double) data.length / compressed;
+    }
+
+}
@@ -0,0 +1,102 @@
+package de.jeha.s3pt.utils;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author jenshadlich@googlemail.com
+ */
+public class PayloadPoolTest {
+
+    @Test
+    public void testStreamWrapsAround() throws Exception {
+        PayloadPool pool = new PayloadPool(PayloadGenerator.RANDOM, 0);
+        final int size = pool.getCapacity() + 1000;
+        PayloadInputStream stream = pool.newStream().next(size, new Random(42));
+
+        byte[] data = new byte[size];
+        int read = 0;
+        for (int n; (n = stream.read(data, read, Math.min(100_000, size - read))) > 0; ) {
+            read += n;
+        }
+        assertEquals(size, read);
+        assertEquals(-1, stream.read());
+
+        // the data repeats after the capacity of the pool
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(data[i], data[pool.getCapacity() + i]);
+        }
+    }
+
+    @Test
+    public void testMarkAndReset() throws Exception {
+        PayloadPool pool = new PayloadPool(new PayloadGenerator(2, 0.5, 1024), 0);
+        PayloadInputStream stream = pool.newStream().next(10_000, new Random(42));
+
+        byte[] first = new byte[10_000];
+        byte[] second = new byte[10_000];
+        stream.mark(0);
+        assertEquals(10_000, stream.read(first, 0, first.length));
+        stream.reset();
+        for (int i = 0; i < second.length; i++) {
+            second[i] = (byte) stream.read();
+        }
+
+        assertArrayEquals(first, second);
+    }
+
+    @Test
+    public void testUniqueBlocksAreStampedPerStream() throws Exception {
+        // fixed seed: which blocks of the pool are duplicates depends on it
+        PayloadPool pool = new PayloadPool(new PayloadGenerator(1, 0.3, 4096), 0, 42);
+        PayloadInputStream stream = pool.newStream();
+        Random random = new Random(42);
+
+        Set<ByteBuffer> distinct = new HashSet<>();
+        int blocks = 0;
+        for (int i = 0; i < 10; i++) {
+            byte[] data = new byte[1 << 20];
+            assertEquals(data.length, stream.next(data.length, random).read(data, 0, data.length));
+            for (int offset = 0; offset < data.length; offset += 4096) {
+                distinct.add(ByteBuffer.wrap(data, offset, 4096));
+                blocks++;
+            }
+        }
+
+        assertEquals(0.3, 1 - (double) distinct.size() / blocks, 0.02);
+    }
+
+    @Test
+    public void testSlice() {
+        PayloadPool pool = new PayloadPool(PayloadGenerator.RANDOM, 0);
+        ByteBuffer slice = pool.slice(1000, new Random(42));
+
+        assertTrue(slice.isReadOnly());
+        assertTrue(slice.isDirect());
+        assertEquals(1000, slice.remaining());
+    }
+
+    @Test
+    public void testContentMd5OfVariant() throws Exception {
+        PayloadPool pool = new PayloadPool(new PayloadGenerator(2, 0.3, 1024), 0);
+        final int size = 100_000;
+
+        // streams of a variant are not stamped, so they have the same data as the slice of the variant
+        byte[] data = new byte[size];
+        assertEquals(size, pool.newStream().next(size, 3).read(data, 0, size));
+        ByteBuffer slice = pool.slice(size, 3);
+        assertEquals(ByteBuffer.wrap(data), slice);
+
+        final String md5 = pool.contentMd5(size, 3);
+        assertEquals(Checksum.MD5.compute(slice), md5);
+        assertEquals(md5, pool.contentMd5(size, 3));
+        assertNotEquals(md5, pool.contentMd5(size, 4));
+    }
+
+}
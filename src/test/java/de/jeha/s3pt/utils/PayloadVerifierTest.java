@@ -0,0 +1,77 @@
+package de.jeha.s3pt.utils;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author jenshadlich@googlemail.com
+ */
+public class PayloadVerifierTest {
+
+    private static final int SIZE = 200_000;
+
+    private final ObjectContent content = new ObjectContent(new PayloadGenerator(2, 0.3, 4096), 42);
+
+    @Test
+    public void testIntact() throws Exception {
+        byte[] data = IOUtils.toByteArray(content.newStream("key", SIZE));
+        PayloadVerifier verifier = content.newVerifier();
+
+        verifier.start("key");
+        for (int offset = 0; offset < SIZE; offset += 1000) {
+            verifier.update(data, offset, Math.min(1000, SIZE - offset));
+        }
+        verifier.finish(SIZE);
+
+        assertTrue(verifier.takeNanos() >= 0);
+        assertEquals(-1, verifier.takeNanos());
+    }
+
+    @Test
+    public void testContentMismatch() throws Exception {
+        byte[] data = IOUtils.toByteArray(content.newStream("key", SIZE));
+        data[SIZE - 1]++;
+
+        assertEquals(CorruptPayloadException.CONTENT_MISMATCH, verify("key", data, SIZE));
+        // the content of another key (or seed) does not match either
+        assertEquals(CorruptPayloadException.CONTENT_MISMATCH,
+                verify("other", IOUtils.toByteArray(content.newStream("key", SIZE)), SIZE));
+        assertEquals(CorruptPayloadException.CONTENT_MISMATCH,
+                verify("key", IOUtils.toByteArray(new ObjectContent(PayloadGenerator.RANDOM, 42)
+                        .newStream("key", SIZE)), SIZE));
+    }
+
+    @Test
+    public void testLengthMismatch() throws Exception {
+        byte[] data = IOUtils.toByteArray(content.newStream("key", SIZE - 1));
+
+        assertEquals(CorruptPayloadException.LENGTH_MISMATCH, verify("key", data, SIZE));
+    }
+
+    @Test
+    public void testDeterministic() throws Exception {
+        // another instance (e.g. of another process) derives the same content from seed and key
+        ObjectContent other = new ObjectContent(new PayloadGenerator(2, 0.3, 4096), 42);
+        ByteBuffer buffer = other.newBuffer("key", SIZE);
+
+        assertArrayEquals(IOUtils.toByteArray(content.newStream("key", SIZE)), buffer.array());
+        assertNull(verify("key", buffer.array(), SIZE));
+    }
+
+    private String verify(String key, byte[] data, long size) {
+        PayloadVerifier verifier = content.newVerifier();
+        verifier.start(key);
+        verifier.update(data, 0, data.length);
+        try {
+            verifier.finish(size);
+            return null;
+        } catch (CorruptPayloadException e) {
+            return e.getCode();
+        }
+    }
+
+}
@@ -1,53 +1,76 @@
-// package de.jeha.s3pt.utils;
-
-// import org.junit.Test;
-// import org.slf4j.Logger;
-// import org.slf4j.LoggerFactory;
-
-// import static org.junit.Assert.assertEquals;
-
-// /**
-//  * @author jenshadlich@googlemail.com
-//  */
-// public class RandomGeneratedInputStreamTest {
-
-//     private static final Logger LOG = LoggerFactory.getLogger(RandomGeneratedInputStreamTest.class);
-
-
-//     @Test
-//     public void testData() throws Exception{
-//         RandomGeneratedInputStream is = new RandomGeneratedInputStream(8000,4096);
-//         byte[] buffer = new byte[8000];
-
-//         for (int i = 0; i < 8; i++) {
-//             //LOG.info("Reading {}, {}",i * 1000, 1000);
-//             int resp = is.read(buffer, 1000*i, 1000);
-//             assertEquals(resp, 1000);
-//         }
-//         int read = is.read();
-//         assertEquals(read, -1);
-//     }
-
-//     @Test
-//     public void testMarking() throws Exception{
-//         RandomGeneratedInputStream is = new RandomGeneratedInputStream(8000,4096);
-//         byte[] buffer = new byte[8000];
-//         byte[] buffer2 = new byte[8000];
-//         is.mark(4096);
-//         for (int i = 0; i < 8; i++) {
-//             //LOG.info("Reading {}, {}",i * 1000, 1000);
-//             int resp = is.read(buffer, 1000*i, 1000);
-//             assertEquals(resp, 1000);
-//             is.reset();
-//             int resp2 = is.read(buffer2, 1000*i, 1000);
-//             assertEquals(resp2, 1000);
-//             is.mark(4096);
-//         }
-//         for (int i = 0; i < buffer.length; i++) {
-//             //LOG.info("EQ: {} = {}", buffer[i], buffer2[i]);
-//             assertEquals(buffer[i], buffer2[i]);
-//         }
-//     }
-
-
-// }
+package de.jeha.s3pt.utils;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author jenshadlich@googlemail.com
+ */
+public class RandomGeneratedInputStreamTest {
+
+    @Test
+    public void testData() throws Exception {
+        RandomGeneratedInputStream is = new RandomGeneratedInputStream(8000);
+        byte[] buffer = new byte[8000];
+
+        for (int i = 0; i < 8; i++) {
+            int resp = is.read(buffer, 1000 * i, 1000);
+            assertEquals(1000, resp);
+        }
+        assertEquals(0, is.available());
+        assertEquals(-1, is.read());
+        assertEquals(-1, is.read(buffer));
+    }
+
+    @Test
+    public void testMarking() throws Exception {
+        RandomGeneratedInputStream is = new RandomGeneratedInputStream(8000);
+        byte[] buffer = new byte[8000];
+        byte[] buffer2 = new byte[8000];
+        is.mark(4096);
+        for (int i = 0; i < 8; i++) {
+            int resp = is.read(buffer, 1000 * i, 1000);
+            assertEquals(1000, resp);
+            is.reset();
+            int resp2 = is.read(buffer2, 1000 * i, 1000);
+            assertEquals(1000, resp2);
+            is.mark(4096);
+        }
+        assertArrayEquals(buffer, buffer2);
+    }
+
+    @Test
+    public void testWrapAround() throws Exception {
+        final int size = PayloadGenerator.RANDOM_SIZE + 100;
+        final int start = PayloadGenerator.RANDOM_SIZE - 50;
+
+        // single bytes and the bulk read (across the end of the block) return the same data
+        ByteArrayOutputStream expected = new ByteArrayOutputStream(size);
+        RandomGeneratedInputStream single = new RandomGeneratedInputStream(size, PayloadGenerator.RANDOM, start);
+        for (int b = single.read(); b >= 0; b = single.read()) {
+            expected.write(b);
+        }
+
+        RandomGeneratedInputStream bulk = new RandomGeneratedInputStream(size, PayloadGenerator.RANDOM, start);
+        byte[] buffer = new byte[size + 10];
+        assertEquals(size, bulk.read(buffer, 5, buffer.length - 5));
+        byte[] actual = new byte[size];
+        System.arraycopy(buffer, 5, actual, 0, size);
+
+        assertArrayEquals(expected.toByteArray(), actual);
+    }
+
+    @Test
+    public void testSkip() throws Exception {
+        RandomGeneratedInputStream is = new RandomGeneratedInputStream(100);
+
+        assertEquals(60, is.skip(60));
+        assertEquals(40, is.skip(60));
+        assertEquals(0, is.skip(1));
+        assertEquals(-1, is.read());
+    }
+
+}
@@ -0,0 +1,58 @@
+package de.jeha.s3pt.utils;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author jenshadlich@googlemail.com
+ */
+public class WorkerExecutorsTest {
+
+    @Test
+    public void testPlatformThreads() throws Exception {
+        assertTrue(maxConcurrency(WorkerExecutors.create(4, false), 20) <= 4);
+    }
+
+    @Test
+    public void testVirtualThreadsAreLimited() throws Exception {
+        Assume.assumeTrue(WorkerExecutors.isVirtualThreadsSupported());
+
+        int maxConcurrency = maxConcurrency(WorkerExecutors.create(4, true), 200);
+        assertTrue(maxConcurrency <= 4);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testVirtualThreadsNotSupported() {
+        Assume.assumeTrue(!WorkerExecutors.isVirtualThreadsSupported());
+
+        WorkerExecutors.create(4, true);
+    }
+
+    private static int maxConcurrency(ExecutorService executorService, int tasks) throws Exception {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger max = new AtomicInteger();
+
+        List<Callable<Void>> callables = new ArrayList<>();
+        for (int i = 0; i < tasks; i++) {
+            callables.add(() -> {
+                max.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Thread.sleep(5);
+                running.decrementAndGet();
+                return null;
+            });
+        }
+        executorService.invokeAll(callables);
+        executorService.shutdown();
+
+        return max.get();
+    }
+
+}